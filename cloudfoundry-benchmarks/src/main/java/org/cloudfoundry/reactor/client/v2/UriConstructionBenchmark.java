@@ -0,0 +1,101 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.client.v2;
+
+import org.cloudfoundry.QueryParameter;
+import org.cloudfoundry.client.v2.FilterParameter;
+import org.cloudfoundry.client.v2.OrderDirection;
+import org.cloudfoundry.client.v2.applications.ListApplicationsRequest;
+import org.cloudfoundry.reactor.client.MethodNameComparator;
+import org.cloudfoundry.reactor.client.QueryBuilder;
+import org.cloudfoundry.reactor.util.AnnotationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the construction of a v2 list request URI with its query and filter parameters.  {@code cached} uses the getters {@link QueryBuilder} and {@link FilterBuilder} resolve
+ * once per request class.  {@code reflective} repeats the scan of every public method, annotation lookup and reflective invocation that they previously made on every request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 5)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+public class UriConstructionBenchmark {
+
+    private static final String ROOT = "https://api.example.com";
+
+    private final ListApplicationsRequest request = ListApplicationsRequest.builder()
+        .name("test-application-name")
+        .orderDirection(OrderDirection.DESCENDING)
+        .page(2)
+        .resultsPerPage(50)
+        .spaceId("test-space-id")
+        .build();
+
+    @Benchmark
+    public String cached() {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(ROOT);
+        QueryBuilder.augment(builder, this.request);
+        FilterBuilder.augment(builder, this.request);
+
+        return builder
+            .pathSegment("v2", "apps")
+            .build().encode().toUriString();
+    }
+
+    @Benchmark
+    public String reflective() throws ReflectiveOperationException {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(ROOT);
+        reflectiveAugment(builder, this.request, QueryParameter.class);
+        reflectiveAugment(builder, this.request, FilterParameter.class);
+
+        return builder
+            .pathSegment("v2", "apps")
+            .build().encode().toUriString();
+    }
+
+    private static void reflectiveAugment(UriComponentsBuilder builder, Object instance, Class<? extends Annotation> type) throws ReflectiveOperationException {
+        Method[] methods = instance.getClass().getMethods();
+        Arrays.sort(methods, MethodNameComparator.INSTANCE);
+
+        for (Method method : methods) {
+            if (AnnotationUtils.findAnnotation(method, type).isPresent()) {
+                Object value = method.invoke(instance);
+
+                if (value != null) {
+                    builder.queryParam(method.getName(), value.toString());
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import okio.ByteString;
+import org.cloudfoundry.doppler.Envelope;
+import org.cloudfoundry.dropsonde.events.HttpStartStop;
+import org.cloudfoundry.dropsonde.events.LogMessage;
+import org.cloudfoundry.dropsonde.events.Method;
+import org.cloudfoundry.dropsonde.events.PeerType;
+import org.cloudfoundry.dropsonde.events.UUID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding firehose envelopes directly from a {@link ByteBuf} with decoding them through the Wire adapter and copying them into the model.  Run with
+ * {@code -prof gc} to compare allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 5)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+public class EnvelopeDecodingBenchmark {
+
+    @Param({"HttpStartStop", "LogMessage"})
+    public String eventType;
+
+    private ByteBuf buffer;
+
+    @Benchmark
+    public Envelope byteBuf() {
+        return EnvelopeDecoder.decode(this.buffer.resetReaderIndex())
+            .orElseThrow(IllegalStateException::new);
+    }
+
+    @Setup
+    public void setUp() {
+        org.cloudfoundry.dropsonde.events.Envelope.Builder builder = new org.cloudfoundry.dropsonde.events.Envelope.Builder()
+            .deployment("test-deployment")
+            .index("test-index")
+            .ip("10.0.0.1")
+            .job("test-job")
+            .origin("test-origin")
+            .tags(Collections.singletonMap("test-key", "test-value"))
+            .timestamp(System.nanoTime());
+
+        if ("HttpStartStop".equals(this.eventType)) {
+            builder
+                .eventType(org.cloudfoundry.dropsonde.events.Envelope.EventType.HttpStartStop)
+                .httpStartStop(new HttpStartStop.Builder()
+                    .applicationId(new UUID.Builder().high(1L).low(2L).build())
+                    .contentLength(1_024L)
+                    .instanceId("test-instance-id")
+                    .instanceIndex(0)
+                    .method(Method.GET)
+                    .peerType(PeerType.Server)
+                    .remoteAddress("10.0.0.2:61234")
+                    .requestId(new UUID.Builder().high(3L).low(4L).build())
+                    .startTimestamp(1L)
+                    .statusCode(200)
+                    .stopTimestamp(2L)
+                    .uri("https://test-application.example.com/test-path")
+                    .userAgent("test-user-agent")
+                    .build());
+        } else {
+            builder
+                .eventType(org.cloudfoundry.dropsonde.events.Envelope.EventType.LogMessage)
+                .logMessage(new LogMessage.Builder()
+                    .app_id("00000000-0000-0001-0000-000000000002")
+                    .message(ByteString.encodeUtf8("2017-01-01T00:00:00.000Z INFO 1 --- [main] test.Application : Started Application in 4.2 seconds"))
+                    .message_type(LogMessage.MessageType.OUT)
+                    .source_instance("0")
+                    .source_type("APP/PROC/WEB")
+                    .timestamp(1L)
+                    .build());
+        }
+
+        this.buffer = Unpooled.wrappedBuffer(org.cloudfoundry.dropsonde.events.Envelope.ADAPTER.encode(builder.build()));
+    }
+
+    @Benchmark
+    public Envelope wire() throws IOException {
+        return Envelope.from(org.cloudfoundry.dropsonde.events.Envelope.ADAPTER.decode(new ByteBufInputStream(this.buffer.resetReaderIndex())));
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.cloudfoundry.reactor.Instrumentation;
+import org.cloudfoundry.reactor.instrumentation.HistogramInstrumentation;
+import org.cloudfoundry.reactor.instrumentation.MicrometerInstrumentation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead added to each exchange by instrumentation: creating a recorder, templating the endpoint of its uri, and recording the measurements when it terminates,
+ * compared with the {@link ExchangeRecorder#NOOP} recorder used when instrumentation is disabled.  The network exchange itself is excluded.  Run with several threads so that
+ * contention on the shared statistics of a single endpoint is included.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 5)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Threads(4)
+@Warmup(iterations = 3, time = 5)
+public class InstrumentationBenchmark {
+
+    private static final String URI = "https://api.example.com/v2/apps/a1b2c3d4-e5f6-4a7b-8c9d-0e1f2a3b4c5d/routes?page=2";
+
+    @Param({"histogram", "micrometer"})
+    public String instrumentation;
+
+    private Instrumentation delegate;
+
+    @Benchmark
+    public ExchangeRecorder disabled() {
+        ExchangeRecorder recorder = ExchangeRecorder.NOOP;
+        recorder.response(URI);
+        recorder.finish(SignalType.ON_COMPLETE);
+
+        return recorder;
+    }
+
+    @Benchmark
+    public ExchangeRecorder enabled() {
+        ExchangeRecorder recorder = ExchangeRecorder.create(this.delegate, "GET", false);
+        recorder.response(URI);
+        recorder.finish(SignalType.ON_COMPLETE);
+
+        return recorder;
+    }
+
+    @Setup
+    public void setUp() {
+        this.delegate = "micrometer".equals(this.instrumentation) ? new MicrometerInstrumentation(new SimpleMeterRegistry()) : new HistogramInstrumentation();
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.cloudfoundry.reactor.DefaultConnectionContext;
+import org.cloudfoundry.uaa.users.ListUsersResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding representative v2, v3 and UAA list responses through a cached {@link ObjectReader} with {@link ObjectMapper#readValue(byte[], Class)}, with reflective
+ * binding, with Afterburner, and with the codecs generated at compile time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+public class JsonDecodingBenchmark {
+
+    @Param({"false", "true"})
+    public boolean afterburner;
+
+    @Param({"false", "true"})
+    public boolean generatedCodecs;
+
+    @Param({"uaa-users", "v2-applications", "v3-applications"})
+    public String payload;
+
+    private byte[] bytes;
+
+    private ObjectMapper objectMapper;
+
+    private ObjectReader reader;
+
+    private Class<?> type;
+
+    @Benchmark
+    public Object objectMapper() throws IOException {
+        return this.objectMapper.readValue(this.bytes, this.type);
+    }
+
+    @Benchmark
+    public Object objectReader() throws IOException {
+        return this.reader.readValue(this.bytes);
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        this.objectMapper = DefaultConnectionContext.builder()
+            .afterburner(this.afterburner)
+            .apiHost("api.example.com")
+            .generatedCodecs(this.generatedCodecs)
+            .build()
+            .getObjectMapper();
+
+        this.bytes = read(String.format("/payloads/%s.json", this.payload));
+        this.type = getType(this.payload);
+        this.reader = this.objectMapper.readerFor(this.type);
+    }
+
+    private static Class<?> getType(String payload) {
+        switch (payload) {
+            case "uaa-users":
+                return ListUsersResponse.class;
+            case "v2-applications":
+                return org.cloudfoundry.client.v2.applications.ListApplicationsResponse.class;
+            case "v3-applications":
+                return org.cloudfoundry.client.v3.applications.ListApplicationsResponse.class;
+            default:
+                throw new IllegalArgumentException(String.format("Unknown payload %s", payload));
+        }
+    }
+
+    private static byte[] read(String resource) throws IOException {
+        try (InputStream in = JsonDecodingBenchmark.class.getResourceAsStream(resource); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            byte[] buffer = new byte[8_192];
+            for (int length = in.read(buffer); length != -1; length = in.read(buffer)) {
+                out.write(buffer, 0, length);
+            }
+
+            return out.toByteArray();
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.util;
+
+import org.cloudfoundry.client.CloudFoundryClient;
+import org.cloudfoundry.client.v2.resourcematch.ListMatchingResourcesResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures hashing a synthetic application of many small files for resource matching, with one worker and with several.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@Fork(1)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+public class ResourceMatchingBenchmark {
+
+    @Param({"50000"})
+    public int files;
+
+    @Param({"1", "4", "8"})
+    public int parallelism;
+
+    private Path application;
+
+    private CloudFoundryClient cloudFoundryClient;
+
+    @Benchmark
+    public List<ResourceMatchingUtils.ArtifactMetadata> getMatchedResources() {
+        return ResourceMatchingUtils.getMatchedResources(this.cloudFoundryClient, this.application, this.parallelism)
+            .block();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.application = SyntheticApplication.create(this.files, 4_096);
+
+        this.cloudFoundryClient = mock(CloudFoundryClient.class, RETURNS_DEEP_STUBS);
+        when(this.cloudFoundryClient.resourceMatch().list(any()))
+            .thenReturn(Mono.just(ListMatchingResourcesResponse.builder().build()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticApplication.delete(this.application);
+    }
+
+}
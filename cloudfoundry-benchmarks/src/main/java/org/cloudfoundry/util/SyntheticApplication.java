@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Creates application directories of generated files for benchmarks
+ */
+final class SyntheticApplication {
+
+    private static final int FILES_PER_DIRECTORY = 100;
+
+    private SyntheticApplication() {
+    }
+
+    /**
+     * Creates an application directory with a fixed layout and fixed contents.  The first half of each file is random and the second half repeats a single byte, so files
+     * compress to roughly half their size.
+     *
+     * @param files the number of files to create
+     * @param size  the size of each file
+     * @return the application directory
+     * @throws IOException if the application cannot be written
+     */
+    static Path create(int files, int size) throws IOException {
+        Path application = Files.createTempDirectory("benchmark-application-");
+        Random random = new Random(0);
+        byte[] contents = new byte[size];
+
+        for (int i = 0; i < files; i++) {
+            Path directory = application.resolve(String.format("directory-%d", i / FILES_PER_DIRECTORY));
+            Files.createDirectories(directory);
+
+            random.nextBytes(contents);
+            Arrays.fill(contents, size / 2, size, (byte) i);
+            Files.write(directory.resolve(String.format("file-%d", i)), contents);
+        }
+
+        return application;
+    }
+
+    /**
+     * Deletes an application directory and its contents
+     *
+     * @param application the application directory
+     * @throws IOException if the application cannot be deleted
+     */
+    static void delete(Path application) throws IOException {
+        try (Stream<Path> contents = Files.walk(application)) {
+            contents
+                .sorted(Comparator.reverseOrder())
+                .forEach(path -> path.toFile().delete());
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.processor;
+
+/**
+ * An attribute of a model type that is bound to a JSON property
+ */
+final class Attribute {
+
+    private final String accessor;
+
+    private final boolean explicit;
+
+    private final boolean finalType;
+
+    private final boolean ignored;
+
+    private final String javaType;
+
+    private final String jsonName;
+
+    private final String name;
+
+    private final boolean primitive;
+
+    private final String type;
+
+    Attribute(String name, String accessor, String jsonName, String type, String javaType, boolean explicit, boolean ignored, boolean primitive, boolean finalType) {
+        this.accessor = accessor;
+        this.explicit = explicit;
+        this.finalType = finalType;
+        this.ignored = ignored;
+        this.javaType = javaType;
+        this.jsonName = jsonName;
+        this.name = name;
+        this.primitive = primitive;
+        this.type = type;
+    }
+
+    /**
+     * The name of the accessor method of the attribute
+     */
+    String getAccessor() {
+        return this.accessor;
+    }
+
+    /**
+     * The expression, in terms of a {@code TypeFactory} named {@code typeFactory}, that constructs the Jackson {@code JavaType} of the attribute
+     */
+    String getJavaType() {
+        return this.javaType;
+    }
+
+    /**
+     * The name of the JSON property
+     */
+    String getJsonName() {
+        return this.jsonName;
+    }
+
+    /**
+     * The name of the attribute, which is also the name of its builder method
+     */
+    String getName() {
+        return this.name;
+    }
+
+    /**
+     * The source representation of the attribute's type, boxed if it is primitive, or {@code null} if it is {@link Object}
+     */
+    String getType() {
+        return this.type;
+    }
+
+    /**
+     * Whether the attribute is named explicitly with {@code @JsonProperty}
+     */
+    boolean isExplicit() {
+        return this.explicit;
+    }
+
+    /**
+     * Whether the type of the attribute is final, so that the serializer of its values can be resolved once
+     */
+    boolean isFinalType() {
+        return this.finalType;
+    }
+
+    /**
+     * Whether the attribute is annotated with {@code @JsonIgnore}
+     */
+    boolean isIgnored() {
+        return this.ignored;
+    }
+
+    /**
+     * Whether the type of the attribute is primitive
+     */
+    boolean isPrimitive() {
+        return this.primitive;
+    }
+
+}
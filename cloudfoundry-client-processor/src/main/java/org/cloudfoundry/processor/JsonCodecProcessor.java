@@ -0,0 +1,770 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * An annotation processor that generates a streaming Jackson serializer and deserializer for each {@code @Value.Immutable} model type, and a module that registers them.  The
+ * module is named {@code org.cloudfoundry.CloudFoundryJsonModule} unless the {@value #MODULE_OPTION} option names another class.
+ * <p>
+ * Each deserializer reads the properties of a JSON object directly into the Immutables builder of the type, dispatching on the property name and delegating property values
+ * to the deserializers of their types.  Each serializer writes the attributes of a value through their accessors.  No bean introspection or reflective instantiation is
+ * required, and properties are bound as reflective binding would bind them: unknown properties are passed to the {@code DeserializationContext}, {@code null} sets a primitive
+ * attribute to the null value of its deserializer, and {@code null} values are omitted when the serialization inclusion is {@code NON_NULL}.
+ * <p>
+ * A deserializer is generated for types annotated with a bare {@code @JsonDeserialize}, and a serializer for types whose attributes are all annotated with
+ * {@code @JsonProperty} or {@code @JsonIgnore}.  Types whose binding relies on other Jackson annotations, or on polymorphic type information, continue to be bound
+ * reflectively.
+ * <p>
+ * The immutable implementations and builders are generated by Immutables during the first round, so the analysis of each type is deferred by a round.
+ */
+@SupportedAnnotationTypes(JsonCodecProcessor.IMMUTABLE)
+@SupportedOptions(JsonCodecProcessor.MODULE_OPTION)
+public final class JsonCodecProcessor extends AbstractProcessor {
+
+    static final String DEFAULT_MODULE = "org.cloudfoundry.CloudFoundryJsonModule";
+
+    static final String IMMUTABLE = "org.immutables.value.Value.Immutable";
+
+    static final String MODULE_OPTION = "org.cloudfoundry.processor.module";
+
+    private static final String JACKSON_PREFIX = "com.fasterxml.jackson.";
+
+    private static final String JSON_DESERIALIZE = "com.fasterxml.jackson.databind.annotation.JsonDeserialize";
+
+    private static final String JSON_IGNORE = "com.fasterxml.jackson.annotation.JsonIgnore";
+
+    private static final String JSON_PROPERTY = "com.fasterxml.jackson.annotation.JsonProperty";
+
+    private static final String JSON_SERIALIZE = "com.fasterxml.jackson.databind.annotation.JsonSerialize";
+
+    private static final String JSON_TYPE_INFO = "com.fasterxml.jackson.annotation.JsonTypeInfo";
+
+    private static final String VALUE_DEFAULT = "org.immutables.value.Value.Default";
+
+    private boolean candidatesFound;
+
+    private final Map<String, String> deserializers = new TreeMap<>();
+
+    private boolean moduleWritten;
+
+    private final Map<String, Boolean> pending = new TreeMap<>();
+
+    private final Map<String, String> serializers = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (this.moduleWritten || roundEnv.processingOver()) {
+            return false;
+        }
+
+        TypeElement immutable = this.processingEnv.getElementUtils().getTypeElement(IMMUTABLE);
+        if (immutable != null) {
+            ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(immutable)).stream()
+                .filter(JsonCodecProcessor::isCandidate)
+                .forEach(type -> {
+                    this.pending.putIfAbsent(type.getQualifiedName().toString(), false);
+                    this.candidatesFound = true;
+                });
+        }
+
+        for (Iterator<Map.Entry<String, Boolean>> i = this.pending.entrySet().iterator(); i.hasNext(); ) {
+            Map.Entry<String, Boolean> entry = i.next();
+            TypeElement type = this.processingEnv.getElementUtils().getTypeElement(entry.getKey());
+
+            try {
+                if (type != null) {
+                    generate(type);
+                }
+                i.remove();
+            } catch (UnresolvedTypeException e) {
+                if (entry.getValue()) {
+                    i.remove();
+                } else {
+                    entry.setValue(true);
+                }
+            }
+        }
+
+        if (this.pending.isEmpty() && this.candidatesFound) {
+            writeModule(this.processingEnv.getOptions().getOrDefault(MODULE_OPTION, DEFAULT_MODULE));
+            this.moduleWritten = true;
+        }
+
+        return false;
+    }
+
+    private static Optional<AnnotationMirror> getAnnotation(Element element, String annotationType) {
+        return element.getAnnotationMirrors().stream()
+            .filter(annotation -> getName(annotation).equals(annotationType))
+            .<AnnotationMirror>map(annotation -> annotation)
+            .findFirst();
+    }
+
+    private static String getAttributeName(ExecutableElement method) {
+        String name = method.getSimpleName().toString();
+
+        if (name.length() > 3 && name.startsWith("get") && Character.isUpperCase(name.charAt(3))) {
+            return Character.toLowerCase(name.charAt(3)) + name.substring(4);
+        }
+
+        return name;
+    }
+
+    private static String getName(AnnotationMirror annotation) {
+        return ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private static String getValue(AnnotationMirror annotation) {
+        return annotation.getElementValues().entrySet().stream()
+            .filter(entry -> entry.getKey().getSimpleName().contentEquals("value"))
+            .map(Map.Entry::getValue)
+            .map(AnnotationValue::getValue)
+            .map(Object::toString)
+            .findFirst()
+            .orElse("");
+    }
+
+    private static boolean hasBareAnnotation(Element element, String annotationType) {
+        return getAnnotation(element, annotationType)
+            .filter(annotation -> annotation.getElementValues().isEmpty())
+            .isPresent();
+    }
+
+    private static boolean hasForeignJacksonAnnotation(Element element) {
+        return element.getAnnotationMirrors().stream()
+            .anyMatch(annotation -> {
+                String name = getName(annotation);
+
+                if (name.equals(JSON_PROPERTY)) {
+                    return annotation.getElementValues().keySet().stream().anyMatch(key -> !key.getSimpleName().contentEquals("value"));
+                } else if (name.equals(JSON_IGNORE)) {
+                    return !annotation.getElementValues().isEmpty();
+                } else {
+                    return name.startsWith(JACKSON_PREFIX);
+                }
+            });
+    }
+
+    private static boolean isCandidate(TypeElement type) {
+        return type.getSimpleName().toString().startsWith("_")
+            && type.getEnclosingElement().getKind() == ElementKind.PACKAGE
+            && type.getTypeParameters().isEmpty()
+            && !getAnnotation(type, JSON_SERIALIZE).isPresent()
+            && (!getAnnotation(type, JSON_DESERIALIZE).isPresent() || hasBareAnnotation(type, JSON_DESERIALIZE));
+    }
+
+    private static boolean isGetter(ExecutableElement method) {
+        String name = method.getSimpleName().toString();
+
+        return (name.length() > 3 && name.startsWith("get") && Character.isUpperCase(name.charAt(3)))
+            || (name.length() > 2 && name.startsWith("is") && Character.isUpperCase(name.charAt(2)));
+    }
+
+    private static String literal(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+
+        return sb.append('"').toString();
+    }
+
+    private Optional<List<Attribute>> analyze(TypeElement type) {
+        if (type.getAnnotationMirrors().stream().map(JsonCodecProcessor::getName).anyMatch(name -> name.startsWith(JACKSON_PREFIX) && !name.equals(JSON_DESERIALIZE))) {
+            return Optional.empty();
+        }
+
+        if (getSupertypes(type.asType()).stream().anyMatch(supertype -> hasForeignJacksonAnnotation(this.processingEnv.getTypeUtils().asElement(supertype)))) {
+            return Optional.empty();
+        }
+
+        List<Attribute> attributes = new ArrayList<>();
+        Set<String> jsonNames = new HashSet<>();
+
+        for (ExecutableElement method : ElementFilter.methodsIn(this.processingEnv.getElementUtils().getAllMembers(type))) {
+            if (((TypeElement) method.getEnclosingElement()).getQualifiedName().contentEquals(Object.class.getName())) {
+                continue;
+            }
+
+            List<ExecutableElement> declarations = getDeclarations(type, method);
+            if (declarations.stream().anyMatch(JsonCodecProcessor::hasForeignJacksonAnnotation)) {
+                return Optional.empty();
+            }
+
+            Optional<String> explicitName = declarations.stream()
+                .map(declaration -> getAnnotation(declaration, JSON_PROPERTY))
+                .filter(Optional::isPresent)
+                .map(annotation -> getValue(annotation.get()))
+                .findFirst();
+            boolean ignored = declarations.stream().anyMatch(declaration -> getAnnotation(declaration, JSON_IGNORE).isPresent());
+
+            if (!isAttribute(method)) {
+                if (explicitName.isPresent() || ignored) {
+                    return Optional.empty();
+                }
+                continue;
+            }
+
+            TypeMirror attributeType = ((ExecutableType) this.processingEnv.getTypeUtils().asMemberOf((DeclaredType) type.asType(), method)).getReturnType();
+            if (hasErrors(attributeType)) {
+                throw new UnresolvedTypeException();
+            }
+
+            String name = getAttributeName(method);
+            String jsonName = explicitName.filter(value -> !value.isEmpty()).orElse(name);
+
+            if (!SourceVersion.isName(name) || !jsonNames.add(jsonName) || hasTypeInfo(attributeType)) {
+                return Optional.empty();
+            }
+
+            Optional<String> javaType = getJavaType(attributeType);
+            if (!javaType.isPresent()) {
+                return Optional.empty();
+            }
+
+            attributes.add(new Attribute(name, method.getSimpleName().toString(), jsonName, getCastType(attributeType), javaType.get(), explicitName.isPresent(), ignored,
+                attributeType.getKind().isPrimitive(), isFinal(attributeType)));
+        }
+
+        return Optional.of(attributes);
+    }
+
+    private void generate(TypeElement type) {
+        String packageName = this.processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String immutableName = type.getSimpleName().toString().substring(1);
+
+        if (this.processingEnv.getElementUtils().getTypeElement(String.format("%s.%s", packageName, immutableName)) == null) {
+            throw new UnresolvedTypeException();
+        }
+
+        Optional<List<Attribute>> analyzed = analyze(type);
+        if (!analyzed.isPresent()) {
+            return;
+        }
+
+        List<Attribute> attributes = analyzed.get();
+
+        if (getAnnotation(type, JSON_DESERIALIZE).isPresent()) {
+            TypeElement builder = this.processingEnv.getElementUtils().getTypeElement(String.format("%s.%s.Builder", packageName, immutableName));
+            if (builder == null) {
+                throw new UnresolvedTypeException();
+            }
+
+            Set<String> builderMethods = ElementFilter.methodsIn(builder.getEnclosedElements()).stream()
+                .filter(method -> method.getModifiers().contains(Modifier.PUBLIC) && method.getParameters().size() == 1)
+                .map(method -> method.getSimpleName().toString())
+                .collect(Collectors.toSet());
+
+            if (attributes.stream().allMatch(attribute -> attribute.isIgnored() || builderMethods.contains(attribute.getName()))) {
+                writeDeserializer(type, packageName, immutableName, attributes);
+            }
+        }
+
+        if (isSerializable(type, attributes)) {
+            writeSerializer(type, packageName, immutableName, attributes);
+        }
+    }
+
+    private String getCastType(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return this.processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        }
+
+        return isObject(type) ? null : getSourceType(type);
+    }
+
+    private List<ExecutableElement> getDeclarations(TypeElement type, ExecutableElement method) {
+        List<ExecutableElement> declarations = new ArrayList<>();
+        declarations.add(method);
+
+        getSupertypes(type.asType()).stream()
+            .map(supertype -> (TypeElement) this.processingEnv.getTypeUtils().asElement(supertype))
+            .flatMap(supertype -> ElementFilter.methodsIn(supertype.getEnclosedElements()).stream())
+            .filter(candidate -> candidate != method && this.processingEnv.getElementUtils().overrides(method, candidate, type))
+            .forEach(declarations::add);
+
+        return declarations;
+    }
+
+    private Optional<String> getJavaType(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+            case BYTE:
+            case CHAR:
+            case DOUBLE:
+            case FLOAT:
+            case INT:
+            case LONG:
+            case SHORT:
+                return Optional.of(String.format("typeFactory.constructType(%s.class)", type));
+            case ARRAY:
+                return getJavaType(((ArrayType) type).getComponentType())
+                    .map(component -> String.format("typeFactory.constructArrayType(%s)", component));
+            case DECLARED:
+                List<Optional<String>> arguments = ((DeclaredType) type).getTypeArguments().stream()
+                    .map(this::getJavaType)
+                    .collect(Collectors.toList());
+
+                if (arguments.stream().anyMatch(argument -> !argument.isPresent())) {
+                    return Optional.empty();
+                }
+
+                String rawType = getQualifiedName(type);
+                return Optional.of(arguments.isEmpty() ? String.format("typeFactory.constructType(%s.class)", rawType) :
+                    String.format("typeFactory.constructParametricType(%s.class, %s)", rawType, arguments.stream().map(Optional::get).collect(Collectors.joining(", "))));
+            case WILDCARD:
+                TypeMirror bound = ((WildcardType) type).getExtendsBound();
+                return bound != null ? getJavaType(bound) : Optional.of("typeFactory.constructType(java.lang.Object.class)");
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private String getQualifiedName(TypeMirror type) {
+        return ((TypeElement) this.processingEnv.getTypeUtils().asElement(type)).getQualifiedName().toString();
+    }
+
+    private String getSourceType(TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return getSourceType(((ArrayType) type).getComponentType()) + "[]";
+            case DECLARED:
+                List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+
+                return arguments.isEmpty() ? getQualifiedName(type) :
+                    String.format("%s<%s>", getQualifiedName(type), arguments.stream().map(this::getSourceType).collect(Collectors.joining(", ")));
+            case WILDCARD:
+                WildcardType wildcard = (WildcardType) type;
+
+                if (wildcard.getExtendsBound() != null) {
+                    return "? extends " + getSourceType(wildcard.getExtendsBound());
+                } else if (wildcard.getSuperBound() != null) {
+                    return "? super " + getSourceType(wildcard.getSuperBound());
+                } else {
+                    return "?";
+                }
+            default:
+                return type.toString();
+        }
+    }
+
+    private List<TypeMirror> getSupertypes(TypeMirror type) {
+        List<TypeMirror> supertypes = new ArrayList<>();
+
+        for (TypeMirror supertype : this.processingEnv.getTypeUtils().directSupertypes(type)) {
+            if (supertype.getKind() == TypeKind.ERROR) {
+                throw new UnresolvedTypeException();
+            }
+
+            if (supertype.getKind() == TypeKind.DECLARED && !getQualifiedName(supertype).equals(Object.class.getName())) {
+                supertypes.add(supertype);
+                supertypes.addAll(getSupertypes(supertype));
+            }
+        }
+
+        return supertypes;
+    }
+
+    private boolean hasErrors(TypeMirror type) {
+        switch (type.getKind()) {
+            case ERROR:
+                return true;
+            case ARRAY:
+                return hasErrors(((ArrayType) type).getComponentType());
+            case DECLARED:
+                return ((DeclaredType) type).getTypeArguments().stream().anyMatch(this::hasErrors);
+            case WILDCARD:
+                WildcardType wildcard = (WildcardType) type;
+                return (wildcard.getExtendsBound() != null && hasErrors(wildcard.getExtendsBound())) || (wildcard.getSuperBound() != null && hasErrors(wildcard.getSuperBound()));
+            default:
+                return false;
+        }
+    }
+
+    private boolean hasTypeInfo(TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return hasTypeInfo(((ArrayType) type).getComponentType());
+            case DECLARED:
+                Element element = this.processingEnv.getTypeUtils().asElement(type);
+
+                return getAnnotation(element, JSON_TYPE_INFO).isPresent()
+                    || getSupertypes(type).stream().anyMatch(supertype -> getAnnotation(this.processingEnv.getTypeUtils().asElement(supertype), JSON_TYPE_INFO).isPresent())
+                    || ((DeclaredType) type).getTypeArguments().stream().anyMatch(this::hasTypeInfo);
+            case WILDCARD:
+                WildcardType wildcard = (WildcardType) type;
+                return wildcard.getExtendsBound() != null && hasTypeInfo(wildcard.getExtendsBound());
+            default:
+                return false;
+        }
+    }
+
+    private boolean isAttribute(ExecutableElement method) {
+        Set<Modifier> modifiers = method.getModifiers();
+
+        return !modifiers.contains(Modifier.STATIC)
+            && !modifiers.contains(Modifier.PRIVATE)
+            && method.getParameters().isEmpty()
+            && method.getReturnType().getKind() != TypeKind.VOID
+            && (modifiers.contains(Modifier.ABSTRACT) || getAnnotation(method, VALUE_DEFAULT).isPresent());
+    }
+
+    private boolean isFinal(TypeMirror type) {
+        return type.getKind().isPrimitive()
+            || (type.getKind() == TypeKind.DECLARED && this.processingEnv.getTypeUtils().asElement(type).getModifiers().contains(Modifier.FINAL));
+    }
+
+    private boolean isObject(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED && getQualifiedName(type).equals(Object.class.getName());
+    }
+
+    /**
+     * A type is serialized only if every attribute is named or ignored explicitly, at least one is written, and no other method would be picked up as a property by
+     * reflective binding
+     */
+    private boolean isSerializable(TypeElement type, List<Attribute> attributes) {
+        if (!attributes.stream().allMatch(attribute -> attribute.isExplicit() || attribute.isIgnored()) || attributes.stream().allMatch(Attribute::isIgnored)) {
+            return false;
+        }
+
+        return ElementFilter.methodsIn(this.processingEnv.getElementUtils().getAllMembers(type)).stream()
+            .filter(method -> !((TypeElement) method.getEnclosingElement()).getQualifiedName().contentEquals(Object.class.getName()))
+            .filter(method -> !isAttribute(method))
+            .noneMatch(method -> method.getModifiers().contains(Modifier.PUBLIC)
+                && !method.getModifiers().contains(Modifier.STATIC)
+                && method.getParameters().isEmpty()
+                && method.getReturnType().getKind() != TypeKind.VOID
+                && isGetter(method));
+    }
+
+    private void write(String name, String source, Element... originatingElements) {
+        try (Writer writer = this.processingEnv.getFiler().createSourceFile(name, originatingElements).openWriter()) {
+            writer.write(source);
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, String.format("Unable to write %s: %s", name, e.getMessage()));
+        }
+    }
+
+    private void writeDeserializer(TypeElement type, String packageName, String immutableName, List<Attribute> attributes) {
+        String deserializerName = immutableName + "JsonDeserializer";
+
+        StringBuilder sb = new StringBuilder()
+            .append("package ").append(packageName).append(";\n\n")
+            .append("/**\n")
+            .append(" * A streaming deserializer for {@link ").append(immutableName).append("}, generated by {@code ").append(JsonCodecProcessor.class.getName()).append("}\n")
+            .append(" */\n")
+            .append("@SuppressWarnings({\"deprecation\", \"rawtypes\", \"unchecked\"})\n")
+            .append("public final class ").append(deserializerName)
+            .append(" extends com.fasterxml.jackson.databind.deser.std.StdDeserializer<").append(immutableName).append(">\n")
+            .append("    implements com.fasterxml.jackson.databind.deser.ResolvableDeserializer {\n\n")
+            .append("    private static final long serialVersionUID = 1L;\n\n");
+
+        for (int i = 0; i < attributes.size(); i++) {
+            if (!attributes.get(i).isIgnored()) {
+                sb.append("    private com.fasterxml.jackson.databind.JsonDeserializer<Object> deserializer").append(i).append(";\n\n");
+            }
+        }
+
+        sb.append("    public ").append(deserializerName).append("() {\n")
+            .append("        super(").append(immutableName).append(".class);\n")
+            .append("    }\n\n")
+            .append("    @Override\n")
+            .append("    public ").append(immutableName)
+            .append(" deserialize(com.fasterxml.jackson.core.JsonParser p, com.fasterxml.jackson.databind.DeserializationContext ctxt) throws java.io.IOException {\n")
+            .append("        com.fasterxml.jackson.core.JsonToken token = p.getCurrentToken();\n\n")
+            .append("        if (token == com.fasterxml.jackson.core.JsonToken.START_OBJECT) {\n")
+            .append("            token = p.nextToken();\n")
+            .append("        } else if (token != com.fasterxml.jackson.core.JsonToken.FIELD_NAME && token != com.fasterxml.jackson.core.JsonToken.END_OBJECT) {\n")
+            .append("            return (").append(immutableName).append(") ctxt.handleUnexpectedToken(handledType(), p);\n")
+            .append("        }\n\n")
+            .append("        ").append(immutableName).append(".Builder builder = ").append(immutableName).append(".builder();\n\n")
+            .append("        for (; token == com.fasterxml.jackson.core.JsonToken.FIELD_NAME; token = p.nextToken()) {\n")
+            .append("            String name = p.getCurrentName();\n")
+            .append("            p.nextToken();\n\n")
+            .append("            switch (name) {\n");
+
+        for (int i = 0; i < attributes.size(); i++) {
+            Attribute attribute = attributes.get(i);
+            sb.append("                case ").append(literal(attribute.getJsonName())).append(":\n");
+
+            if (attribute.isIgnored()) {
+                sb.append("                    p.skipChildren();\n");
+            } else if (attribute.isPrimitive()) {
+                sb.append("                    builder.").append(attribute.getName()).append("((").append(attribute.getType()).append(") ")
+                    .append("(p.getCurrentToken() == com.fasterxml.jackson.core.JsonToken.VALUE_NULL ? this.deserializer").append(i).append(".getNullValue(ctxt) : this.deserializer")
+                    .append(i).append(".deserialize(p, ctxt)));\n");
+            } else {
+                String value = String.format("this.deserializer%d.deserialize(p, ctxt)", i);
+
+                sb.append("                    if (p.getCurrentToken() != com.fasterxml.jackson.core.JsonToken.VALUE_NULL) {\n")
+                    .append("                        builder.").append(attribute.getName()).append("(")
+                    .append(attribute.getType() == null ? value : String.format("(%s) %s", attribute.getType(), value)).append(");\n")
+                    .append("                    }\n");
+            }
+
+            sb.append("                    break;\n");
+        }
+
+        sb.append("                default:\n")
+            .append("                    ctxt.handleUnknownProperty(p, this, handledType(), name);\n")
+            .append("            }\n")
+            .append("        }\n\n")
+            .append("        try {\n")
+            .append("            return builder.build();\n")
+            .append("        } catch (IllegalStateException | NullPointerException e) {\n")
+            .append("            throw ctxt.instantiationException(handledType(), e);\n")
+            .append("        }\n")
+            .append("    }\n\n")
+            .append("    @Override\n")
+            .append("    public boolean isCachable() {\n")
+            .append("        return true;\n")
+            .append("    }\n\n")
+            .append("    @Override\n")
+            .append("    public void resolve(com.fasterxml.jackson.databind.DeserializationContext ctxt) throws com.fasterxml.jackson.databind.JsonMappingException {\n")
+            .append("        com.fasterxml.jackson.databind.type.TypeFactory typeFactory = ctxt.getTypeFactory();\n");
+
+        for (int i = 0; i < attributes.size(); i++) {
+            Attribute attribute = attributes.get(i);
+
+            if (!attribute.isIgnored()) {
+                sb.append("        this.deserializer").append(i).append(" = ctxt.findRootValueDeserializer(").append(attribute.getJavaType()).append(");\n");
+            }
+        }
+
+        sb.append("    }\n\n")
+            .append("}\n");
+
+        write(packageName + "." + deserializerName, sb.toString(), type);
+        this.deserializers.put(packageName + "." + immutableName, packageName + "." + deserializerName);
+    }
+
+    private void writeModule(String module) {
+        int index = module.lastIndexOf('.');
+
+        StringBuilder sb = new StringBuilder();
+
+        if (index > 0) {
+            sb.append("package ").append(module, 0, index).append(";\n\n");
+        }
+
+        sb.append("/**\n")
+            .append(" * A Jackson module that registers the streaming serializers and deserializers of the model types, generated by {@code ").append(JsonCodecProcessor.class.getName())
+            .append("}.  The serializers are only used when the serialization inclusion is {@code ALWAYS} or {@code NON_NULL}.\n")
+            .append(" */\n")
+            .append("public final class ").append(module.substring(index + 1)).append(" extends com.fasterxml.jackson.databind.Module {\n\n")
+            .append("    @Override\n")
+            .append("    public String getModuleName() {\n")
+            .append("        return ").append(literal(module.substring(index + 1))).append(";\n")
+            .append("    }\n\n")
+            .append("    @Override\n")
+            .append("    public void setupModule(com.fasterxml.jackson.databind.Module.SetupContext context) {\n")
+            .append("        com.fasterxml.jackson.databind.module.SimpleDeserializers deserializers = new com.fasterxml.jackson.databind.module.SimpleDeserializers();\n");
+
+        this.deserializers.forEach((type, deserializer) ->
+            sb.append("        deserializers.addDeserializer(").append(type).append(".class, new ").append(deserializer).append("());\n"));
+
+        sb.append("        context.addDeserializers(deserializers);\n\n")
+            .append("        com.fasterxml.jackson.databind.module.SimpleSerializers serializers = new com.fasterxml.jackson.databind.module.SimpleSerializers();\n");
+
+        this.serializers.forEach((type, serializer) ->
+            sb.append("        serializers.addSerializer(").append(type).append(".class, new ").append(serializer).append("());\n"));
+
+        sb.append("        context.addSerializers(new InclusionSerializers(serializers));\n")
+            .append("    }\n\n")
+            .append("    @Override\n")
+            .append("    public com.fasterxml.jackson.core.Version version() {\n")
+            .append("        return com.fasterxml.jackson.core.Version.unknownVersion();\n")
+            .append("    }\n\n")
+            .append("    private static final class InclusionSerializers extends com.fasterxml.jackson.databind.ser.Serializers.Base {\n\n")
+            .append("        private final com.fasterxml.jackson.databind.ser.Serializers delegate;\n\n")
+            .append("        private InclusionSerializers(com.fasterxml.jackson.databind.ser.Serializers delegate) {\n")
+            .append("            this.delegate = delegate;\n")
+            .append("        }\n\n")
+            .append("        @Override\n")
+            .append("        public com.fasterxml.jackson.databind.JsonSerializer<?> findSerializer(com.fasterxml.jackson.databind.SerializationConfig config, ")
+            .append("com.fasterxml.jackson.databind.JavaType type,\n")
+            .append("                                                                             com.fasterxml.jackson.databind.BeanDescription beanDesc) {\n")
+            .append("            com.fasterxml.jackson.annotation.JsonInclude.Include inclusion = config.getDefaultPropertyInclusion().getValueInclusion();\n\n")
+            .append("            if (inclusion != com.fasterxml.jackson.annotation.JsonInclude.Include.ALWAYS && inclusion != com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL\n")
+            .append("                && inclusion != com.fasterxml.jackson.annotation.JsonInclude.Include.USE_DEFAULTS) {\n")
+            .append("                return null;\n")
+            .append("            }\n\n")
+            .append("            return this.delegate.findSerializer(config, type, beanDesc);\n")
+            .append("        }\n\n")
+            .append("    }\n\n")
+            .append("}\n");
+
+        write(module, sb.toString());
+    }
+
+    private void writeSerializer(TypeElement type, String packageName, String immutableName, List<Attribute> attributes) {
+        String serializerName = immutableName + "JsonSerializer";
+
+        StringBuilder sb = new StringBuilder()
+            .append("package ").append(packageName).append(";\n\n")
+            .append("/**\n")
+            .append(" * A streaming serializer for {@link ").append(immutableName).append("}, generated by {@code ").append(JsonCodecProcessor.class.getName()).append("}\n")
+            .append(" */\n")
+            .append("@SuppressWarnings({\"deprecation\", \"rawtypes\", \"unchecked\"})\n")
+            .append("public final class ").append(serializerName)
+            .append(" extends com.fasterxml.jackson.databind.ser.std.StdSerializer<").append(immutableName).append(">\n")
+            .append("    implements com.fasterxml.jackson.databind.ser.ResolvableSerializer {\n\n");
+
+        for (int i = 0; i < attributes.size(); i++) {
+            Attribute attribute = attributes.get(i);
+
+            if (!attribute.isIgnored()) {
+                sb.append("    private static final com.fasterxml.jackson.core.io.SerializedString NAME_").append(i)
+                    .append(" = new com.fasterxml.jackson.core.io.SerializedString(").append(literal(attribute.getJsonName())).append(");\n\n");
+            }
+        }
+
+        sb.append("    private static final long serialVersionUID = 1L;\n\n");
+
+        for (int i = 0; i < attributes.size(); i++) {
+            Attribute attribute = attributes.get(i);
+
+            if (attribute.isIgnored()) {
+                continue;
+            }
+
+            if (attribute.isFinalType()) {
+                sb.append("    private com.fasterxml.jackson.databind.JsonSerializer<Object> serializer").append(i).append(";\n\n");
+            } else {
+                sb.append("    private com.fasterxml.jackson.databind.JavaType type").append(i).append(";\n\n");
+            }
+        }
+
+        sb.append("    public ").append(serializerName).append("() {\n")
+            .append("        super(").append(immutableName).append(".class);\n")
+            .append("    }\n\n")
+            .append("    @Override\n")
+            .append("    public void resolve(com.fasterxml.jackson.databind.SerializerProvider provider) throws com.fasterxml.jackson.databind.JsonMappingException {\n")
+            .append("        com.fasterxml.jackson.databind.type.TypeFactory typeFactory = provider.getTypeFactory();\n");
+
+        for (int i = 0; i < attributes.size(); i++) {
+            Attribute attribute = attributes.get(i);
+
+            if (attribute.isIgnored()) {
+                continue;
+            }
+
+            if (attribute.isFinalType()) {
+                sb.append("        this.serializer").append(i).append(" = provider.findValueSerializer(").append(attribute.getJavaType()).append(", null);\n");
+            } else {
+                sb.append("        this.type").append(i).append(" = ").append(attribute.getJavaType()).append(";\n");
+            }
+        }
+
+        sb.append("    }\n\n")
+            .append("    @Override\n")
+            .append("    public void serialize(").append(immutableName)
+            .append(" value, com.fasterxml.jackson.core.JsonGenerator gen, com.fasterxml.jackson.databind.SerializerProvider provider) throws java.io.IOException {\n")
+            .append("        boolean writeNulls = provider.getConfig().getDefaultPropertyInclusion().getValueInclusion() != com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;\n\n")
+            .append("        gen.writeStartObject();\n\n");
+
+        for (int i = 0; i < attributes.size(); i++) {
+            Attribute attribute = attributes.get(i);
+
+            if (attribute.isIgnored()) {
+                continue;
+            }
+
+            String serializer = attribute.isFinalType() ? String.format("this.serializer%d", i) : String.format("serializer(provider, this.type%d, value%d)", i, i);
+
+            sb.append("        Object value").append(i).append(" = value.").append(attribute.getAccessor()).append("();\n")
+                .append("        if (value").append(i).append(" != null) {\n")
+                .append("            gen.writeFieldName(NAME_").append(i).append(");\n")
+                .append("            ").append(serializer).append(".serialize(value").append(i).append(", gen, provider);\n")
+                .append("        } else if (writeNulls) {\n")
+                .append("            gen.writeFieldName(NAME_").append(i).append(");\n")
+                .append("            provider.defaultSerializeNull(gen);\n")
+                .append("        }\n\n");
+        }
+
+        sb.append("        gen.writeEndObject();\n")
+            .append("    }\n\n")
+            .append("    private static com.fasterxml.jackson.databind.JsonSerializer<Object> serializer(com.fasterxml.jackson.databind.SerializerProvider provider, ")
+            .append("com.fasterxml.jackson.databind.JavaType type, Object value)\n")
+            .append("        throws com.fasterxml.jackson.databind.JsonMappingException {\n\n")
+            .append("        if (type.hasGenericTypes()) {\n")
+            .append("            return provider.findValueSerializer(provider.constructSpecializedType(type, value.getClass()), null);\n")
+            .append("        }\n\n")
+            .append("        return provider.findValueSerializer(value.getClass(), null);\n")
+            .append("    }\n\n")
+            .append("}\n");
+
+        write(packageName + "." + serializerName, sb.toString(), type);
+        this.serializers.put(packageName + "." + immutableName, packageName + "." + serializerName);
+    }
+
+    private static final class UnresolvedTypeException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private UnresolvedTypeException() {
+            super(null, null, false, false);
+        }
+
+    }
+
+}
@@ -20,16 +20,32 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import reactor.core.publisher.Mono;
 import reactor.ipc.netty.http.client.HttpClient;
 
+import java.util.Optional;
+
 /**
  * Common, reusable, connection context
  */
 public interface ConnectionContext {
 
+    /**
+     * The number of threads to compress the files of a directory upload with.  Defaults to the number of available processors.
+     */
+    default Integer getCompressionParallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
     /**
      * The {@link HttpClient} to use
      */
     HttpClient getHttpClient();
 
+    /**
+     * The (optional) {@link Instrumentation} that records the measurements of each HTTP exchange.  Defaults to empty.
+     */
+    default Optional<Instrumentation> getInstrumentation() {
+        return Optional.empty();
+    }
+
     /**
      * The {@link ObjectMapper} to use
      */
@@ -47,4 +63,13 @@ public interface ConnectionContext {
      */
     Mono<String> getRoot(String key);
 
+    /**
+     * Whether application and package uploads are compressed and streamed with chunked transfer encoding, rather than staged to a temporary file and sent with a content length.
+     * Defaults to {@code false}.  The setting applies to every upload made through this context.  An upload that is streamed to a server that requires a content length fails,
+     * and is not retried through a temporary file, so this should only be enabled for servers that accept chunked uploads.
+     */
+    default Boolean getStreamingUploads() {
+        return false;
+    }
+
 }
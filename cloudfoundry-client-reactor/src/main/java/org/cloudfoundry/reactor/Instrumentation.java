@@ -0,0 +1,32 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+/**
+ * A recipient of measurements of the HTTP exchanges made by a client.  Implementations are called once for each exchange, on whichever thread completed it, and so must be
+ * thread-safe and should return quickly.
+ */
+public interface Instrumentation {
+
+    /**
+     * Records the measurements of a completed, failed, or cancelled exchange
+     *
+     * @param exchange the measurements of the exchange
+     */
+    void record(HttpExchange exchange);
+
+}
@@ -17,9 +17,12 @@
 package org.cloudfoundry.reactor;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.deser.DeserializationProblemHandler;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.cloudfoundry.CloudFoundryJsonModule;
 import org.cloudfoundry.Nullable;
 import org.cloudfoundry.reactor.util.DefaultSslCertificateTruster;
 import org.cloudfoundry.reactor.util.JsonCodec;
@@ -58,6 +61,8 @@ import static io.netty.channel.ChannelOption.SO_SNDBUF;
 @Value.Immutable
 abstract class _DefaultConnectionContext implements ConnectionContext {
 
+    private static final String AFTERBURNER_MODULE = "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
+
     private static final int DEFAULT_PORT = 443;
 
     private static final Pattern HOSTNAME_PATTERN = Pattern.compile("^[a-zA-Z0-9-.]+$");
@@ -77,6 +82,12 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
         getThreadPool().dispose();
     }
 
+    @Override
+    @Value.Default
+    public Integer getCompressionParallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
     /**
      * The number of connections to use when processing requests and responses.  Setting this to `null` disables connection pooling.
      */
@@ -106,6 +117,9 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
         });
     }
 
+    @Override
+    public abstract Optional<Instrumentation> getInstrumentation();
+
     @Override
     @Value.Default
     public ObjectMapper getObjectMapper() {
@@ -115,8 +129,17 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
             .registerModule(new Jdk8Module())
             .setSerializationInclusion(NON_NULL);
 
+        if (getGeneratedCodecs().orElse(false)) {
+            objectMapper.registerModule(new CloudFoundryJsonModule());
+        }
+
+        getModules().forEach(objectMapper::registerModule);
         getProblemHandlers().forEach(objectMapper::addHandler);
 
+        if (getAfterburner().orElse(false)) {
+            objectMapper.registerModule(createAfterburnerModule(_DefaultConnectionContext.class.getClassLoader()));
+        }
+
         return objectMapper;
     }
 
@@ -151,6 +174,12 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
             .cache();
     }
 
+    @Override
+    @Value.Default
+    public Boolean getStreamingUploads() {
+        return false;
+    }
+
     /**
      * The number of worker threads to use when processing requests and responses
      */
@@ -168,6 +197,19 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
         }
     }
 
+    @Value.Check
+    void checkForValidCompressionParallelism() {
+        if (getCompressionParallelism() < 1) {
+            throw new IllegalArgumentException(String.format("Compression parallelism %d must be at least 1", getCompressionParallelism()));
+        }
+    }
+
+    /**
+     * Whether JSON is bound with generated bytecode rather than reflection, using the Jackson Afterburner module.  Requires {@code com.fasterxml.jackson.module:jackson-module-afterburner}
+     * on the classpath.  Defaults to {@code false}.
+     */
+    abstract Optional<Boolean> getAfterburner();
+
     /**
      * The hostname of the API root.  Typically something like {@code api.run.pivotal.io}.
      */
@@ -184,6 +226,12 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
             .map(connectionPoolSize -> PoolResources.fixed("cloudfoundry-client", connectionPoolSize));
     }
 
+    /**
+     * Whether model types are bound with the serializers and deserializers generated at compile time, in the {@link CloudFoundryJsonModule}, rather than by reflection.  Types
+     * that the generator does not support continue to be bound reflectively.  Defaults to {@code false}.
+     */
+    abstract Optional<Boolean> getGeneratedCodecs();
+
     @SuppressWarnings("unchecked")
     @Value.Derived
     Mono<Map<String, String>> getInfo() {
@@ -205,6 +253,12 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
      */
     abstract Optional<Boolean> getKeepAlive();
 
+    /**
+     * Additional Jackson modules to register with the {@link #getObjectMapper() object mapper}.  These are registered after the {@link CloudFoundryJsonModule}, if
+     * {@link #getGeneratedCodecs() enabled}, and so take precedence over it.
+     */
+    abstract List<Module> getModules();
+
     /**
      * Jackson deserialization problem handlers.  Typically only used for testing.
      */
@@ -253,6 +307,19 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
         return LoopResources.create("cloudfoundry-client", getThreadPoolSize(), true);
     }
 
+    /**
+     * Creates the Afterburner module, having first checked that it can be loaded, so that the optional dependency is only linked once it is known to be present
+     */
+    static Module createAfterburnerModule(ClassLoader classLoader) {
+        try {
+            Class.forName(AFTERBURNER_MODULE, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Afterburner requires com.fasterxml.jackson.module:jackson-module-afterburner to be on the classpath", e);
+        }
+
+        return Afterburner.createModule();
+    }
+
     private static void trust(UriComponents components, Optional<SslCertificateTruster> sslCertificateTruster) {
         sslCertificateTruster.ifPresent(t -> t.trust(components.getHost(), components.getPort(), Duration.ofSeconds(30)));
     }
@@ -269,4 +336,15 @@ abstract class _DefaultConnectionContext implements ConnectionContext {
         return builder.build().encode();
     }
 
+    /**
+     * Isolates the reference to the optional Afterburner dependency so that it is only linked when enabled
+     */
+    private static final class Afterburner {
+
+        private static Module createModule() {
+            return new AfterburnerModule();
+        }
+
+    }
+
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor;
+
+import org.cloudfoundry.Nullable;
+import org.immutables.value.Value;
+
+import java.time.Duration;
+
+/**
+ * The measurements of a single HTTP exchange
+ */
+@Value.Immutable
+abstract class _HttpExchange {
+
+    /**
+     * The number of bytes of the response body that were received.  {@code null} if no response was received.
+     */
+    @Nullable
+    public abstract Long getBytesIn();
+
+    /**
+     * The number of bytes of the request body that were written.  {@code null} if no request was sent.
+     */
+    @Nullable
+    public abstract Long getBytesOut();
+
+    /**
+     * The template of the endpoint, with the scheme, host and query removed and identifiers in the path replaced with placeholders (e.g. {@code /v2/apps/{id}/stats})
+     */
+    public abstract String getEndpoint();
+
+    /**
+     * The time from subscription until the exchange completed, failed, or was cancelled, including any retries, token acquisition and response decoding
+     */
+    public abstract Duration getLatency();
+
+    /**
+     * The method of the request (e.g. {@code GET})
+     */
+    public abstract String getMethod();
+
+    /**
+     * The number of times the request was retried after a {@code 401 UNAUTHORIZED} response invalidated the token
+     */
+    public abstract Integer getRetries();
+
+    /**
+     * The status code of the last response.  {@code null} if no response was received.
+     */
+    @Nullable
+    public abstract Integer getStatus();
+
+    /**
+     * The time from subscription until the headers of the last response were received.  {@code null} if no response was received.
+     */
+    @Nullable
+    public abstract Duration getTimeToFirstByte();
+
+    /**
+     * The total time spent waiting for the {@link TokenProvider} to provide a token
+     */
+    public abstract Duration getTokenWait();
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.client;
+
+import org.cloudfoundry.reactor.util.AnnotationUtils;
+import reactor.core.Exceptions;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * The public no-argument methods of a type that are annotated with a given annotation.  The methods of each type are found, sorted by name, and converted to {@link MethodHandle}s
+ * once, the first time an instance of the type is seen, rather than on every invocation.
+ *
+ * @param <A> the type of the annotation
+ */
+public final class AnnotatedGetters<A extends Annotation> {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Class<A> annotationType;
+
+    private final ClassValue<List<Getter<A>>> getters = new ClassValue<List<Getter<A>>>() {
+
+        @Override
+        protected List<Getter<A>> computeValue(Class<?> type) {
+            List<Getter<A>> getters = new ArrayList<>();
+
+            Arrays.stream(type.getMethods())
+                .filter(method -> method.getParameterCount() == 0)
+                .sorted(MethodNameComparator.INSTANCE)
+                .forEach(method -> AnnotationUtils.findAnnotation(method, AnnotatedGetters.this.annotationType)
+                    .ifPresent(annotation -> getters.add(new Getter<>(annotation, unreflect(method)))));
+
+            return getters;
+        }
+
+    };
+
+    /**
+     * Creates a new instance
+     *
+     * @param annotationType the type of the annotation
+     */
+    public AnnotatedGetters(Class<A> annotationType) {
+        this.annotationType = annotationType;
+    }
+
+    /**
+     * Invokes each annotated method of an instance, in order of method name, passing the annotation and the returned value to a consumer.  Methods returning {@code null} are
+     * skipped.
+     *
+     * @param instance the instance to invoke the methods of
+     * @param consumer the consumer of each annotation and value
+     */
+    public void forEach(Object instance, BiConsumer<A, Object> consumer) {
+        for (Getter<A> getter : this.getters.get(instance.getClass())) {
+            Object value = getter.invoke(instance);
+
+            if (value != null) {
+                consumer.accept(getter.annotation, value);
+            }
+        }
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        try {
+            return MethodHandles.publicLookup().unreflect(method).asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    private static final class Getter<A> {
+
+        private final A annotation;
+
+        private final MethodHandle handle;
+
+        private Getter(A annotation, MethodHandle handle) {
+            this.annotation = annotation;
+            this.handle = handle;
+        }
+
+        private Object invoke(Object instance) {
+            try {
+                return this.handle.invokeExact(instance);
+            } catch (Throwable t) {
+                throw Exceptions.propagate(t);
+            }
+        }
+
+    }
+
+}
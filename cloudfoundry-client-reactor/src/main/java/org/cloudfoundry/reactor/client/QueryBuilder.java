@@ -17,16 +17,9 @@
 package org.cloudfoundry.reactor.client;
 
 import org.cloudfoundry.QueryParameter;
-import org.cloudfoundry.reactor.util.AnnotationUtils;
 import org.springframework.web.util.UriComponentsBuilder;
-import reactor.core.Exceptions;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.Optional;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -34,6 +27,8 @@ import java.util.stream.Collectors;
  */
 public final class QueryBuilder {
 
+    private static final AnnotatedGetters<QueryParameter> QUERY_PARAMETERS = new AnnotatedGetters<>(QueryParameter.class);
+
     private QueryBuilder() {
     }
 
@@ -44,22 +39,7 @@ public final class QueryBuilder {
      * @param instance the instance to inspect and invoke
      */
     public static void augment(UriComponentsBuilder builder, Object instance) {
-        Arrays.stream(instance.getClass().getMethods())
-            .sorted(MethodNameComparator.INSTANCE)
-            .forEach(processMethod(builder, instance));
-    }
-
-    private static Optional<Object> getValue(Method method, Object instance) {
-        try {
-            return Optional.ofNullable(method.invoke(instance));
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw Exceptions.propagate(e);
-        }
-    }
-
-    private static Consumer<QueryParameter> processAnnotation(UriComponentsBuilder builder, Method method, Object instance) {
-        return queryParameter -> getValue(method, instance)
-            .ifPresent(processValue(builder, queryParameter));
+        QUERY_PARAMETERS.forEach(instance, (queryParameter, value) -> processValue(builder, queryParameter, value));
     }
 
     private static void processCollection(UriComponentsBuilder builder, QueryParameter queryParameter, Object value) {
@@ -70,25 +50,18 @@ public final class QueryBuilder {
                 .collect(Collectors.joining(queryParameter.delimiter())));
     }
 
-    private static Consumer<Method> processMethod(UriComponentsBuilder builder, Object instance) {
-        return method -> AnnotationUtils.findAnnotation(method, QueryParameter.class)
-            .ifPresent(processAnnotation(builder, method, instance));
-    }
-
     private static void processValue(UriComponentsBuilder builder, String name, String value) {
         if (!value.isEmpty()) {
             builder.queryParam(name, value);
         }
     }
 
-    private static Consumer<Object> processValue(UriComponentsBuilder builder, QueryParameter queryParameter) {
-        return value -> {
-            if (value instanceof Collection) {
-                processCollection(builder, queryParameter, value);
-            } else {
-                processValue(builder, queryParameter.value(), value.toString());
-            }
-        };
+    private static void processValue(UriComponentsBuilder builder, QueryParameter queryParameter, Object value) {
+        if (value instanceof Collection) {
+            processCollection(builder, queryParameter, value);
+        } else {
+            processValue(builder, queryParameter.value(), value.toString());
+        }
     }
 
 }
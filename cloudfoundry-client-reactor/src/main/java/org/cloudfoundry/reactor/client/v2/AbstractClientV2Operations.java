@@ -25,6 +25,7 @@ import org.cloudfoundry.reactor.util.ErrorPayloadMapper;
 import org.cloudfoundry.reactor.util.MultipartHttpClientRequest;
 import org.reactivestreams.Publisher;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.ipc.netty.http.client.HttpClientRequest;
 import reactor.ipc.netty.http.client.HttpClientResponse;
@@ -66,6 +67,24 @@ public abstract class AbstractClientV2Operations extends AbstractReactorOperatio
             ErrorPayloadMapper.clientV2(this.connectionContext.getObjectMapper()));
     }
 
+    /**
+     * Makes a GET request for a page of resources, decoding and emitting each resource as it is received rather than once the page has been received in full.  The paging metadata
+     * preceding the resources is not decoded.
+     *
+     * @param requestPayload the request payload
+     * @param resourceType   the type of the resources
+     * @param uriTransformer the transformer of the request uri
+     * @param <T>            the type of the resources
+     * @return the resources
+     */
+    protected final <T> Flux<T> getResources(Object requestPayload, Class<T> resourceType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
+        return doGetElements("resources", resourceType,
+            queryTransformer(requestPayload)
+                .andThen(uriTransformer),
+            outbound -> outbound,
+            ErrorPayloadMapper.clientV2(this.connectionContext.getObjectMapper()));
+    }
+
     protected final <T> Mono<T> post(Object requestPayload, Class<T> responseType, Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer) {
         return doPost(requestPayload, responseType,
             queryTransformer(requestPayload)
@@ -17,18 +17,11 @@
 package org.cloudfoundry.reactor.client.v2;
 
 import org.cloudfoundry.client.v2.FilterParameter;
-import org.cloudfoundry.reactor.client.MethodNameComparator;
-import org.cloudfoundry.reactor.util.AnnotationUtils;
+import org.cloudfoundry.reactor.client.AnnotatedGetters;
 import org.springframework.web.util.UriComponentsBuilder;
-import reactor.core.Exceptions;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -36,6 +29,8 @@ import java.util.stream.Collectors;
  */
 final class FilterBuilder {
 
+    private static final AnnotatedGetters<FilterParameter> FILTER_PARAMETERS = new AnnotatedGetters<>(FilterParameter.class);
+
     private FilterBuilder() {
     }
 
@@ -46,22 +41,7 @@ final class FilterBuilder {
      * @param instance the instance to inspect and invoke
      */
     public static void augment(UriComponentsBuilder builder, Object instance) {
-        Arrays.stream(instance.getClass().getMethods())
-            .sorted(MethodNameComparator.INSTANCE)
-            .forEach(processMethod(builder, instance));
-    }
-
-    private static Optional<Object> getValue(Method method, Object instance) {
-        try {
-            return Optional.ofNullable(method.invoke(instance));
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw Exceptions.propagate(e);
-        }
-    }
-
-    private static Consumer<FilterParameter> processAnnotation(UriComponentsBuilder builder, Method method, Object instance) {
-        return filterParameter -> getValue(method, instance)
-            .ifPresent(processValue(builder, filterParameter));
+        FILTER_PARAMETERS.forEach(instance, (filterParameter, value) -> processValue(builder, filterParameter, value));
     }
 
     private static void processCollection(UriComponentsBuilder builder, FilterParameter filterParameter, Object value) {
@@ -79,19 +59,12 @@ final class FilterBuilder {
         }
     }
 
-    private static Consumer<Method> processMethod(UriComponentsBuilder builder, Object instance) {
-        return method -> AnnotationUtils.findAnnotation(method, FilterParameter.class)
-            .ifPresent(processAnnotation(builder, method, instance));
-    }
-
-    private static Consumer<Object> processValue(UriComponentsBuilder builder, FilterParameter filterParameter) {
-        return value -> {
-            if (value instanceof Collection) {
-                processCollection(builder, filterParameter, value);
-            } else {
-                processValue(builder, filterParameter.value(), filterParameter.operation(), value.toString().trim());
-            }
-        };
+    private static void processValue(UriComponentsBuilder builder, FilterParameter filterParameter, Object value) {
+        if (value instanceof Collection) {
+            processCollection(builder, filterParameter, value);
+        } else {
+            processValue(builder, filterParameter.value(), filterParameter.operation(), value.toString().trim());
+        }
     }
 
     private static void processValue(UriComponentsBuilder builder, String name, FilterParameter.Operation operation, String value) {
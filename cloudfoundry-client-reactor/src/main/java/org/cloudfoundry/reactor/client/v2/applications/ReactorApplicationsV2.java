@@ -16,6 +16,7 @@
 
 package org.cloudfoundry.reactor.client.v2.applications;
 
+import io.netty.buffer.ByteBuf;
 import org.cloudfoundry.client.v2.applications.ApplicationEnvironmentRequest;
 import org.cloudfoundry.client.v2.applications.ApplicationEnvironmentResponse;
 import org.cloudfoundry.client.v2.applications.ApplicationInstancesRequest;
@@ -42,6 +43,7 @@ import org.cloudfoundry.client.v2.applications.ListApplicationsRequest;
 import org.cloudfoundry.client.v2.applications.ListApplicationsResponse;
 import org.cloudfoundry.client.v2.applications.RemoveApplicationRouteRequest;
 import org.cloudfoundry.client.v2.applications.RemoveApplicationServiceBindingRequest;
+import org.cloudfoundry.client.v2.applications.Resource;
 import org.cloudfoundry.client.v2.applications.RestageApplicationRequest;
 import org.cloudfoundry.client.v2.applications.RestageApplicationResponse;
 import org.cloudfoundry.client.v2.applications.SummaryApplicationRequest;
@@ -64,6 +66,11 @@ import reactor.ipc.netty.http.client.HttpClientRequest;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
 import static io.netty.handler.codec.http.HttpHeaderValues.APPLICATION_JSON;
@@ -206,23 +213,51 @@ public final class ReactorApplicationsV2 extends AbstractClientV2Operations impl
         return put(request, UploadApplicationResponse.class, builder -> builder.pathSegment("v2", "apps", request.getApplicationId(), "bits"),
             outbound -> outbound
                 .then(r -> {
-                    if (Files.isDirectory(request.getApplication())) {
-                        return FileUtils.compress(request.getApplication())
-                            .then(application -> upload(application, r, request)
-                                .doOnTerminate((v, t) -> {
-                                    try {
-                                        Files.delete(application);
-                                    } catch (IOException e) {
-                                        throw Exceptions.propagate(e);
-                                    }
-                                }));
-                    } else {
+                    Set<String> matchedPaths = getMatchedPaths(request.getResources());
+
+                    if (!Files.isDirectory(request.getApplication()) && matchedPaths.isEmpty()) {
                         return upload(request.getApplication(), r, request);
                     }
+
+                    Predicate<String> filter = path -> !matchedPaths.contains(path);
+
+                    if (getConnectionContext().getStreamingUploads()) {
+                        return upload(compressStream(request.getApplication(), filter), r, request);
+                    }
+
+                    return FileUtils.compress(request.getApplication(), filter, getConnectionContext().getCompressionParallelism())
+                        .then(application -> upload(application, r, request)
+                            .doOnTerminate((v, t) -> {
+                                try {
+                                    Files.delete(application);
+                                } catch (IOException e) {
+                                    throw Exceptions.propagate(e);
+                                }
+                            }));
                 }))
             .checkpoint();
     }
 
+    private static Set<String> getMatchedPaths(List<Resource> resources) {
+        return resources.stream()
+            .map(Resource::getPath)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+    }
+
+    private Mono<Void> upload(Flux<ByteBuf> application, MultipartHttpClientRequest r, UploadApplicationRequest request) {
+        return r
+            .addPart(part -> part
+                .setContentDispositionFormData("resources")
+                .setHeader(CONTENT_TYPE, APPLICATION_JSON)
+                .send(request.getResources()))
+            .addPart(part -> part
+                .setContentDispositionFormData("application", "application.zip")
+                .setHeader(CONTENT_TYPE, APPLICATION_ZIP)
+                .sendStream(application))
+            .done();
+    }
+
     private Mono<Void> upload(Path application, MultipartHttpClientRequest r, UploadApplicationRequest request) {
         return r
             .addPart(part -> part
@@ -16,6 +16,7 @@
 
 package org.cloudfoundry.reactor.client.v2.events;
 
+import org.cloudfoundry.client.v2.events.EventResource;
 import org.cloudfoundry.client.v2.events.Events;
 import org.cloudfoundry.client.v2.events.GetEventRequest;
 import org.cloudfoundry.client.v2.events.GetEventResponse;
@@ -24,6 +25,7 @@ import org.cloudfoundry.client.v2.events.ListEventsResponse;
 import org.cloudfoundry.reactor.ConnectionContext;
 import org.cloudfoundry.reactor.TokenProvider;
 import org.cloudfoundry.reactor.client.v2.AbstractClientV2Operations;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -54,4 +56,10 @@ public final class ReactorEvents extends AbstractClientV2Operations implements E
             .checkpoint();
     }
 
+    @Override
+    public Flux<EventResource> listResources(ListEventsRequest request) {
+        return getResources(request, EventResource.class, builder -> builder.pathSegment("v2", "events"))
+            .checkpoint();
+    }
+
 }
@@ -16,6 +16,8 @@
 
 package org.cloudfoundry.reactor.client.v3.packages;
 
+import io.netty.buffer.ByteBuf;
+import org.cloudfoundry.client.DownloadUtils;
 import org.cloudfoundry.client.v3.packages.CopyPackageRequest;
 import org.cloudfoundry.client.v3.packages.CopyPackageResponse;
 import org.cloudfoundry.client.v3.packages.CreatePackageRequest;
@@ -41,6 +43,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -87,6 +90,20 @@ public final class ReactorPackages extends AbstractClientV3Operations implements
             .checkpoint();
     }
 
+    @Override
+    public Mono<Long> download(DownloadPackageRequest request, Path destination) {
+        return get(request, builder -> builder.pathSegment("v3", "packages", request.getPackageId(), "download"))
+            .then(response -> DownloadUtils.writeTo(response.receive().asByteArray(), destination))
+            .checkpoint();
+    }
+
+    @Override
+    public Mono<Long> download(DownloadPackageRequest request, WritableByteChannel destination) {
+        return get(request, builder -> builder.pathSegment("v3", "packages", request.getPackageId(), "download"))
+            .then(response -> DownloadUtils.writeTo(response.receive().asByteArray(), destination))
+            .checkpoint();
+    }
+
     @Override
     public Mono<GetPackageResponse> get(GetPackageRequest request) {
         return get(request, GetPackageResponse.class, builder -> builder.pathSegment("v3", "packages", request.getPackageId()))
@@ -111,7 +128,11 @@ public final class ReactorPackages extends AbstractClientV3Operations implements
             outbound -> outbound
                 .then(r -> {
                     if (Files.isDirectory(request.getBits())) {
-                        return FileUtils.compress(request.getBits())
+                        if (getConnectionContext().getStreamingUploads()) {
+                            return upload(compressStream(request.getBits(), path -> true), r);
+                        }
+
+                        return FileUtils.compress(request.getBits(), path -> true, getConnectionContext().getCompressionParallelism())
                             .then(bits -> upload(bits, r)
                                 .doOnTerminate((v, t) -> {
                                     try {
@@ -128,6 +149,15 @@ public final class ReactorPackages extends AbstractClientV3Operations implements
             .checkpoint();
     }
 
+    private Mono<Void> upload(Flux<ByteBuf> bits, MultipartHttpClientRequest r) {
+        return r
+            .addPart(part -> part
+                .setContentDispositionFormData("bits", "application.zip")
+                .setHeader(CONTENT_TYPE, APPLICATION_ZIP)
+                .sendStream(bits))
+            .done();
+    }
+
     private Mono<Void> upload(Path bits, MultipartHttpClientRequest r) {
         return r
             .addPart(part -> part
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+import org.cloudfoundry.doppler.CounterEvent;
+import org.cloudfoundry.doppler.Envelope;
+import org.cloudfoundry.doppler.EventType;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * The statistics for a single firehose or stream websocket connection that is reopened when it is closed.  A sharded firehose subscription has one instance per connection.
+ * <p>
+ * Envelopes that Loggregator reports as dropped are counted from its {@code TruncatingBuffer.DroppedMessages} counter events.  Envelopes missed while disconnected are estimated
+ * from the rate at which envelopes were received before the disconnect and the time taken to reconnect.  Both require counter events to be received, so subscriptions filtered
+ * by event type should include {@link EventType#COUNTER_EVENT}.
+ */
+public final class ConnectionStatistics {
+
+    static final String DROPPED_MESSAGES = "TruncatingBuffer.DroppedMessages";
+
+    static final String SLOW_CONSUMER = "doppler_proxy.slow_consumer";
+
+    private final AtomicLong disconnects = new AtomicLong();
+
+    private final AtomicLong droppedEnvelopes = new AtomicLong();
+
+    private final AtomicLong envelopes = new AtomicLong();
+
+    private final AtomicLong estimatedMissedEnvelopes = new AtomicLong();
+
+    private final int index;
+
+    private final AtomicLong lastReconnectLatency = new AtomicLong();
+
+    private final AtomicLong reconnects = new AtomicLong();
+
+    private final AtomicLong slowConsumerAlerts = new AtomicLong();
+
+    private final Consumer<Envelope> slowConsumerListener;
+
+    private long connectionEnvelopes;
+
+    private long connectionStart;
+
+    private long disconnectedAt;
+
+    private double rate;
+
+    ConnectionStatistics(int index, Consumer<Envelope> slowConsumerListener) {
+        this.index = index;
+        this.slowConsumerListener = slowConsumerListener;
+    }
+
+    /**
+     * Returns the number of times the connection has been closed or has failed
+     *
+     * @return the number of disconnects
+     */
+    public long getDisconnects() {
+        return this.disconnects.get();
+    }
+
+    /**
+     * Returns the number of envelopes that Loggregator has reported dropping for this connection
+     *
+     * @return the number of dropped envelopes
+     */
+    public long getDroppedEnvelopes() {
+        return this.droppedEnvelopes.get();
+    }
+
+    /**
+     * Returns the number of envelopes received on the connection
+     *
+     * @return the number of envelopes received
+     */
+    public long getEnvelopes() {
+        return this.envelopes.get();
+    }
+
+    /**
+     * Returns an estimate of the number of envelopes that were missed while the connection was being reopened
+     *
+     * @return the estimated number of missed envelopes
+     */
+    public long getEstimatedMissedEnvelopes() {
+        return this.estimatedMissedEnvelopes.get();
+    }
+
+    /**
+     * Returns the index of the connection within its subscription
+     *
+     * @return the index of the connection
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Returns the time between the most recent disconnect and the first envelope being received on the reopened connection
+     *
+     * @return the most recent reconnect latency
+     */
+    public Duration getLastReconnectLatency() {
+        return Duration.ofNanos(this.lastReconnectLatency.get());
+    }
+
+    /**
+     * Returns the number of times the connection has been reopened
+     *
+     * @return the number of reconnects
+     */
+    public long getReconnects() {
+        return this.reconnects.get();
+    }
+
+    /**
+     * Returns the number of slow consumer alerts that Loggregator has sent on the connection
+     *
+     * @return the number of slow consumer alerts
+     */
+    public long getSlowConsumerAlerts() {
+        return this.slowConsumerAlerts.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConnectionStatistics{index=%d, envelopes=%d, disconnects=%d, reconnects=%d, droppedEnvelopes=%d, estimatedMissedEnvelopes=%d, slowConsumerAlerts=%d}",
+            this.index, getEnvelopes(), getDisconnects(), getReconnects(), getDroppedEnvelopes(), getEstimatedMissedEnvelopes(), getSlowConsumerAlerts());
+    }
+
+    // The following methods are called from the signals of a single, serially resubscribed connection and so do not need to synchronize their non-atomic state
+
+    void onConnect() {
+        if (this.connectionStart == 0) {
+            this.connectionStart = System.nanoTime();
+        } else {
+            this.reconnects.incrementAndGet();
+        }
+    }
+
+    void onDisconnect() {
+        long now = System.nanoTime();
+
+        this.disconnects.incrementAndGet();
+        this.rate = this.connectionEnvelopes / (double) Math.max(1, now - this.connectionStart);
+        this.disconnectedAt = now;
+    }
+
+    void onEnvelope(Envelope envelope) {
+        if (this.disconnectedAt != 0) {
+            long now = System.nanoTime();
+            long latency = now - this.disconnectedAt;
+
+            this.lastReconnectLatency.set(latency);
+            this.estimatedMissedEnvelopes.addAndGet(Math.round(this.rate * latency));
+            this.connectionEnvelopes = 0;
+            this.connectionStart = now;
+            this.disconnectedAt = 0;
+        }
+
+        this.connectionEnvelopes++;
+        this.envelopes.incrementAndGet();
+
+        if (EventType.COUNTER_EVENT == envelope.getEventType()) {
+            onCounterEvent(envelope);
+        }
+    }
+
+    private void onCounterEvent(Envelope envelope) {
+        CounterEvent counterEvent = envelope.getCounterEvent();
+
+        if (counterEvent == null) {
+            return;
+        }
+
+        if (DROPPED_MESSAGES.equals(counterEvent.getName())) {
+            this.droppedEnvelopes.addAndGet(counterEvent.getDelta());
+        } else if (SLOW_CONSUMER.equals(counterEvent.getName())) {
+            this.slowConsumerAlerts.incrementAndGet();
+
+            if (this.slowConsumerListener != null) {
+                this.slowConsumerListener.accept(envelope);
+            }
+        }
+    }
+
+}
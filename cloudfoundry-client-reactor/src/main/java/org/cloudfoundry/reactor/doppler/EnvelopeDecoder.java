@@ -0,0 +1,601 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+import com.squareup.wire.WireEnum;
+import io.netty.buffer.ByteBuf;
+import org.cloudfoundry.doppler.ContainerMetric;
+import org.cloudfoundry.doppler.CounterEvent;
+import org.cloudfoundry.doppler.Envelope;
+import org.cloudfoundry.doppler.Error;
+import org.cloudfoundry.doppler.EventType;
+import org.cloudfoundry.doppler.HttpStartStop;
+import org.cloudfoundry.doppler.LogMessage;
+import org.cloudfoundry.doppler.MessageType;
+import org.cloudfoundry.doppler.Method;
+import org.cloudfoundry.doppler.PeerType;
+import org.cloudfoundry.doppler.ValueMetric;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Decodes dropsonde {@code Envelope}s from the protobuf wire format directly into {@link Envelope}s, without building the intermediate Wire object graph.
+ * <p>
+ * Short, frequently repeated strings such as origins, deployments, jobs and application ids are shared between envelopes rather than being allocated for each one.  Envelopes
+ * with an event type or enumerated value that this client does not know about are skipped rather than failing the stream they were received on.
+ */
+final class EnvelopeDecoder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("cloudfoundry-client.doppler");
+
+    private static final EventType[] EVENT_TYPES = lookupTable(org.cloudfoundry.dropsonde.events.Envelope.EventType.values(), EventType::from, EventType.class);
+
+    private static final MessageType[] MESSAGE_TYPES = lookupTable(org.cloudfoundry.dropsonde.events.LogMessage.MessageType.values(), MessageType::from, MessageType.class);
+
+    private static final Method[] METHODS = lookupTable(org.cloudfoundry.dropsonde.events.Method.values(), Method::from, Method.class);
+
+    private static final PeerType[] PEER_TYPES = lookupTable(org.cloudfoundry.dropsonde.events.PeerType.values(), PeerType::from, PeerType.class);
+
+    private static final int SHARED_STRING_MAXIMUM_LENGTH = 64;
+
+    private static final SharedString[] SHARED_STRINGS = new SharedString[1_024];
+
+    private static final int WIRE_TYPE_FIXED_32 = 5;
+
+    private static final int WIRE_TYPE_FIXED_64 = 1;
+
+    private static final int WIRE_TYPE_LENGTH_DELIMITED = 2;
+
+    private static final int WIRE_TYPE_VARINT = 0;
+
+    private EnvelopeDecoder() {
+    }
+
+    /**
+     * Decodes an {@link Envelope} from the readable bytes of a {@link ByteBuf}.  The reader index of the buffer is advanced past the envelope.
+     *
+     * @param buffer the buffer to decode
+     * @return the decoded envelope, or empty if the envelope contains an unknown event type or enumerated value
+     */
+    static Optional<Envelope> decode(ByteBuf buffer) {
+        try {
+            return Optional.of(envelope(buffer, buffer.writerIndex()));
+        } catch (UnknownValueException e) {
+            LOGGER.debug("Skipping envelope: {}", e.getMessage());
+            buffer.readerIndex(buffer.writerIndex());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns a {@link Predicate} that tests whether an encoded envelope has one of a collection of event types and origins.  Only the {@code origin} and {@code eventType} fields
+     * are read, so envelopes that do not match are never fully decoded.  The reader index of the buffer is left unchanged.
+     *
+     * @param eventTypes the event types to accept.  If empty, every event type is accepted.
+     * @param origins    the origins to accept.  If empty, every origin is accepted.
+     * @return a {@link Predicate} that accepts encoded envelopes that match
+     */
+    static Predicate<ByteBuf> filter(Set<EventType> eventTypes, Set<String> origins) {
+        if (eventTypes.isEmpty() && origins.isEmpty()) {
+            return buffer -> true;
+        }
+
+        Set<EventType> acceptedEventTypes = eventTypes.isEmpty() ? EnumSet.allOf(EventType.class) : EnumSet.copyOf(eventTypes);
+        return buffer -> matches(buffer, acceptedEventTypes, origins);
+    }
+
+    private static ContainerMetric containerMetric(ByteBuf buffer, int end) {
+        ContainerMetric.Builder builder = ContainerMetric.builder();
+
+        while (buffer.readerIndex() < end) {
+            int tag = readVarint32(buffer);
+
+            switch (tag >>> 3) {
+                case 1:
+                    builder.applicationId(readSharedString(buffer));
+                    break;
+                case 2:
+                    builder.instanceIndex(readVarint32(buffer));
+                    break;
+                case 3:
+                    builder.cpuPercentage(readDouble(buffer));
+                    break;
+                case 4:
+                    builder.memoryBytes(readVarint64(buffer));
+                    break;
+                case 5:
+                    builder.diskBytes(readVarint64(buffer));
+                    break;
+                case 6:
+                    builder.memoryBytesQuota(readVarint64(buffer));
+                    break;
+                case 7:
+                    builder.diskBytesQuota(readVarint64(buffer));
+                    break;
+                default:
+                    skip(buffer, tag);
+            }
+        }
+
+        return builder.build();
+    }
+
+    private static CounterEvent counterEvent(ByteBuf buffer, int end) {
+        CounterEvent.Builder builder = CounterEvent.builder();
+
+        while (buffer.readerIndex() < end) {
+            int tag = readVarint32(buffer);
+
+            switch (tag >>> 3) {
+                case 1:
+                    builder.name(readSharedString(buffer));
+                    break;
+                case 2:
+                    builder.delta(readVarint64(buffer));
+                    break;
+                case 3:
+                    builder.total(readVarint64(buffer));
+                    break;
+                default:
+                    skip(buffer, tag);
+            }
+        }
+
+        return builder.build();
+    }
+
+    private static Envelope envelope(ByteBuf buffer, int end) {
+        Envelope.Builder builder = Envelope.builder();
+        Map<String, String> tags = null;
+
+        while (buffer.readerIndex() < end) {
+            int tag = readVarint32(buffer);
+
+            switch (tag >>> 3) {
+                case 1:
+                    builder.origin(readSharedString(buffer));
+                    break;
+                case 2:
+                    builder.eventType(lookup(EVENT_TYPES, readVarint32(buffer), "event type"));
+                    break;
+                case 6:
+                    builder.timestamp(readVarint64(buffer));
+                    break;
+                case 7:
+                    builder.httpStartStop(httpStartStop(buffer, readEnd(buffer)));
+                    break;
+                case 8:
+                    builder.logMessage(logMessage(buffer, readEnd(buffer)));
+                    break;
+                case 9:
+                    builder.valueMetric(valueMetric(buffer, readEnd(buffer)));
+                    break;
+                case 10:
+                    builder.counterEvent(counterEvent(buffer, readEnd(buffer)));
+                    break;
+                case 11:
+                    builder.error(error(buffer, readEnd(buffer)));
+                    break;
+                case 12:
+                    builder.containerMetric(containerMetric(buffer, readEnd(buffer)));
+                    break;
+                case 13:
+                    builder.deployment(readSharedString(buffer));
+                    break;
+                case 14:
+                    builder.job(readSharedString(buffer));
+                    break;
+                case 15:
+                    builder.index(readSharedString(buffer));
+                    break;
+                case 16:
+                    builder.ip(readSharedString(buffer));
+                    break;
+                case 17:
+                    if (tags == null) {
+                        tags = new HashMap<>();
+                    }
+                    tag(buffer, readEnd(buffer), tags);
+                    break;
+                default:
+                    skip(buffer, tag);
+            }
+        }
+
+        if (tags != null) {
+            builder.tags(tags);
+        }
+
+        return builder.build();
+    }
+
+    private static Error error(ByteBuf buffer, int end) {
+        Error.Builder builder = Error.builder();
+
+        while (buffer.readerIndex() < end) {
+            int tag = readVarint32(buffer);
+
+            switch (tag >>> 3) {
+                case 1:
+                    builder.source(readSharedString(buffer));
+                    break;
+                case 2:
+                    builder.code(readVarint32(buffer));
+                    break;
+                case 3:
+                    builder.message(readString(buffer));
+                    break;
+                default:
+                    skip(buffer, tag);
+            }
+        }
+
+        return builder.build();
+    }
+
+    private static HttpStartStop httpStartStop(ByteBuf buffer, int end) {
+        HttpStartStop.Builder builder = HttpStartStop.builder();
+
+        while (buffer.readerIndex() < end) {
+            int tag = readVarint32(buffer);
+
+            switch (tag >>> 3) {
+                case 1:
+                    builder.startTimestamp(readVarint64(buffer));
+                    break;
+                case 2:
+                    builder.stopTimestamp(readVarint64(buffer));
+                    break;
+                case 3:
+                    builder.requestId(uuid(buffer, readEnd(buffer)));
+                    break;
+                case 4:
+                    builder.peerType(lookup(PEER_TYPES, readVarint32(buffer), "peer type"));
+                    break;
+                case 5:
+                    builder.method(lookup(METHODS, readVarint32(buffer), "method"));
+                    break;
+                case 6:
+                    builder.uri(readString(buffer));
+                    break;
+                case 7:
+                    builder.remoteAddress(readString(buffer));
+                    break;
+                case 8:
+                    builder.userAgent(readSharedString(buffer));
+                    break;
+                case 9:
+                    builder.statusCode(readVarint32(buffer));
+                    break;
+                case 10:
+                    builder.contentLength(readVarint64(buffer));
+                    break;
+                case 12:
+                    builder.applicationId(uuid(buffer, readEnd(buffer)));
+                    break;
+                case 13:
+                    builder.instanceIndex(readVarint32(buffer));
+                    break;
+                case 14:
+                    builder.instanceId(readSharedString(buffer));
+                    break;
+                case 15:
+                    builder.forwarded(readString(buffer));
+                    break;
+                default:
+                    skip(buffer, tag);
+            }
+        }
+
+        return builder.build();
+    }
+
+    private static LogMessage logMessage(ByteBuf buffer, int end) {
+        LogMessage.Builder builder = LogMessage.builder();
+
+        while (buffer.readerIndex() < end) {
+            int tag = readVarint32(buffer);
+
+            switch (tag >>> 3) {
+                case 1:
+                    builder.message(readString(buffer));
+                    break;
+                case 2:
+                    builder.messageType(lookup(MESSAGE_TYPES, readVarint32(buffer), "message type"));
+                    break;
+                case 3:
+                    builder.timestamp(readVarint64(buffer));
+                    break;
+                case 4:
+                    builder.applicationId(readSharedString(buffer));
+                    break;
+                case 5:
+                    builder.sourceType(readSharedString(buffer));
+                    break;
+                case 6:
+                    builder.sourceInstance(readSharedString(buffer));
+                    break;
+                default:
+                    skip(buffer, tag);
+            }
+        }
+
+        return builder.build();
+    }
+
+    private static <T> T lookup(T[] table, int value, String description) {
+        T candidate = value >= 0 && value < table.length ? table[value] : null;
+
+        if (candidate == null) {
+            throw new UnknownValueException(String.format("Unknown %s: %d", description, value));
+        }
+
+        return candidate;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <W extends WireEnum, T> T[] lookupTable(W[] values, Function<W, T> mapper, Class<T> type) {
+        T[] table = (T[]) Array.newInstance(type, Arrays.stream(values).mapToInt(WireEnum::getValue).max().orElse(0) + 1);
+
+        for (W value : values) {
+            table[value.getValue()] = mapper.apply(value);
+        }
+
+        return table;
+    }
+
+    private static boolean matches(ByteBuf buffer, Set<EventType> eventTypes, Set<String> origins) {
+        int start = buffer.readerIndex();
+        int end = buffer.writerIndex();
+        EventType eventType = null;
+        String origin = null;
+
+        try {
+            while (buffer.readerIndex() < end && (eventType == null || (origin == null && !origins.isEmpty()))) {
+                int tag = readVarint32(buffer);
+
+                switch (tag >>> 3) {
+                    case 1:
+                        origin = readSharedString(buffer);
+                        break;
+                    case 2:
+                        int value = readVarint32(buffer);
+                        eventType = value >= 0 && value < EVENT_TYPES.length ? EVENT_TYPES[value] : null;
+
+                        if (eventType == null || !eventTypes.contains(eventType)) {
+                            return false;
+                        }
+                        break;
+                    default:
+                        skip(buffer, tag);
+                }
+            }
+        } finally {
+            buffer.readerIndex(start);
+        }
+
+        return eventType != null && (origins.isEmpty() || origins.contains(origin));
+    }
+
+    private static double readDouble(ByteBuf buffer) {
+        return Double.longBitsToDouble(buffer.readLongLE());
+    }
+
+    private static int readEnd(ByteBuf buffer) {
+        int length = readVarint32(buffer);
+        return buffer.readerIndex() + length;
+    }
+
+    private static String readSharedString(ByteBuf buffer) {
+        int length = readVarint32(buffer);
+
+        if (length > SHARED_STRING_MAXIMUM_LENGTH) {
+            return readString(buffer, length);
+        }
+
+        int index = buffer.readerIndex();
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + buffer.getByte(index + i);
+        }
+
+        int slot = (hash ^ (hash >>> 16)) & (SHARED_STRINGS.length - 1);
+        SharedString candidate = SHARED_STRINGS[slot];
+
+        if (candidate != null && candidate.matches(buffer, index, length, hash)) {
+            buffer.skipBytes(length);
+            return candidate.value;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.readBytes(bytes);
+
+        SharedString sharedString = new SharedString(bytes, hash);
+        SHARED_STRINGS[slot] = sharedString;
+
+        return sharedString.value;
+    }
+
+    private static String readString(ByteBuf buffer) {
+        return readString(buffer, readVarint32(buffer));
+    }
+
+    private static String readString(ByteBuf buffer, int length) {
+        String value = buffer.toString(buffer.readerIndex(), length, StandardCharsets.UTF_8);
+        buffer.skipBytes(length);
+        return value;
+    }
+
+    private static int readVarint32(ByteBuf buffer) {
+        return (int) readVarint64(buffer);
+    }
+
+    private static long readVarint64(ByteBuf buffer) {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.readByte();
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static void skip(ByteBuf buffer, int tag) {
+        switch (tag & 0x07) {
+            case WIRE_TYPE_VARINT:
+                readVarint64(buffer);
+                break;
+            case WIRE_TYPE_FIXED_64:
+                buffer.skipBytes(8);
+                break;
+            case WIRE_TYPE_LENGTH_DELIMITED:
+                buffer.skipBytes(readVarint32(buffer));
+                break;
+            case WIRE_TYPE_FIXED_32:
+                buffer.skipBytes(4);
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unsupported wire type: %d", tag & 0x07));
+        }
+    }
+
+    private static void tag(ByteBuf buffer, int end, Map<String, String> tags) {
+        String key = null;
+        String value = null;
+
+        while (buffer.readerIndex() < end) {
+            int tag = readVarint32(buffer);
+
+            switch (tag >>> 3) {
+                case 1:
+                    key = readSharedString(buffer);
+                    break;
+                case 2:
+                    value = readSharedString(buffer);
+                    break;
+                default:
+                    skip(buffer, tag);
+            }
+        }
+
+        tags.put(key == null ? "" : key, value == null ? "" : value);
+    }
+
+    private static UUID uuid(ByteBuf buffer, int end) {
+        long high = 0;
+        long low = 0;
+
+        while (buffer.readerIndex() < end) {
+            int tag = readVarint32(buffer);
+
+            switch (tag >>> 3) {
+                case 1:
+                    low = readVarint64(buffer);
+                    break;
+                case 2:
+                    high = readVarint64(buffer);
+                    break;
+                default:
+                    skip(buffer, tag);
+            }
+        }
+
+        return new UUID(high, low);
+    }
+
+    private static ValueMetric valueMetric(ByteBuf buffer, int end) {
+        ValueMetric.Builder builder = ValueMetric.builder();
+
+        while (buffer.readerIndex() < end) {
+            int tag = readVarint32(buffer);
+
+            switch (tag >>> 3) {
+                case 1:
+                    builder.name(readSharedString(buffer));
+                    break;
+                case 2:
+                    builder.value(readDouble(buffer));
+                    break;
+                case 3:
+                    builder.unit(readSharedString(buffer));
+                    break;
+                default:
+                    skip(buffer, tag);
+            }
+        }
+
+        return builder.build();
+    }
+
+    private static final class SharedString {
+
+        private final byte[] bytes;
+
+        private final int hash;
+
+        private final String value;
+
+        private SharedString(byte[] bytes, int hash) {
+            this.bytes = bytes;
+            this.hash = hash;
+            this.value = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private boolean matches(ByteBuf buffer, int index, int length, int hash) {
+            if (this.hash != hash || this.bytes.length != length) {
+                return false;
+            }
+
+            for (int i = 0; i < length; i++) {
+                if (this.bytes[i] != buffer.getByte(index + i)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+    }
+
+    private static final class UnknownValueException extends RuntimeException {
+
+        private static final long serialVersionUID = -3346027556375012745L;
+
+        private UnknownValueException(String message) {
+            super(message, null, false, false);
+        }
+
+    }
+
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+import org.cloudfoundry.doppler.Envelope;
+import org.cloudfoundry.doppler.EventType;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, preallocated buffer between a source of envelopes and a subscriber that may be slower than it.  The source is requested without bound and envelopes that do not fit
+ * are dropped according to an {@link OverflowStrategy}, so memory use does not depend on the speed of the subscriber.
+ * <p>
+ * The source (typically a Netty event loop) is the only producer.  It hands envelopes to the subscriber through a lock-free ring, with the head claimed by compare-and-set because
+ * both the subscriber and, for {@link OverflowStrategy#DROP_OLDEST}, the producer remove from it.
+ */
+final class EnvelopeRingBuffer implements Subscriber<Envelope>, Subscription {
+
+    private final Subscriber<? super Envelope> actual;
+
+    private final AtomicReferenceArray<Envelope> buffer;
+
+    private final int capacity;
+
+    private final AtomicLongArray dropped;
+
+    private final AtomicLong head = new AtomicLong();
+
+    private final int mask;
+
+    private final AtomicLong requested = new AtomicLong();
+
+    private final long[] sampleCounters = new long[EventType.values().length];
+
+    private final OverflowStrategy strategy;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile boolean cancelled;
+
+    private volatile boolean done;
+
+    private Throwable error;
+
+    private Subscription upstream;
+
+    EnvelopeRingBuffer(Subscriber<? super Envelope> actual, int capacity, OverflowStrategy strategy, AtomicLongArray dropped) {
+        this.actual = actual;
+        this.capacity = Math.max(2, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+        this.buffer = new AtomicReferenceArray<>(this.capacity);
+        this.dropped = dropped;
+        this.mask = this.capacity - 1;
+        this.strategy = strategy;
+    }
+
+    @Override
+    public void cancel() {
+        if (this.cancelled) {
+            return;
+        }
+
+        this.cancelled = true;
+        this.upstream.cancel();
+
+        if (this.wip.getAndIncrement() == 0) {
+            clear();
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        this.done = true;
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        this.error = t;
+        this.done = true;
+        drain();
+    }
+
+    @Override
+    public void onNext(Envelope envelope) {
+        if (offer(envelope)) {
+            drain();
+        }
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        this.upstream = s;
+        this.actual.onSubscribe(this);
+        s.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            cancel();
+            this.actual.onError(new IllegalArgumentException(String.format("Request must be positive: %d", n)));
+            return;
+        }
+
+        long current;
+        do {
+            current = this.requested.get();
+        } while (current != Long.MAX_VALUE && !this.requested.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+
+        drain();
+    }
+
+    private void clear() {
+        while (poll() != null) {
+            // discard
+        }
+    }
+
+    private void drain() {
+        if (this.wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+
+        for (; ; ) {
+            long r = this.requested.get();
+            long e = 0;
+
+            while (e != r) {
+                if (this.cancelled) {
+                    clear();
+                    return;
+                }
+
+                boolean d = this.done;
+                Envelope envelope = poll();
+
+                if (d && envelope == null) {
+                    terminate();
+                    return;
+                }
+
+                if (envelope == null) {
+                    break;
+                }
+
+                this.actual.onNext(envelope);
+                e++;
+            }
+
+            if (e == r) {
+                if (this.cancelled) {
+                    clear();
+                    return;
+                }
+
+                if (this.done && isEmpty()) {
+                    terminate();
+                    return;
+                }
+            }
+
+            if (e != 0 && r != Long.MAX_VALUE) {
+                this.requested.addAndGet(-e);
+            }
+
+            missed = this.wip.addAndGet(-missed);
+            if (missed == 0) {
+                break;
+            }
+        }
+    }
+
+    private void drop(Envelope envelope) {
+        this.dropped.incrementAndGet(envelope.getEventType().ordinal());
+    }
+
+    private boolean isEmpty() {
+        return this.head.get() == this.tail.get();
+    }
+
+    private boolean offer(Envelope envelope) {
+        long t = this.tail.get();
+        long fill = t - this.head.get();
+
+        if (fill >= this.capacity) {
+            if (OverflowStrategy.DROP_OLDEST != this.strategy) {
+                drop(envelope);
+                return false;
+            }
+
+            Envelope oldest = poll();
+            if (oldest != null) {
+                drop(oldest);
+            }
+        } else if (OverflowStrategy.SAMPLE == this.strategy && fill > this.capacity >>> 1) {
+            int shift = Integer.numberOfLeadingZeros((int) (this.capacity - fill)) - Integer.numberOfLeadingZeros(this.capacity) - 1;
+
+            if ((this.sampleCounters[envelope.getEventType().ordinal()]++ & ((1L << shift) - 1)) != 0) {
+                drop(envelope);
+                return false;
+            }
+        }
+
+        this.buffer.lazySet((int) t & this.mask, envelope);
+        this.tail.lazySet(t + 1);
+        return true;
+    }
+
+    private Envelope poll() {
+        for (; ; ) {
+            long h = this.head.get();
+
+            if (h == this.tail.get()) {
+                return null;
+            }
+
+            Envelope envelope = this.buffer.get((int) h & this.mask);
+
+            if (this.head.compareAndSet(h, h + 1)) {
+                return envelope;
+            }
+        }
+    }
+
+    private void terminate() {
+        Throwable t = this.error;
+
+        if (t != null) {
+            this.actual.onError(t);
+        } else {
+            this.actual.onComplete();
+        }
+    }
+
+}
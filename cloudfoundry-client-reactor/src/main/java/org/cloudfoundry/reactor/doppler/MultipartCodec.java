@@ -16,43 +16,27 @@
 
 package org.cloudfoundry.reactor.doppler;
 
-import io.netty.buffer.Unpooled;
-import io.netty.handler.codec.DelimiterBasedFrameDecoder;
+import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import reactor.core.publisher.Flux;
 import reactor.ipc.netty.http.client.HttpClientResponse;
 
-import java.io.InputStream;
-import java.nio.charset.Charset;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 final class MultipartCodec {
 
-    private static final Pattern BOUNDARY_PATTERN = Pattern.compile("multipart/.+; boundary=(.*)");
+    static final int DEFAULT_MAXIMUM_PART_SIZE = 16 * 1024 * 1024;
 
-    private static final int MAX_PAYLOAD_SIZE = 1024 * 1024;
+    private static final Pattern BOUNDARY_PATTERN = Pattern.compile("multipart/.+; boundary=(.*)");
 
     private MultipartCodec() {
     }
 
-    static Flux<InputStream> decode(HttpClientResponse response) {
+    static Flux<ByteBuf> decode(HttpClientResponse response, int maximumPartSize) {
         return response
-            .addHandler(createDecoder(response))
-            .receive()
-            .asInputStream()
-            .skip(1);
-    }
-
-    private static DelimiterBasedFrameDecoder createDecoder(HttpClientResponse response) {
-        String boundary = extractMultipartBoundary(response);
-
-        return new DelimiterBasedFrameDecoder(MAX_PAYLOAD_SIZE,
-            Unpooled.copiedBuffer(String.format("--%s\r\n\r\n", boundary), Charset.defaultCharset()),
-            Unpooled.copiedBuffer(String.format("\r\n--%s\r\n\r\n", boundary), Charset.defaultCharset()),
-            Unpooled.copiedBuffer(String.format("\r\n--%s--", boundary), Charset.defaultCharset()),
-            Unpooled.copiedBuffer(String.format("\r\n--%s--\r\n", boundary), Charset.defaultCharset())
-        );
+            .addHandler(new MultipartDecoder(extractMultipartBoundary(response), maximumPartSize))
+            .receive();
     }
 
     private static String extractMultipartBoundary(HttpClientResponse response) {
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.TooLongFrameException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An incremental decoder of {@code multipart/*} payloads that emits the body of each part as a slice of the received buffers.
+ * <p>
+ * Received buffers are accumulated into a composite buffer rather than copied, and are searched in place for the boundary with a Boyer-Moore-Horspool search.  Searches resume
+ * where the previous one stopped when more data arrives, so each byte is examined a bounded number of times regardless of how the payload is split.  Part headers, the preamble
+ * and the epilogue are discarded.
+ */
+final class MultipartDecoder extends ByteToMessageDecoder {
+
+    private static final Delimiter HEADERS_DELIMITER = new Delimiter("\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+
+    private final Delimiter delimiter;
+
+    private final Delimiter firstDelimiter;
+
+    private final int maximumPartSize;
+
+    private int searchOffset;
+
+    private State state = State.PREAMBLE;
+
+    MultipartDecoder(String boundary, int maximumPartSize) {
+        byte[] delimiter = String.format("\r\n--%s", boundary).getBytes(StandardCharsets.US_ASCII);
+
+        this.delimiter = new Delimiter(delimiter);
+        this.firstDelimiter = new Delimiter(Arrays.copyOfRange(delimiter, 2, delimiter.length));
+        this.maximumPartSize = maximumPartSize;
+        setCumulator(COMPOSITE_CUMULATOR);
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        for (; ; ) {
+            switch (this.state) {
+                case PREAMBLE:
+                    if (!skipPast(in, this.firstDelimiter)) {
+                        return;
+                    }
+
+                    this.state = State.DELIMITER;
+                    break;
+                case DELIMITER:
+                    if (in.readableBytes() < 2) {
+                        return;
+                    }
+
+                    this.state = in.getByte(in.readerIndex()) == '-' && in.getByte(in.readerIndex() + 1) == '-' ? State.EPILOGUE : State.HEADERS;
+                    break;
+                case HEADERS:
+                    if (!skipPast(in, HEADERS_DELIMITER)) {
+                        return;
+                    }
+
+                    this.state = State.BODY;
+                    break;
+                case BODY:
+                    int index = find(in, this.delimiter);
+                    if (index < 0) {
+                        return;
+                    }
+
+                    out.add(in.readRetainedSlice(index - in.readerIndex()));
+                    in.skipBytes(this.delimiter.length());
+                    this.state = State.DELIMITER;
+                    break;
+                case EPILOGUE:
+                    in.skipBytes(in.readableBytes());
+                    return;
+                default:
+                    throw new IllegalStateException(String.format("Unknown state %s", this.state));
+            }
+        }
+    }
+
+    private int find(ByteBuf in, Delimiter delimiter) {
+        int index = delimiter.indexOf(in, in.readerIndex() + this.searchOffset, in.writerIndex());
+        int length = (index < 0 ? in.writerIndex() - delimiter.length() : index) - in.readerIndex();
+
+        if (length > this.maximumPartSize) {
+            this.state = State.EPILOGUE;
+            throw new TooLongFrameException(String.format("Multipart part exceeds %d bytes", this.maximumPartSize));
+        }
+
+        this.searchOffset = index < 0 ? Math.max(0, in.readableBytes() - delimiter.length() + 1) : 0;
+        return index;
+    }
+
+    private boolean skipPast(ByteBuf in, Delimiter delimiter) {
+        int index = find(in, delimiter);
+        if (index < 0) {
+            return false;
+        }
+
+        in.readerIndex(index + delimiter.length());
+        return true;
+    }
+
+    private enum State {
+
+        BODY,
+
+        DELIMITER,
+
+        EPILOGUE,
+
+        HEADERS,
+
+        PREAMBLE
+
+    }
+
+    private static final class Delimiter {
+
+        private final byte[] pattern;
+
+        private final int[] skip = new int[256];
+
+        private Delimiter(byte[] pattern) {
+            this.pattern = pattern;
+
+            int last = pattern.length - 1;
+            Arrays.fill(this.skip, pattern.length);
+            for (int i = 0; i < last; i++) {
+                this.skip[pattern[i] & 0xFF] = last - i;
+            }
+        }
+
+        private int indexOf(ByteBuf buffer, int from, int to) {
+            int last = this.pattern.length - 1;
+
+            for (int i = from; i + last < to; i += this.skip[buffer.getByte(i + last) & 0xFF]) {
+                int j = last;
+
+                while (buffer.getByte(i + j) == this.pattern[j]) {
+                    if (j == 0) {
+                        return i;
+                    }
+
+                    j--;
+                }
+            }
+
+            return -1;
+        }
+
+        private int length() {
+            return this.pattern.length;
+        }
+
+    }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+/**
+ * What to do with envelopes when the firehose or stream buffer of a slow consumer is full
+ */
+public enum OverflowStrategy {
+
+    /**
+     * Drop the envelope that has just been received
+     */
+    DROP_NEWEST,
+
+    /**
+     * Drop the oldest buffered envelope to make room for the envelope that has just been received
+     */
+    DROP_OLDEST,
+
+    /**
+     * Once the buffer is more than half full, admit a decreasing fraction of each event type (one in two, then one in four, and so on as the buffer fills) so that the mix of event
+     * types is preserved.  Envelopes received when the buffer is full are dropped.
+     */
+    SAMPLE
+
+}
@@ -16,60 +16,210 @@
 
 package org.cloudfoundry.reactor.doppler;
 
+import org.cloudfoundry.AbstractCloudFoundryException;
 import org.cloudfoundry.doppler.ContainerMetricsRequest;
 import org.cloudfoundry.doppler.Envelope;
+import org.cloudfoundry.doppler.EventType;
 import org.cloudfoundry.doppler.FirehoseRequest;
 import org.cloudfoundry.doppler.RecentLogsRequest;
 import org.cloudfoundry.doppler.StreamRequest;
 import org.cloudfoundry.reactor.ConnectionContext;
 import org.cloudfoundry.reactor.TokenProvider;
+import org.cloudfoundry.util.DelayUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 final class ReactorDopplerEndpoints extends AbstractDopplerOperations {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger("cloudfoundry-client.doppler");
+
+    private static final int RECONNECT_MAXIMUM_ATTEMPTS = 10;
+
+    private static final Duration RECONNECT_MAXIMUM_DELAY = Duration.ofSeconds(30);
+
+    private static final Duration RECONNECT_MINIMUM_DELAY = Duration.ofMillis(500);
+
+    private final Set<ActiveConnections> activeConnections = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLongArray bufferOverflows = new AtomicLongArray(EventType.values().length);
+
+    private final int maximumPartSize;
+
     ReactorDopplerEndpoints(ConnectionContext connectionContext, Mono<String> root, TokenProvider tokenProvider) {
+        this(connectionContext, root, tokenProvider, MultipartCodec.DEFAULT_MAXIMUM_PART_SIZE);
+    }
+
+    ReactorDopplerEndpoints(ConnectionContext connectionContext, Mono<String> root, TokenProvider tokenProvider, int maximumPartSize) {
         super(connectionContext, root, tokenProvider);
+        this.maximumPartSize = maximumPartSize;
+    }
+
+    Flux<Envelope> buffer(Flux<Envelope> envelopes, Integer capacity, OverflowStrategy strategy) {
+        if (capacity == null) {
+            return envelopes;
+        }
+
+        return Flux.from(subscriber -> envelopes.subscribe(new EnvelopeRingBuffer(subscriber, capacity, strategy, this.bufferOverflows)));
     }
 
     Flux<Envelope> containerMetrics(ContainerMetricsRequest request) {
         return get(builder -> builder.pathSegment("apps", request.getApplicationId(), "containermetrics"))
-            .flatMapMany(MultipartCodec::decode)
-            .map(ReactorDopplerEndpoints::toEnvelope)
+            .flatMapMany(response -> MultipartCodec.decode(response, this.maximumPartSize)
+                .<Envelope>handle((buffer, sink) -> EnvelopeDecoder.decode(buffer).ifPresent(sink::next)))
             .checkpoint();
     }
 
     Flux<Envelope> firehose(FirehoseRequest request) {
+        return firehose(request, () -> {
+        });
+    }
+
+    Flux<Envelope> firehose(FirehoseRequest request, Runnable onConnect) {
         return ws(builder -> builder.pathSegment("firehose", request.getSubscriptionId()))
-            .flatMapMany(response -> response.receiveWebsocket().aggregateFrames().receive().asInputStream())
-            .map(ReactorDopplerEndpoints::toEnvelope)
+            .doOnNext(response -> onConnect.run())
+            .flatMapMany(response -> response.receiveWebsocket().aggregateFrames().receive()
+                .filter(EnvelopeDecoder.filter(request.getEventTypes(), request.getOrigins()))
+                .<Envelope>handle((buffer, sink) -> EnvelopeDecoder.decode(buffer).ifPresent(sink::next)))
             .checkpoint();
     }
 
+    Flux<Envelope> firehose(FirehoseRequest request, int connections, boolean reconnect, Consumer<Envelope> slowConsumerListener) {
+        if (connections < 2 && !reconnect) {
+            return firehose(request);
+        }
+
+        return reconnecting("firehose/" + request.getSubscriptionId(), connections, onConnect -> firehose(request, onConnect), slowConsumerListener);
+    }
+
+    long getBufferOverflows(EventType eventType) {
+        return this.bufferOverflows.get(eventType.ordinal());
+    }
+
+    List<ConnectionStatistics> getFirehoseStatistics(String subscriptionId) {
+        return getStatistics("firehose/" + subscriptionId);
+    }
+
+    List<ConnectionStatistics> getStreamStatistics(String applicationId) {
+        return getStatistics("stream/" + applicationId);
+    }
+
     Flux<Envelope> recentLogs(RecentLogsRequest request) {
         return get(builder -> builder.pathSegment("apps", request.getApplicationId(), "recentlogs"))
-            .flatMapMany(MultipartCodec::decode)
-            .map(ReactorDopplerEndpoints::toEnvelope)
+            .flatMapMany(response -> MultipartCodec.decode(response, this.maximumPartSize)
+                .filter(EnvelopeDecoder.filter(request.getEventTypes(), Collections.emptySet()))
+                .<Envelope>handle((buffer, sink) -> EnvelopeDecoder.decode(buffer).ifPresent(sink::next)))
             .checkpoint();
     }
 
+    /**
+     * Opens a connection and reopens it when it is closed or fails with a transient error: an I/O error, a timeout or a {@code 5xx} response.  Any other error is passed through.
+     * After {@value #RECONNECT_MAXIMUM_ATTEMPTS} consecutive attempts that do not receive an envelope, the subscription completes or fails with the last error.
+     *
+     * @param connection a function that opens a connection, calling the {@link Runnable} it is passed once the websocket upgrade succeeds
+     * @param statistics the statistics for the connection
+     * @return the envelopes received on the connection and every reopened connection
+     */
+    static Flux<Envelope> reconnect(Function<Runnable, Flux<Envelope>> connection, ConnectionStatistics statistics) {
+        AtomicInteger attempts = new AtomicInteger();
+
+        return Flux.defer(() -> connection.apply(statistics::onConnect))
+            .doOnNext(envelope -> {
+                attempts.set(0);
+                statistics.onEnvelope(envelope);
+            })
+            .doOnComplete(statistics::onDisconnect)
+            .doOnError(t -> {
+                LOGGER.debug("Connection {} failed", statistics.getIndex(), t);
+                statistics.onDisconnect();
+            })
+            .repeatWhen(completions -> completions
+                .takeWhile(completion -> attempts.get() < RECONNECT_MAXIMUM_ATTEMPTS)
+                .as(DelayUtils.exponentialBackOffWithJitter(RECONNECT_MINIMUM_DELAY, RECONNECT_MAXIMUM_DELAY, attempts)))
+            .retryWhen(errors -> errors
+                .concatMap(t -> isTransient(t) && attempts.get() < RECONNECT_MAXIMUM_ATTEMPTS ? Mono.just(t) : Mono.<Throwable>error(t))
+                .as(DelayUtils.exponentialBackOffWithJitter(RECONNECT_MINIMUM_DELAY, RECONNECT_MAXIMUM_DELAY, attempts)));
+    }
+
+    Flux<Envelope> stream(StreamRequest request, boolean reconnect, Consumer<Envelope> slowConsumerListener) {
+        if (!reconnect) {
+            return stream(request);
+        }
+
+        return reconnecting("stream/" + request.getApplicationId(), 1, onConnect -> stream(request, onConnect), slowConsumerListener);
+    }
+
     Flux<Envelope> stream(StreamRequest request) {
+        return stream(request, () -> {
+        });
+    }
+
+    Flux<Envelope> stream(StreamRequest request, Runnable onConnect) {
         return ws(builder -> builder.pathSegment("apps", request.getApplicationId(), "stream"))
-            .flatMapMany(response -> response.receiveWebsocket().aggregateFrames().receive().asInputStream())
-            .map(ReactorDopplerEndpoints::toEnvelope)
+            .doOnNext(response -> onConnect.run())
+            .flatMapMany(response -> response.receiveWebsocket().aggregateFrames().receive()
+                .filter(EnvelopeDecoder.filter(request.getEventTypes(), request.getOrigins()))
+                .<Envelope>handle((buffer, sink) -> EnvelopeDecoder.decode(buffer).ifPresent(sink::next)))
             .checkpoint();
     }
 
-    private static Envelope toEnvelope(InputStream content) {
-        try (InputStream in = content) {
-            return Envelope.from(org.cloudfoundry.dropsonde.events.Envelope.ADAPTER.decode(in));
-        } catch (IOException e) {
-            throw Exceptions.propagate(e);
+    private static boolean isTransient(Throwable t) {
+        Throwable cause = Exceptions.unwrap(t);
+
+        return cause instanceof IOException
+            || cause instanceof TimeoutException
+            || (cause instanceof AbstractCloudFoundryException && ((AbstractCloudFoundryException) cause).getStatusCode() >= 500);
+    }
+
+    private List<ConnectionStatistics> getStatistics(String key) {
+        return this.activeConnections.stream()
+            .filter(active -> active.key.equals(key))
+            .flatMap(active -> active.statistics.stream())
+            .collect(Collectors.toList());
+    }
+
+    private Flux<Envelope> reconnecting(String key, int connections, Function<Runnable, Flux<Envelope>> connection, Consumer<Envelope> slowConsumerListener) {
+        return Flux.defer(() -> {
+            ActiveConnections active = new ActiveConnections(key, IntStream.range(0, Math.max(1, connections))
+                .mapToObj(index -> new ConnectionStatistics(index, slowConsumerListener))
+                .collect(Collectors.toList()));
+
+            this.activeConnections.add(active);
+
+            return Flux.merge(active.statistics.stream()
+                .map(s -> reconnect(connection, s))
+                .collect(Collectors.toList()))
+                .doFinally(signalType -> this.activeConnections.remove(active));
+        });
+    }
+
+    private static final class ActiveConnections {
+
+        private final String key;
+
+        private final List<ConnectionStatistics> statistics;
+
+        private ActiveConnections(String key, List<ConnectionStatistics> statistics) {
+            this.key = key;
+            this.statistics = statistics;
         }
+
     }
 
 }
@@ -16,9 +16,11 @@
 
 package org.cloudfoundry.reactor.doppler;
 
+import org.cloudfoundry.Nullable;
 import org.cloudfoundry.doppler.ContainerMetricsRequest;
 import org.cloudfoundry.doppler.DopplerClient;
 import org.cloudfoundry.doppler.Envelope;
+import org.cloudfoundry.doppler.EventType;
 import org.cloudfoundry.doppler.FirehoseRequest;
 import org.cloudfoundry.doppler.RecentLogsRequest;
 import org.cloudfoundry.doppler.StreamRequest;
@@ -28,6 +30,9 @@ import org.immutables.value.Value;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 /**
  * The Reactor-based implementation of {@link DopplerClient}
  */
@@ -41,7 +46,38 @@ abstract class _ReactorDopplerClient implements DopplerClient {
 
     @Override
     public Flux<Envelope> firehose(FirehoseRequest request) {
-        return getDopplerEndpoints().firehose(request);
+        return getDopplerEndpoints().firehose(request, getFirehoseConnections(), getReconnect(), getSlowConsumerListener())
+            .transform(this::buffer);
+    }
+
+    /**
+     * Returns the number of envelopes of an event type that have been dropped because a firehose or stream buffer was full
+     *
+     * @param eventType the event type
+     * @return the number of envelopes of the event type that have been dropped
+     */
+    public long getBufferOverflows(EventType eventType) {
+        return getDopplerEndpoints().getBufferOverflows(eventType);
+    }
+
+    /**
+     * Returns the statistics for each connection of every active sharded or reconnecting firehose subscription with a subscription id
+     *
+     * @param subscriptionId the subscription id of the firehose subscriptions
+     * @return the statistics for each connection, or an empty list if there is no active subscription with the subscription id
+     */
+    public List<ConnectionStatistics> getFirehoseStatistics(String subscriptionId) {
+        return getDopplerEndpoints().getFirehoseStatistics(subscriptionId);
+    }
+
+    /**
+     * Returns the statistics for the connection of every active reconnecting stream of an application
+     *
+     * @param applicationId the id of the application
+     * @return the statistics for each connection, or an empty list if there is no active reconnecting stream for the application
+     */
+    public List<ConnectionStatistics> getStreamStatistics(String applicationId) {
+        return getDopplerEndpoints().getStreamStatistics(applicationId);
     }
 
     @Override
@@ -51,9 +87,17 @@ abstract class _ReactorDopplerClient implements DopplerClient {
 
     @Override
     public Flux<Envelope> stream(StreamRequest request) {
-        return getDopplerEndpoints().stream(request);
+        return getDopplerEndpoints().stream(request, getReconnect(), getSlowConsumerListener())
+            .transform(this::buffer);
     }
 
+    /**
+     * The number of envelopes to buffer for each firehose and stream subscription.  If set, envelopes are received as quickly as they arrive and those that do not fit in the
+     * buffer are dropped according to the {@link #getOverflowStrategy() overflow strategy}, instead of back pressure being applied to the connection.
+     */
+    @Nullable
+    abstract Integer getBufferCapacity();
+
     /**
      * The connection context
      */
@@ -61,7 +105,44 @@ abstract class _ReactorDopplerClient implements DopplerClient {
 
     @Value.Derived
     ReactorDopplerEndpoints getDopplerEndpoints() {
-        return new ReactorDopplerEndpoints(getConnectionContext(), getRoot(), getTokenProvider());
+        return new ReactorDopplerEndpoints(getConnectionContext(), getRoot(), getTokenProvider(), getMaximumPartSize());
+    }
+
+    /**
+     * The number of websocket connections to open for each firehose subscription.  Loggregator balances envelopes across every connection with the same subscription id, so
+     * additional connections spread receiving and decoding across more event loop threads.  When more than one connection is used, connections that are closed or fail are
+     * reopened as if {@link #getReconnect()} were {@code true}.  Defaults to {@code 1}.
+     */
+    @Value.Default
+    Integer getFirehoseConnections() {
+        return 1;
+    }
+
+    /**
+     * The maximum size, in bytes, of a part of a container metrics or recent logs response.  Parts are decoded as they arrive, so this is only a safeguard against malformed
+     * responses, which fail rather than being buffered without bound.  Defaults to 16 MiB.
+     */
+    @Value.Default
+    Integer getMaximumPartSize() {
+        return MultipartCodec.DEFAULT_MAXIMUM_PART_SIZE;
+    }
+
+    /**
+     * What to do with envelopes when a firehose or stream buffer is full.  Defaults to {@link OverflowStrategy#DROP_OLDEST}.
+     */
+    @Value.Default
+    OverflowStrategy getOverflowStrategy() {
+        return OverflowStrategy.DROP_OLDEST;
+    }
+
+    /**
+     * Whether firehose and stream connections that are closed or fail are reopened, with a jittered exponential backoff, instead of completing or failing the subscription.  Only
+     * I/O errors, timeouts and {@code 5xx} responses are retried, and a connection is given up after ten consecutive attempts that do not receive an envelope.  Defaults to
+     * {@code false}.
+     */
+    @Value.Default
+    Boolean getReconnect() {
+        return false;
     }
 
     @Value.Default
@@ -69,10 +150,20 @@ abstract class _ReactorDopplerClient implements DopplerClient {
         return getConnectionContext().getRoot("doppler_logging_endpoint");
     }
 
+    /**
+     * A listener notified of the slow consumer alerts that Loggregator sends to reconnecting firehose and stream subscriptions
+     */
+    @Nullable
+    abstract Consumer<Envelope> getSlowConsumerListener();
+
     /**
      * The token provider
      */
     abstract TokenProvider getTokenProvider();
 
+    private Flux<Envelope> buffer(Flux<Envelope> envelopes) {
+        return getDopplerEndpoints().buffer(envelopes, getBufferCapacity(), getOverflowStrategy());
+    }
+
 
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.instrumentation;
+
+import org.cloudfoundry.reactor.HttpExchange;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The statistics of the HTTP exchanges made with a single method and endpoint.  Durations are recorded in nanoseconds.
+ */
+public final class EndpointStatistics {
+
+    private static final int STATUS_CLASSES = 6;
+
+    private final LongAdder bytesIn = new LongAdder();
+
+    private final LongAdder bytesOut = new LongAdder();
+
+    private final Histogram latency = new Histogram();
+
+    private final LongAdder retries = new LongAdder();
+
+    private final AtomicLongArray statuses = new AtomicLongArray(STATUS_CLASSES);
+
+    private final Histogram timeToFirstByte = new Histogram();
+
+    private final Histogram tokenWait = new Histogram();
+
+    EndpointStatistics() {
+    }
+
+    /**
+     * The total number of bytes received in response bodies
+     */
+    public long getBytesIn() {
+        return this.bytesIn.sum();
+    }
+
+    /**
+     * The total number of bytes sent in request bodies
+     */
+    public long getBytesOut() {
+        return this.bytesOut.sum();
+    }
+
+    /**
+     * The latency of the exchanges
+     */
+    public Histogram getLatency() {
+        return this.latency;
+    }
+
+    /**
+     * The total number of requests retried after their token was invalidated
+     */
+    public long getRetries() {
+        return this.retries.sum();
+    }
+
+    /**
+     * The number of exchanges that received a response of a given class
+     *
+     * @param statusClass the first digit of the status code (e.g. {@code 5} for {@code 5xx}), or {@code 0} for exchanges that received no response
+     * @return the number of exchanges
+     */
+    public long getStatusCount(int statusClass) {
+        if (statusClass < 0 || statusClass >= STATUS_CLASSES) {
+            throw new IllegalArgumentException(String.format("Status class must be between 0 and %d: %d", STATUS_CLASSES - 1, statusClass));
+        }
+
+        return this.statuses.get(statusClass);
+    }
+
+    /**
+     * The time to the first byte of the responses received
+     */
+    public Histogram getTimeToFirstByte() {
+        return this.timeToFirstByte;
+    }
+
+    /**
+     * The time spent waiting for tokens
+     */
+    public Histogram getTokenWait() {
+        return this.tokenWait;
+    }
+
+    void record(HttpExchange exchange) {
+        if (exchange.getBytesIn() != null) {
+            this.bytesIn.add(exchange.getBytesIn());
+        }
+
+        if (exchange.getBytesOut() != null) {
+            this.bytesOut.add(exchange.getBytesOut());
+        }
+
+        if (exchange.getTimeToFirstByte() != null) {
+            this.timeToFirstByte.record(exchange.getTimeToFirstByte().toNanos());
+        }
+
+        this.latency.record(exchange.getLatency().toNanos());
+        this.retries.add(exchange.getRetries());
+        this.statuses.incrementAndGet(getStatusClass(exchange.getStatus()));
+        this.tokenWait.record(exchange.getTokenWait().toNanos());
+    }
+
+    private static int getStatusClass(Integer status) {
+        if (status == null) {
+            return 0;
+        }
+
+        int statusClass = status / 100;
+        return statusClass > 0 && statusClass < STATUS_CLASSES ? statusClass : 0;
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values.  Values are counted in log-linear buckets, eight to each power of two, so that percentiles are reported to within 12.5% of the
+ * recorded values using a fixed amount of memory.  Recording a value is a handful of uncontended atomic increments.
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder count = new LongAdder();
+
+    private final AtomicLong maximum = new AtomicLong();
+
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * The number of values recorded
+     */
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    /**
+     * The largest value recorded, or {@code 0} if no values have been recorded
+     */
+    public long getMaximum() {
+        return this.maximum.get();
+    }
+
+    /**
+     * The mean of the values recorded, or {@code 0} if no values have been recorded
+     */
+    public double getMean() {
+        long count = this.count.sum();
+        return count == 0 ? 0 : (double) this.sum.sum() / count;
+    }
+
+    /**
+     * An upper bound on the given percentile of the values recorded, or {@code 0} if no values have been recorded
+     *
+     * @param percentile the percentile, between {@code 0} and {@code 1} (e.g. {@code 0.99})
+     * @return an upper bound on the percentile
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 1) {
+            throw new IllegalArgumentException(String.format("Percentile must be between 0 and 1: %s", percentile));
+        }
+
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = this.buckets.get(i);
+            total += counts[i];
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile * total));
+        long cumulative = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += counts[i];
+
+            if (cumulative >= rank) {
+                return Math.min(upperBound(i), getMaximum());
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Records a value.  Negative values are recorded as {@code 0}.
+     *
+     * @param value the value to record
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+
+        this.buckets.incrementAndGet(index(v));
+        this.count.increment();
+        this.sum.add(v);
+
+        for (long current = this.maximum.get(); v > current; current = this.maximum.get()) {
+            if (this.maximum.compareAndSet(current, v)) {
+                break;
+            }
+        }
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+
+        return lower + (1L << shift) - 1;
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.instrumentation;
+
+import org.cloudfoundry.reactor.HttpExchange;
+import org.cloudfoundry.reactor.Instrumentation;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An {@link Instrumentation} that accumulates the measurements of exchanges into lock-free {@link Histogram}s, keyed by method and endpoint (e.g. {@code GET /v2/apps/{id}}).
+ * Nothing is published; the statistics are read with {@link #getEndpoints()}, typically by a periodic reporter.
+ * <p>
+ * Endpoints are templated heuristically, so an API with unusual identifiers could produce a key for every resource.  The number of keys is therefore bounded, and the exchanges
+ * of any endpoint encountered once the bound is reached are accumulated under {@link #OTHER}.
+ */
+public final class HistogramInstrumentation implements Instrumentation {
+
+    /**
+     * The default maximum number of endpoints
+     */
+    public static final int DEFAULT_MAXIMUM_ENDPOINTS = 256;
+
+    /**
+     * The key under which the exchanges of endpoints beyond the maximum are accumulated
+     */
+    public static final String OTHER = "other";
+
+    private final ConcurrentHashMap<String, EndpointStatistics> endpoints = new ConcurrentHashMap<>();
+
+    private final int maximumEndpoints;
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Creates a new instance that records at most {@link #DEFAULT_MAXIMUM_ENDPOINTS} endpoints
+     */
+    public HistogramInstrumentation() {
+        this(DEFAULT_MAXIMUM_ENDPOINTS);
+    }
+
+    /**
+     * Creates a new instance
+     *
+     * @param maximumEndpoints the maximum number of endpoints to record individually
+     */
+    public HistogramInstrumentation(int maximumEndpoints) {
+        if (maximumEndpoints < 1) {
+            throw new IllegalArgumentException("maximumEndpoints must be positive");
+        }
+
+        this.maximumEndpoints = maximumEndpoints;
+    }
+
+    /**
+     * The statistics of each method and endpoint, keyed by method and endpoint
+     */
+    public Map<String, EndpointStatistics> getEndpoints() {
+        return Collections.unmodifiableMap(this.endpoints);
+    }
+
+    @Override
+    public void record(HttpExchange exchange) {
+        String key = exchange.getMethod() + " " + exchange.getEndpoint();
+
+        EndpointStatistics statistics = this.endpoints.get(key);
+        if (statistics == null) {
+            statistics = this.endpoints.computeIfAbsent(key, this::createStatistics);
+        }
+        if (statistics == null) {
+            statistics = this.endpoints.computeIfAbsent(OTHER, k -> new EndpointStatistics());
+        }
+
+        statistics.record(exchange);
+    }
+
+    private EndpointStatistics createStatistics(String key) {
+        if (this.size.incrementAndGet() > this.maximumEndpoints) {
+            this.size.decrementAndGet();
+            return null;
+        }
+
+        return new EndpointStatistics();
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.instrumentation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.cloudfoundry.reactor.HttpExchange;
+import org.cloudfoundry.reactor.Instrumentation;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An {@link Instrumentation} that publishes the measurements of exchanges to a Micrometer {@link MeterRegistry}.  Requires {@code io.micrometer:micrometer-core} on the classpath.
+ * <p>
+ * Each exchange is recorded in meters named after the configured prefix (by default {@value #DEFAULT_NAME}) and tagged with {@code method}, {@code endpoint} and
+ * {@code status}:
+ * <ul>
+ * <li>{@code <name>}, a timer of the latency</li>
+ * <li>{@code <name>.first.byte}, a timer of the time to first byte</li>
+ * <li>{@code <name>.token.wait}, a timer of the time spent waiting for a token</li>
+ * <li>{@code <name>.bytes.in} and {@code <name>.bytes.out}, summaries of the body sizes</li>
+ * <li>{@code <name>.retries}, a counter of the requests retried</li>
+ * </ul>
+ * As with {@link HistogramInstrumentation}, the number of tag combinations is bounded, and the exchanges of any endpoint encountered once the bound is reached are tagged
+ * {@link HistogramInstrumentation#OTHER}.
+ */
+public final class MicrometerInstrumentation implements Instrumentation {
+
+    /**
+     * The default prefix of the meter names
+     */
+    public static final String DEFAULT_NAME = "cloudfoundry.client.requests";
+
+    private static final String NO_STATUS = "none";
+
+    private final ConcurrentHashMap<String, Meters> meters = new ConcurrentHashMap<>();
+
+    private final int maximumEndpoints;
+
+    private final String name;
+
+    private final MeterRegistry registry;
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Creates a new instance that publishes meters named {@link #DEFAULT_NAME} for at most {@link HistogramInstrumentation#DEFAULT_MAXIMUM_ENDPOINTS} combinations of tags
+     *
+     * @param registry the registry to publish to
+     */
+    public MicrometerInstrumentation(MeterRegistry registry) {
+        this(registry, DEFAULT_NAME, HistogramInstrumentation.DEFAULT_MAXIMUM_ENDPOINTS);
+    }
+
+    /**
+     * Creates a new instance
+     *
+     * @param registry         the registry to publish to
+     * @param name             the prefix of the meter names
+     * @param maximumEndpoints the maximum number of combinations of tags to publish individually
+     */
+    public MicrometerInstrumentation(MeterRegistry registry, String name, int maximumEndpoints) {
+        if (maximumEndpoints < 1) {
+            throw new IllegalArgumentException("maximumEndpoints must be positive");
+        }
+
+        this.maximumEndpoints = maximumEndpoints;
+        this.name = name;
+        this.registry = registry;
+    }
+
+    @Override
+    public void record(HttpExchange exchange) {
+        String status = exchange.getStatus() == null ? NO_STATUS : exchange.getStatus().toString();
+        String key = exchange.getMethod() + " " + exchange.getEndpoint() + " " + status;
+
+        Meters meters = this.meters.get(key);
+        if (meters == null) {
+            meters = this.meters.computeIfAbsent(key, k -> createMeters(exchange.getMethod(), exchange.getEndpoint(), status));
+        }
+        if (meters == null) {
+            meters = this.meters.computeIfAbsent(exchange.getMethod() + " " + HistogramInstrumentation.OTHER + " " + status,
+                k -> new Meters(this.registry, this.name, exchange.getMethod(), HistogramInstrumentation.OTHER, status));
+        }
+
+        meters.record(exchange);
+    }
+
+    private Meters createMeters(String method, String endpoint, String status) {
+        if (this.size.incrementAndGet() > this.maximumEndpoints) {
+            this.size.decrementAndGet();
+            return null;
+        }
+
+        return new Meters(this.registry, this.name, method, endpoint, status);
+    }
+
+    private static final class Meters {
+
+        private final DistributionSummary bytesIn;
+
+        private final DistributionSummary bytesOut;
+
+        private final Timer latency;
+
+        private final Counter retries;
+
+        private final Timer timeToFirstByte;
+
+        private final Timer tokenWait;
+
+        private Meters(MeterRegistry registry, String name, String method, String endpoint, String status) {
+            String[] tags = new String[]{"method", method, "endpoint", endpoint, "status", status};
+
+            this.bytesIn = DistributionSummary.builder(name + ".bytes.in").baseUnit("bytes").tags(tags).register(registry);
+            this.bytesOut = DistributionSummary.builder(name + ".bytes.out").baseUnit("bytes").tags(tags).register(registry);
+            this.latency = Timer.builder(name).tags(tags).register(registry);
+            this.retries = Counter.builder(name + ".retries").tags(tags).register(registry);
+            this.timeToFirstByte = Timer.builder(name + ".first.byte").tags(tags).register(registry);
+            this.tokenWait = Timer.builder(name + ".token.wait").tags(tags).register(registry);
+        }
+
+        private void record(HttpExchange exchange) {
+            if (exchange.getBytesIn() != null) {
+                this.bytesIn.record(exchange.getBytesIn());
+            }
+            if (exchange.getBytesOut() != null) {
+                this.bytesOut.record(exchange.getBytesOut());
+            }
+
+            this.latency.record(exchange.getLatency());
+
+            if (exchange.getRetries() > 0) {
+                this.retries.increment(exchange.getRetries());
+            }
+            if (exchange.getTimeToFirstByte() != null) {
+                this.timeToFirstByte.record(exchange.getTimeToFirstByte());
+            }
+
+            this.tokenWait.record(exchange.getTokenWait());
+        }
+
+    }
+
+}
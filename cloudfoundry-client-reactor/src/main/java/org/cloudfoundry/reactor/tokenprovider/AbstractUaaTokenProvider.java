@@ -31,12 +31,15 @@ import org.immutables.value.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.ReplayProcessor;
 import reactor.ipc.netty.http.client.HttpClientRequest;
 import reactor.ipc.netty.http.client.HttpClientResponse;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Base64;
@@ -45,6 +48,9 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -57,6 +63,13 @@ import static io.netty.handler.codec.http.HttpResponseStatus.UNAUTHORIZED;
 
 /**
  * An abstract base class for all token providers that interact with the UAA.  It encapsulates the logic to refresh the token before expiration.
+ * <p>
+ * Access tokens are refreshed in the background a configurable margin before they expire, and at most one token negotiation is outstanding for a {@link ConnectionContext} at any
+ * time, whether it was triggered by the approaching expiration or by a {@code 401 UNAUTHORIZED} response.
+ * <p>
+ * A connection that has not requested a token since its access token was issued is idle, and its access token is not refreshed before it expires, so that an unused
+ * {@link ConnectionContext} does not keep negotiating tokens indefinitely.  Instead, its access token and refresh timer are discarded, and a new access token is negotiated once
+ * it is used again.
  */
 public abstract class AbstractUaaTokenProvider implements TokenProvider {
 
@@ -72,11 +85,7 @@ public abstract class AbstractUaaTokenProvider implements TokenProvider {
 
     private static final ZoneId UTC = ZoneId.of("UTC");
 
-    private final ConcurrentMap<ConnectionContext, Mono<String>> accessTokens = new ConcurrentHashMap<>(1);
-
-    private final ConcurrentMap<ConnectionContext, ReplayProcessor<String>> refreshTokenStreams = new ConcurrentHashMap<>(1);
-
-    private final ConcurrentMap<ConnectionContext, Mono<String>> refreshTokens = new ConcurrentHashMap<>(1);
+    private final ConcurrentMap<ConnectionContext, ConnectionTokens> tokens = new ConcurrentHashMap<>(1);
 
     /**
      * The client id. Defaults to {@code cf}.
@@ -94,6 +103,35 @@ public abstract class AbstractUaaTokenProvider implements TokenProvider {
         return "";
     }
 
+    /**
+     * Returns the duration of the most recent token negotiation for a connection
+     *
+     * @param connectionContext the {@link ConnectionContext} to return the duration for
+     * @return the duration of the most recent token negotiation
+     */
+    public final Duration getLastRefreshLatency(ConnectionContext connectionContext) {
+        return Duration.ofNanos(getStatistic(connectionContext, tokens -> tokens.lastRefreshLatency));
+    }
+
+    /**
+     * Returns the number of token refreshes that have completed for a connection.  The initial negotiation for a connection is not a refresh and is not counted.
+     *
+     * @param connectionContext the {@link ConnectionContext} to return the count for
+     * @return the number of token refreshes that have completed
+     */
+    public final long getRefreshCount(ConnectionContext connectionContext) {
+        return getStatistic(connectionContext, tokens -> tokens.refreshCount);
+    }
+
+    /**
+     * How long before an access token expires that it should be refreshed.  Access tokens that are issued with a lifetime shorter than the margin are refreshed halfway through their
+     * lifetime instead.  Defaults to one minute.
+     */
+    @Value.Default
+    public Duration getRefreshMargin() {
+        return Duration.ofMinutes(1);
+    }
+
     /**
      * Returns a {@link Flux} of refresh tokens for a connection
      *
@@ -101,17 +139,48 @@ public abstract class AbstractUaaTokenProvider implements TokenProvider {
      * @return a {@link Flux} that emits the last token on subscribe and new refresh tokens as they are negotiated
      */
     public Flux<String> getRefreshTokens(ConnectionContext connectionContext) {
-        return getRefreshTokenStream(connectionContext);
+        return getTokens(connectionContext).refreshTokenStream;
     }
 
     @Override
     public final Mono<String> getToken(ConnectionContext connectionContext) {
-        return this.accessTokens.computeIfAbsent(connectionContext, this::token);
+        ConnectionTokens tokens = getTokens(connectionContext);
+        tokens.lastTokenRequest = System.nanoTime();
+
+        Mono<String> accessToken = tokens.accessToken.get();
+        if (accessToken != null) {
+            return accessToken;
+        }
+
+        synchronized (tokens) {
+            return tokens.accessToken.updateAndGet(current -> current != null ? current : pendingToken(connectionContext, tokens, false));
+        }
+    }
+
+    /**
+     * Returns the total duration of all completed token negotiations for a connection
+     *
+     * @param connectionContext the {@link ConnectionContext} to return the duration for
+     * @return the total duration of all completed token negotiations
+     */
+    public final Duration getTotalRefreshLatency(ConnectionContext connectionContext) {
+        return Duration.ofNanos(getStatistic(connectionContext, tokens -> tokens.totalRefreshLatency));
+    }
+
+    /**
+     * Returns the number of token negotiations for a connection that were started because a request received a {@code 401 UNAUTHORIZED} response
+     *
+     * @param connectionContext the {@link ConnectionContext} to return the count for
+     * @return the number of token negotiations started because of a {@code 401 UNAUTHORIZED} response
+     */
+    public final long getUnauthorizedRefreshCount(ConnectionContext connectionContext) {
+        return getStatistic(connectionContext, tokens -> tokens.unauthorizedRefreshCount);
     }
 
     @Override
     public void invalidate(ConnectionContext connectionContext) {
-        this.accessTokens.put(connectionContext, token(connectionContext));
+        ConnectionTokens tokens = getTokens(connectionContext);
+        tokens.accessToken.set(pendingToken(connectionContext, tokens, true));
     }
 
     /**
@@ -189,7 +258,28 @@ public abstract class AbstractUaaTokenProvider implements TokenProvider {
         return request.header(AUTHORIZATION, String.format("Basic %s", encoded));
     }
 
-    private Consumer<Map<String, String>> extractRefreshToken(ConnectionContext connectionContext) {
+    private Consumer<Map<String, String>> extractExpiration(ConnectionContext connectionContext, ConnectionTokens tokens) {
+        return payload -> Optional.ofNullable(payload.get(ACCESS_TOKEN))
+            .ifPresent(accessToken -> {
+                tokens.currentAccessToken = accessToken;
+                long issued = System.nanoTime();
+
+                parseToken(accessToken)
+                    .map(Claims::getExpiration)
+                    .map(expiration -> Duration.between(Instant.now(), expiration.toInstant()))
+                    .filter(lifetime -> !lifetime.isNegative() && !lifetime.isZero())
+                    .map(this::getRefreshDelay)
+                    .ifPresent(delay -> {
+                        LOGGER.debug("Scheduling access token refresh in {}", delay);
+
+                        Optional.ofNullable(tokens.refreshTimer.getAndSet(Mono.delay(delay)
+                            .subscribe(l -> refreshBeforeExpiration(connectionContext, tokens, accessToken, issued))))
+                            .ifPresent(Disposable::dispose);
+                    });
+            });
+    }
+
+    private Consumer<Map<String, String>> extractRefreshToken(ConnectionTokens tokens) {
         return payload -> Optional.ofNullable(payload.get(REFRESH_TOKEN))
             .ifPresent(refreshToken -> {
                 if (LOGGER.isDebugEnabled()) {
@@ -202,28 +292,108 @@ public abstract class AbstractUaaTokenProvider implements TokenProvider {
                         });
                 }
 
-                this.refreshTokens.put(connectionContext, Mono.just(refreshToken));
-                getRefreshTokenStream(connectionContext).onNext(refreshToken);
+                tokens.refreshToken = Mono.just(refreshToken);
+                tokens.refreshTokenStream.onNext(refreshToken);
             });
     }
 
     @SuppressWarnings("unchecked")
-    private Function<Mono<HttpClientResponse>, Mono<String>> extractTokens(ConnectionContext connectionContext) {
+    private Function<Mono<HttpClientResponse>, Mono<String>> extractTokens(ConnectionContext connectionContext, ConnectionTokens tokens) {
         return inbound -> inbound
             .transform(JsonCodec.decode(connectionContext.getObjectMapper(), Map.class))
             .map(payload -> (Map<String, String>) payload)
-            .doOnNext(extractRefreshToken(connectionContext))
+            .doOnNext(extractRefreshToken(tokens))
+            .doOnNext(extractExpiration(connectionContext, tokens))
             .map(AbstractUaaTokenProvider::extractAccessToken);
     }
 
-    private ReplayProcessor<String> getRefreshTokenStream(ConnectionContext connectionContext) {
-        return this.refreshTokenStreams.computeIfAbsent(connectionContext, c -> ReplayProcessor.create(1));
+    private Duration getRefreshDelay(Duration lifetime) {
+        Duration delay = lifetime.minus(getRefreshMargin());
+        return delay.isNegative() ? lifetime.dividedBy(2) : delay;
+    }
+
+    private long getStatistic(ConnectionContext connectionContext, Function<ConnectionTokens, AtomicLong> statistic) {
+        return Optional.ofNullable(this.tokens.get(connectionContext))
+            .map(statistic)
+            .map(AtomicLong::get)
+            .orElse(0L);
+    }
+
+    private ConnectionTokens getTokens(ConnectionContext connectionContext) {
+        return this.tokens.computeIfAbsent(connectionContext, c -> new ConnectionTokens());
+    }
+
+    private Mono<String> negotiate(ConnectionContext connectionContext, ConnectionTokens tokens) {
+        AtomicBoolean refresh = new AtomicBoolean();
+        AtomicLong start = new AtomicLong();
+
+        return tokens.refreshToken
+            .then(refreshToken -> refreshToken(connectionContext, refreshToken)
+                .doOnSubscribe(s -> LOGGER.debug("Negotiating using refresh token")))
+            .switchIfEmpty(primaryToken(connectionContext)
+                .doOnSubscribe(s -> LOGGER.debug("Negotiating using token provider")))
+            .transform(ErrorPayloadMapper.fallback())
+            .transform(extractTokens(connectionContext, tokens))
+            .doOnSubscribe(s -> {
+                refresh.set(tokens.currentAccessToken != null);
+                start.set(System.nanoTime());
+            })
+            .doOnSuccess(token -> recordNegotiation(tokens, refresh.get(), System.nanoTime() - start.get()));
+    }
+
+    private Mono<String> pendingToken(ConnectionContext connectionContext, ConnectionTokens tokens, boolean unauthorized) {
+        synchronized (tokens) {
+            if (tokens.pendingAccessToken == null) {
+                if (unauthorized) {
+                    tokens.unauthorizedRefreshCount.incrementAndGet();
+                }
+
+                AtomicReference<Mono<String>> pending = new AtomicReference<>();
+
+                pending.set(negotiate(connectionContext, tokens)
+                    .doOnTerminate((token, t) -> tokens.clearPendingAccessToken(pending.get()))
+                    .cache()
+                    .checkpoint());
+
+                tokens.pendingAccessToken = pending.get();
+            }
+
+            return tokens.pendingAccessToken;
+        }
     }
 
     private Mono<HttpClientResponse> primaryToken(ConnectionContext connectionContext) {
         return requestToken(connectionContext, this::tokenRequestTransformer);
     }
 
+    private void recordNegotiation(ConnectionTokens tokens, boolean refresh, long latency) {
+        if (refresh) {
+            tokens.refreshCount.incrementAndGet();
+        }
+
+        tokens.lastRefreshLatency.set(latency);
+        tokens.totalRefreshLatency.addAndGet(latency);
+    }
+
+    private void refreshBeforeExpiration(ConnectionContext connectionContext, ConnectionTokens tokens, String accessToken, long issued) {
+        if (!accessToken.equals(tokens.currentAccessToken)) {
+            return;
+        }
+
+        if (tokens.lastTokenRequest - issued < 0) {
+            LOGGER.debug("Discarding access token of idle connection");
+            tokens.discardAccessToken(accessToken);
+            return;
+        }
+
+        Mono<String> pending = pendingToken(connectionContext, tokens, false);
+
+        pending
+            .doOnSubscribe(s -> LOGGER.debug("Refreshing access token before expiration"))
+            .subscribe(token -> tokens.accessToken.set(pending),
+                t -> LOGGER.warn("Unable to refresh access token before expiration", t));
+    }
+
     private Mono<HttpClientResponse> refreshToken(ConnectionContext connectionContext, String refreshToken) {
         return requestToken(connectionContext, refreshTokenGrantTokenRequestTransformer(refreshToken))
             .onErrorResume(t -> t instanceof UaaException && ((UaaException) t).getStatusCode() == UNAUTHORIZED.code(), t -> Mono.empty());
@@ -258,16 +428,44 @@ public abstract class AbstractUaaTokenProvider implements TokenProvider {
             .transform(ErrorPayloadMapper.uaa(connectionContext.getObjectMapper()));
     }
 
-    private Mono<String> token(ConnectionContext connectionContext) {
-        return this.refreshTokens.getOrDefault(connectionContext, Mono.empty())
-            .then(refreshToken -> refreshToken(connectionContext, refreshToken)
-                .doOnSubscribe(s -> LOGGER.debug("Negotiating using refresh token")))
-            .switchIfEmpty(primaryToken(connectionContext)
-                .doOnSubscribe(s -> LOGGER.debug("Negotiating using token provider")))
-            .transform(ErrorPayloadMapper.fallback())
-            .transform(extractTokens(connectionContext))
-            .cache()
-            .checkpoint();
+    private static final class ConnectionTokens {
+
+        private final AtomicReference<Mono<String>> accessToken = new AtomicReference<>();
+
+        private volatile String currentAccessToken;
+
+        private final AtomicLong lastRefreshLatency = new AtomicLong();
+
+        private volatile long lastTokenRequest;
+
+        private Mono<String> pendingAccessToken;
+
+        private final AtomicLong refreshCount = new AtomicLong();
+
+        private final AtomicReference<Disposable> refreshTimer = new AtomicReference<>();
+
+        private volatile Mono<String> refreshToken = Mono.empty();
+
+        private final ReplayProcessor<String> refreshTokenStream = ReplayProcessor.create(1);
+
+        private final AtomicLong totalRefreshLatency = new AtomicLong();
+
+        private final AtomicLong unauthorizedRefreshCount = new AtomicLong();
+
+        private synchronized void clearPendingAccessToken(Mono<String> pending) {
+            if (this.pendingAccessToken == pending) {
+                this.pendingAccessToken = null;
+            }
+        }
+
+        private synchronized void discardAccessToken(String accessToken) {
+            if (accessToken.equals(this.currentAccessToken) && this.pendingAccessToken == null) {
+                this.accessToken.set(null);
+                this.currentAccessToken = null;
+                Optional.ofNullable(this.refreshTimer.getAndSet(null)).ifPresent(Disposable::dispose);
+            }
+        }
+
     }
 
 }
@@ -17,17 +17,26 @@
 package org.cloudfoundry.reactor.util;
 
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.util.AsciiString;
 import org.cloudfoundry.reactor.ConnectionContext;
+import org.cloudfoundry.reactor.Instrumentation;
 import org.cloudfoundry.reactor.TokenProvider;
+import org.cloudfoundry.util.FileUtils;
 import org.reactivestreams.Publisher;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.ipc.netty.http.client.HttpClientRequest;
 import reactor.ipc.netty.http.client.HttpClientResponse;
 
+import java.nio.file.Path;
+import java.util.Optional;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 import static io.netty.handler.codec.http.HttpHeaderNames.AUTHORIZATION;
 import static org.cloudfoundry.util.tuple.TupleUtils.function;
@@ -36,6 +45,10 @@ public abstract class AbstractReactorOperations {
 
     protected static final AsciiString APPLICATION_ZIP = new AsciiString("application/zip");
 
+    protected static final int STREAMING_BUFFER_SIZE = 256 * 1_024;
+
+    private final JsonCodecCache codecs;
+
     private final ConnectionContext connectionContext;
 
     private final Mono<String> root;
@@ -43,30 +56,46 @@ public abstract class AbstractReactorOperations {
     private final TokenProvider tokenProvider;
 
     protected AbstractReactorOperations(ConnectionContext connectionContext, Mono<String> root, TokenProvider tokenProvider) {
+        this.codecs = new JsonCodecCache(connectionContext::getObjectMapper);
         this.connectionContext = connectionContext;
         this.root = root;
         this.tokenProvider = tokenProvider;
     }
 
+    /**
+     * Compresses a candidate {@link Path} filtering out entries, streaming the compressed artifact into pooled buffers as they are requested
+     *
+     * @param candidate the candidate {@link Path} to compress
+     * @param filter    a filter applied to each path
+     * @return a stream of buffers containing the bytes of the compressed artifact
+     */
+    protected static Flux<ByteBuf> compressStream(Path candidate, Predicate<String> filter) {
+        return FileUtils.compressStream(candidate, filter, STREAMING_BUFFER_SIZE, () -> new ByteBufOutputStream(ByteBufAllocator.DEFAULT.buffer(STREAMING_BUFFER_SIZE)),
+            out -> out.buffer().release())
+            .map(ByteBufOutputStream::buffer);
+    }
+
     protected final <T> Mono<T> doDelete(Object requestPayload, Class<T> responseType,
                                          Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer,
                                          Function<Mono<HttpClientRequest>, Mono<HttpClientRequest>> requestTransformer,
                                          Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
-        return this.root
+        return instrumented("DELETE", false, recorder -> this.root
             .transform(transformUri(uriTransformer))
             .then(uri -> this.connectionContext.getHttpClient()
                 .delete(uri, request -> Mono.just(request)
                     .map(AbstractReactorOperations::disableFailOnError)
-                    .transform(this::addAuthorization)
+                    .transform(outbound -> addAuthorization(outbound, recorder))
                     .map(UserAgent::addUserAgent)
+                    .doOnNext(recorder::onRequest)
                     .transform(requestTransformer)
                     .transform(serializedRequest(requestPayload)))
                 .doOnSubscribe(NetworkLogging.delete(uri))
-                .transform(NetworkLogging.response(uri)))
-            .transform(this::invalidateToken)
+                .transform(NetworkLogging.response(uri))
+                .transform(recorder.response(uri)))
+            .transform(inbound -> invalidateToken(inbound, recorder))
             .transform(responseTransformer)
             .transform(ErrorPayloadMapper.fallback())
-            .transform(deserializedResponse(responseType));
+            .transform(deserializedResponse(responseType)));
     }
 
     protected final <T> Mono<T> doGet(Class<T> responseType,
@@ -74,51 +103,64 @@ public abstract class AbstractReactorOperations {
                                       Function<Mono<HttpClientRequest>, Mono<HttpClientRequest>> requestTransformer,
                                       Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
 
-        return doGet(uriTransformer, requestTransformer,
+        return instrumented("GET", false, recorder -> get(recorder, uriTransformer, requestTransformer,
             inbound -> inbound
                 .transform(responseTransformer))
-            .transform(deserializedResponse(responseType));
+            .transform(deserializedResponse(responseType)));
     }
 
     protected final Mono<HttpClientResponse> doGet(Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer,
                                                    Function<Mono<HttpClientRequest>, Mono<HttpClientRequest>> requestTransformer,
                                                    Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
-        return this.root
-            .transform(transformUri(uriTransformer))
-            .then(uri -> this.connectionContext.getHttpClient()
-                .get(uri, request -> Mono.just(request)
-                    .map(AbstractReactorOperations::disableFailOnError)
-                    .transform(this::addAuthorization)
-                    .map(UserAgent::addUserAgent)
-                    .transform(requestTransformer)
-                    .then(HttpClientRequest::send))
-                .doOnSubscribe(NetworkLogging.get(uri))
-                .transform(NetworkLogging.response(uri)))
-            .transform(this::invalidateToken)
-            .transform(responseTransformer)
-            .transform(ErrorPayloadMapper.fallback());
+        return instrumented("GET", true, recorder -> get(recorder, uriTransformer, requestTransformer, responseTransformer));
+    }
+
+    /**
+     * Makes a GET request and decodes each element of an array-valued field of the response as soon as it is received, rather than decoding the response once it has been
+     * received in full.  No more than a single element is buffered at a time.
+     *
+     * @param fieldName           the name of the top-level field containing the elements
+     * @param elementType         the type of the elements
+     * @param uriTransformer      the transformer of the request uri
+     * @param requestTransformer  the transformer of the request
+     * @param responseTransformer the transformer of the response
+     * @param <T>                 the type of the elements
+     * @return the elements
+     */
+    protected final <T> Flux<T> doGetElements(String fieldName, Class<T> elementType,
+                                              Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer,
+                                              Function<Mono<HttpClientRequest>, Mono<HttpClientRequest>> requestTransformer,
+                                              Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
+
+        return instrumentedMany("GET", false, recorder -> get(recorder, uriTransformer, requestTransformer,
+            inbound -> inbound
+                .transform(responseTransformer))
+            .as(JsonCodec.<T>decodeElements(this.codecs.getReader(elementType), fieldName))
+            .doOnError(JsonParsingException.class, e -> NetworkLogging.RESPONSE_LOGGER.error("{}\n{}", e.getCause().getMessage(), e.getPayload())));
     }
 
     protected final <T> Mono<T> doPatch(Object requestPayload, Class<T> responseType,
                                         Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer,
                                         Function<Mono<HttpClientRequest>, Mono<HttpClientRequest>> requestTransformer,
                                         Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
-        return this.root
+        return instrumented("PATCH", false, recorder -> this.root
             .transform(transformUri(uriTransformer))
             .then(uri -> this.connectionContext.getHttpClient()
                 .patch(uri, request -> Mono.just(request)
                     .map(AbstractReactorOperations::disableChunkedTransfer)
                     .map(AbstractReactorOperations::disableFailOnError)
-                    .transform(this::addAuthorization)
+                    .transform(outbound -> addAuthorization(outbound, recorder))
                     .map(UserAgent::addUserAgent)
+                    .doOnNext(recorder::onRequest)
                     .transform(requestTransformer)
                     .transform(serializedRequest(requestPayload)))
                 .doOnSubscribe(NetworkLogging.patch(uri))
-                .transform(NetworkLogging.response(uri)))
-            .transform(this::invalidateToken)
+                .transform(NetworkLogging.response(uri))
+                .transform(recorder.response(uri)))
+            .transform(inbound -> invalidateToken(inbound, recorder))
             .transform(responseTransformer)
             .transform(ErrorPayloadMapper.fallback())
-            .transform(deserializedResponse(responseType));
+            .transform(deserializedResponse(responseType)));
     }
 
     protected final <T> Mono<T> doPost(Object requestPayload, Class<T> responseType,
@@ -137,21 +179,23 @@ public abstract class AbstractReactorOperations {
                                        Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer,
                                        Function<Mono<HttpClientRequest>, Publisher<Void>> requestTransformer,
                                        Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
-        return this.root
+        return instrumented("POST", false, recorder -> this.root
             .transform(transformUri(uriTransformer))
             .then(uri -> this.connectionContext.getHttpClient()
                 .post(uri, request -> Mono.just(request)
                     .map(AbstractReactorOperations::disableChunkedTransfer)
                     .map(AbstractReactorOperations::disableFailOnError)
-                    .transform(this::addAuthorization)
+                    .transform(outbound -> addAuthorization(outbound, recorder))
                     .map(UserAgent::addUserAgent)
+                    .doOnNext(recorder::onRequest)
                     .transform(requestTransformer))
                 .doOnSubscribe(NetworkLogging.post(uri))
-                .transform(NetworkLogging.response(uri)))
-            .transform(this::invalidateToken)
+                .transform(NetworkLogging.response(uri))
+                .transform(recorder.response(uri)))
+            .transform(inbound -> invalidateToken(inbound, recorder))
             .transform(responseTransformer)
             .transform(ErrorPayloadMapper.fallback())
-            .transform(deserializedResponse(responseType));
+            .transform(deserializedResponse(responseType)));
     }
 
     protected final <T> Mono<T> doPut(Object requestPayload, Class<T> responseType,
@@ -170,40 +214,53 @@ public abstract class AbstractReactorOperations {
                                       Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer,
                                       Function<Mono<HttpClientRequest>, Publisher<Void>> requestTransformer,
                                       Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
-        return this.root
+        return instrumented("PUT", false, recorder -> this.root
             .transform(transformUri(uriTransformer))
             .then(uri -> this.connectionContext.getHttpClient()
                 .put(uri, request -> Mono.just(request)
                     .map(AbstractReactorOperations::disableChunkedTransfer)
                     .map(AbstractReactorOperations::disableFailOnError)
-                    .transform(this::addAuthorization)
+                    .transform(outbound -> addAuthorization(outbound, recorder))
                     .map(UserAgent::addUserAgent)
+                    .doOnNext(recorder::onRequest)
                     .transform(requestTransformer))
                 .doOnSubscribe(NetworkLogging.put(uri))
-                .transform(NetworkLogging.response(uri)))
-            .transform(this::invalidateToken)
+                .transform(NetworkLogging.response(uri))
+                .transform(recorder.response(uri)))
+            .transform(inbound -> invalidateToken(inbound, recorder))
             .transform(responseTransformer)
             .transform(ErrorPayloadMapper.fallback())
-            .transform(deserializedResponse(responseType));
+            .transform(deserializedResponse(responseType)));
     }
 
     protected final Mono<HttpClientResponse> doWs(Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer,
                                                   Function<Mono<HttpClientRequest>, Mono<HttpClientRequest>> requestTransformer,
                                                   Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
-        return this.root
+        return instrumented("WS", true, recorder -> this.root
             .transform(transformUri(uriTransformer))
             .then(uri -> this.connectionContext.getHttpClient()
                 .get(uri, request -> Mono.just(request)
                     .map(AbstractReactorOperations::disableFailOnError)
-                    .transform(this::addAuthorization)
+                    .transform(outbound -> addAuthorization(outbound, recorder))
                     .map(UserAgent::addUserAgent)
+                    .doOnNext(recorder::onRequest)
                     .transform(requestTransformer)
                     .flatMapMany(HttpClientRequest::sendWebsocket))
                 .doOnSubscribe(NetworkLogging.ws(uri))
-                .transform(NetworkLogging.response(uri)))
-            .transform(this::invalidateToken)
+                .transform(NetworkLogging.response(uri))
+                .transform(recorder.response(uri)))
+            .transform(inbound -> invalidateToken(inbound, recorder))
             .transform(responseTransformer)
-            .transform(ErrorPayloadMapper.fallback());
+            .transform(ErrorPayloadMapper.fallback()));
+    }
+
+    /**
+     * Returns the {@link ConnectionContext} these operations communicate with the server through
+     *
+     * @return the connection context
+     */
+    protected final ConnectionContext getConnectionContext() {
+        return this.connectionContext;
     }
 
     private static HttpClientRequest disableChunkedTransfer(HttpClientRequest request) {
@@ -223,24 +280,77 @@ public abstract class AbstractReactorOperations {
             .map(builder -> builder.build().encode().toUriString());
     }
 
-    private Mono<HttpClientRequest> addAuthorization(Mono<HttpClientRequest> outbound) {
-        return Mono.when(outbound, this.tokenProvider.getToken(this.connectionContext))
+    private Mono<HttpClientRequest> addAuthorization(Mono<HttpClientRequest> outbound, ExchangeRecorder recorder) {
+        return Mono.when(outbound, this.tokenProvider.getToken(this.connectionContext).transform(recorder::token))
             .map(function((request, token) -> request.header(AUTHORIZATION, token)));
     }
 
     private <T> Function<Mono<HttpClientResponse>, Mono<T>> deserializedResponse(Class<T> responseType) {
         return inbound -> inbound
-            .transform(JsonCodec.decode(this.connectionContext.getObjectMapper(), responseType))
+            .transform(JsonCodec.<T>decode(this.codecs.getReader(responseType)))
             .doOnError(JsonParsingException.class, e -> NetworkLogging.RESPONSE_LOGGER.error("{}\n{}", e.getCause().getMessage(), e.getPayload()));
     }
 
-    private Mono<HttpClientResponse> invalidateToken(Mono<HttpClientResponse> inbound) {
+    private Mono<HttpClientResponse> get(ExchangeRecorder recorder,
+                                         Function<UriComponentsBuilder, UriComponentsBuilder> uriTransformer,
+                                         Function<Mono<HttpClientRequest>, Mono<HttpClientRequest>> requestTransformer,
+                                         Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> responseTransformer) {
+        return this.root
+            .transform(transformUri(uriTransformer))
+            .then(uri -> this.connectionContext.getHttpClient()
+                .get(uri, request -> Mono.just(request)
+                    .map(AbstractReactorOperations::disableFailOnError)
+                    .transform(outbound -> addAuthorization(outbound, recorder))
+                    .map(UserAgent::addUserAgent)
+                    .doOnNext(recorder::onRequest)
+                    .transform(requestTransformer)
+                    .then(HttpClientRequest::send))
+                .doOnSubscribe(NetworkLogging.get(uri))
+                .transform(NetworkLogging.response(uri))
+                .transform(recorder.response(uri)))
+            .transform(inbound -> invalidateToken(inbound, recorder))
+            .transform(responseTransformer)
+            .transform(ErrorPayloadMapper.fallback());
+    }
+
+    private <T> Mono<T> instrumented(String method, boolean awaitBody, Function<ExchangeRecorder, Mono<T>> exchange) {
+        Optional<Instrumentation> instrumentation = this.connectionContext.getInstrumentation();
+
+        if (!instrumentation.isPresent()) {
+            return exchange.apply(ExchangeRecorder.NOOP);
+        }
+
+        return Mono.defer(() -> {
+            ExchangeRecorder recorder = ExchangeRecorder.create(instrumentation.get(), method, awaitBody);
+
+            return exchange.apply(recorder)
+                .doFinally(recorder::finish);
+        });
+    }
+
+    private <T> Flux<T> instrumentedMany(String method, boolean awaitBody, Function<ExchangeRecorder, Flux<T>> exchange) {
+        Optional<Instrumentation> instrumentation = this.connectionContext.getInstrumentation();
+
+        if (!instrumentation.isPresent()) {
+            return exchange.apply(ExchangeRecorder.NOOP);
+        }
+
+        return Flux.defer(() -> {
+            ExchangeRecorder recorder = ExchangeRecorder.create(instrumentation.get(), method, awaitBody);
+
+            return exchange.apply(recorder)
+                .doFinally(recorder::finish);
+        });
+    }
+
+    private Mono<HttpClientResponse> invalidateToken(Mono<HttpClientResponse> inbound, ExchangeRecorder recorder) {
         return inbound
             .then(response -> {
                 if (response.status() == HttpResponseStatus.UNAUTHORIZED) {
                     this.tokenProvider.invalidate(this.connectionContext);
+                    recorder.onRetry();
                     return inbound
-                        .transform(this::invalidateToken);
+                        .transform(i -> invalidateToken(i, recorder));
                 } else {
                     return Mono.just(response);
                 }
@@ -249,7 +359,7 @@ public abstract class AbstractReactorOperations {
 
     private Function<Mono<HttpClientRequest>, Publisher<Void>> serializedRequest(Object requestPayload) {
         return outbound -> outbound
-            .transform(JsonCodec.encode(this.connectionContext.getObjectMapper(), requestPayload));
+            .transform(JsonCodec.encode(this.codecs.getWriter(requestPayload.getClass()), requestPayload));
     }
 
 }
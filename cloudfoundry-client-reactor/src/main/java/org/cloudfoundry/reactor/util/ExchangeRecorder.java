@@ -0,0 +1,319 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.stream.ChunkedInput;
+import org.cloudfoundry.reactor.HttpExchange;
+import org.cloudfoundry.reactor.Instrumentation;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.ipc.netty.http.client.HttpClientRequest;
+import reactor.ipc.netty.http.client.HttpClientResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Measures a single HTTP exchange and passes the measurements to an {@link Instrumentation} when it terminates.  A recorder is created for each subscription to an exchange and
+ * its hooks are called in sequence by the operators of that exchange.  The {@link #NOOP} recorder measures nothing and leaves each publisher it is given unchanged.
+ * <p>
+ * The bytes of each request and response body are counted as they pass through the connection's pipeline, so that chunked and streamed bodies are measured as well.  An
+ * exchange whose response is returned to the caller undecoded terminates as soon as the response headers are received, so when created to await the body, a recorder instead
+ * waits for both the exchange and the body of its response to complete.  A websocket body completes when its connection closes.
+ */
+final class ExchangeRecorder {
+
+    static final ExchangeRecorder NOOP = new ExchangeRecorder(null, null, false);
+
+    private static final String UNKNOWN_ENDPOINT = "unknown";
+
+    private final boolean awaitBody;
+
+    private final Instrumentation instrumentation;
+
+    private final String method;
+
+    private final AtomicInteger pending = new AtomicInteger(1);
+
+    private final long start;
+
+    private volatile BodyRecorder body;
+
+    private volatile long firstByte;
+
+    private volatile RequestBodyRecorder requestBody;
+
+    private volatile HttpClientResponse response;
+
+    private volatile int retries;
+
+    private volatile long tokenStart;
+
+    private volatile long tokenWait;
+
+    private volatile String uri;
+
+    private ExchangeRecorder(Instrumentation instrumentation, String method, boolean awaitBody) {
+        this.awaitBody = awaitBody;
+        this.instrumentation = instrumentation;
+        this.method = method;
+        this.start = System.nanoTime();
+    }
+
+    static ExchangeRecorder create(Instrumentation instrumentation, String method, boolean awaitBody) {
+        return new ExchangeRecorder(instrumentation, method, awaitBody);
+    }
+
+    /**
+     * Returns the template of the endpoint of a uri: the path, with segments that are GUIDs or numbers replaced by {@code {id}}
+     */
+    static String endpoint(String uri) {
+        int scheme = uri.indexOf("://");
+        int start = scheme < 0 ? 0 : uri.indexOf('/', scheme + 3);
+
+        if (start < 0) {
+            return "/";
+        }
+
+        int end = start;
+        while (end < uri.length() && uri.charAt(end) != '?' && uri.charAt(end) != '#') {
+            end++;
+        }
+
+        StringBuilder endpoint = new StringBuilder(end - start);
+
+        for (int i = start; i < end; ) {
+            int next = uri.indexOf('/', i + 1);
+            if (next < 0 || next > end) {
+                next = end;
+            }
+
+            if (uri.charAt(i) == '/') {
+                endpoint.append('/');
+                i++;
+            }
+
+            if (isIdentifier(uri, i, next)) {
+                endpoint.append("{id}");
+            } else {
+                endpoint.append(uri, i, next);
+            }
+
+            i = next;
+        }
+
+        return endpoint.length() == 0 ? "/" : endpoint.toString();
+    }
+
+    void finish(SignalType signalType) {
+        if (this.instrumentation != null) {
+            complete();
+        }
+    }
+
+    void onRequest(HttpClientRequest request) {
+        if (this.instrumentation != null) {
+            RequestBodyRecorder requestBody = new RequestBodyRecorder();
+            this.requestBody = requestBody;
+            request.context().addHandler(requestBody);
+        }
+    }
+
+    void onRetry() {
+        if (this.instrumentation != null) {
+            this.retries++;
+        }
+    }
+
+    Function<Mono<HttpClientResponse>, Mono<HttpClientResponse>> response(String uri) {
+        if (this.instrumentation == null) {
+            return inbound -> inbound;
+        }
+
+        this.uri = uri;
+
+        return inbound -> inbound
+            .doOnNext(response -> {
+                this.firstByte = System.nanoTime();
+                this.response = response;
+
+                BodyRecorder body = new BodyRecorder(this.awaitBody, "WS".equals(this.method));
+                if (this.awaitBody) {
+                    this.pending.incrementAndGet();
+                }
+
+                BodyRecorder previous = this.body;
+                this.body = body;
+                if (previous != null) {
+                    previous.complete();
+                }
+
+                response.addHandler(body);
+            });
+    }
+
+    Mono<String> token(Mono<String> token) {
+        if (this.instrumentation == null) {
+            return token;
+        }
+
+        return token
+            .doOnSubscribe(s -> this.tokenStart = System.nanoTime())
+            .doOnSuccess(t -> this.tokenWait += System.nanoTime() - this.tokenStart);
+    }
+
+    private static boolean isGuid(String uri, int start, int end) {
+        if (end - start != 36) {
+            return false;
+        }
+
+        for (int i = 0; i < 36; i++) {
+            char c = uri.charAt(start + i);
+
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (Character.digit(c, 16) < 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isIdentifier(String uri, int start, int end) {
+        return start < end && (isNumber(uri, start, end) || isGuid(uri, start, end));
+    }
+
+    private static boolean isNumber(String uri, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isDigit(uri.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void complete() {
+        if (this.pending.decrementAndGet() != 0) {
+            return;
+        }
+
+        BodyRecorder body = this.body;
+        RequestBodyRecorder requestBody = this.requestBody;
+        HttpClientResponse response = this.response;
+
+        this.instrumentation.record(HttpExchange.builder()
+            .bytesIn(body == null ? null : Long.valueOf(body.bytes))
+            .bytesOut(requestBody == null ? null : Long.valueOf(requestBody.bytes))
+            .endpoint(this.uri == null ? UNKNOWN_ENDPOINT : endpoint(this.uri))
+            .latency(Duration.ofNanos(System.nanoTime() - this.start))
+            .method(this.method)
+            .retries(this.retries)
+            .status(response == null ? null : response.status().code())
+            .timeToFirstByte(response == null ? null : Duration.ofNanos(this.firstByte - this.start))
+            .tokenWait(Duration.ofNanos(this.tokenWait))
+            .build());
+    }
+
+    /**
+     * Counts the bytes of a response body as they are received and, if the exchange awaits its body, completes the exchange when the body has been received, the connection has
+     * closed, or the handler has been removed when the connection is released
+     */
+    private final class BodyRecorder extends ChannelInboundHandlerAdapter {
+
+        private final boolean awaitBody;
+
+        private final AtomicBoolean complete = new AtomicBoolean();
+
+        private final boolean websocket;
+
+        private volatile long bytes;
+
+        private BodyRecorder(boolean awaitBody, boolean websocket) {
+            this.awaitBody = awaitBody;
+            this.websocket = websocket;
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            complete();
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (msg instanceof ByteBufHolder) {
+                this.bytes += ((ByteBufHolder) msg).content().readableBytes();
+            } else if (msg instanceof ByteBuf) {
+                this.bytes += ((ByteBuf) msg).readableBytes();
+            }
+
+            super.channelRead(ctx, msg);
+
+            if (!this.websocket && msg instanceof LastHttpContent) {
+                complete();
+            }
+        }
+
+        @Override
+        public void handlerRemoved(ChannelHandlerContext ctx) {
+            complete();
+        }
+
+        private void complete() {
+            if (this.awaitBody && this.complete.compareAndSet(false, true)) {
+                ExchangeRecorder.this.complete();
+            }
+        }
+
+    }
+
+    /**
+     * Counts the bytes of a request body as they are written.  Chunked inputs, such as encoded forms, are counted by their declared length when it is known.
+     */
+    private static final class RequestBodyRecorder extends ChannelOutboundHandlerAdapter {
+
+        private volatile long bytes;
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            if (msg instanceof ByteBufHolder) {
+                this.bytes += ((ByteBufHolder) msg).content().readableBytes();
+            } else if (msg instanceof ByteBuf) {
+                this.bytes += ((ByteBuf) msg).readableBytes();
+            } else if (msg instanceof ChunkedInput) {
+                this.bytes += Math.max(0, ((ChunkedInput<?>) msg).length());
+            }
+
+            super.write(ctx, msg, promise);
+        }
+
+    }
+
+}
@@ -18,6 +18,9 @@ package org.cloudfoundry.reactor.util;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.json.JsonObjectDecoder;
@@ -29,6 +32,8 @@ import reactor.ipc.netty.http.client.HttpClientRequest;
 import reactor.ipc.netty.http.client.HttpClientResponse;
 
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
 import java.util.function.Function;
 
 public final class JsonCodec {
@@ -36,19 +41,35 @@ public final class JsonCodec {
     private static final int MAX_PAYLOAD_SIZE = 100 * 1024 * 1024;
 
     public static <T> Function<Mono<HttpClientResponse>, Flux<T>> decode(ObjectMapper objectMapper, Class<T> responseType) {
+        return decode(objectMapper.readerFor(responseType));
+    }
+
+    static <T> Function<Mono<HttpClientResponse>, Flux<T>> decode(ObjectReader reader) {
         return inbound -> inbound
             .flatMapMany(response -> response.addHandler(new JsonObjectDecoder(MAX_PAYLOAD_SIZE)).receive().asByteArray())
             .map(payload -> {
                 try {
-                    return objectMapper.readValue(payload, responseType);
+                    return reader.<T>readValue(payload);
                 } catch (Throwable t) {
                     throw new JsonParsingException(t.getMessage(), t, new String(payload, Charset.defaultCharset()));
                 }
             });
     }
 
-    static Function<Mono<HttpClientRequest>, Publisher<Void>> encode(ObjectMapper objectMapper, Object requestPayload) {
-        if (!objectMapper.canSerialize(requestPayload.getClass())) {
+    static <T> Function<Mono<HttpClientResponse>, Flux<T>> decodeElements(ObjectReader reader, String fieldName) {
+        return inbound -> inbound
+            .flatMapMany(response -> response.addHandler(new JsonElementDecoder(fieldName, MAX_PAYLOAD_SIZE)).receive()
+                .map(payload -> {
+                    try {
+                        return reader.<T>readValue(new ByteBufInputStream(payload.duplicate()));
+                    } catch (Throwable t) {
+                        throw new JsonParsingException(t.getMessage(), t, payload.toString(StandardCharsets.UTF_8));
+                    }
+                }));
+    }
+
+    static Function<Mono<HttpClientRequest>, Publisher<Void>> encode(Optional<ObjectWriter> writer, Object requestPayload) {
+        if (!writer.isPresent()) {
             return outbound -> outbound
                 .then(HttpClientRequest::send);
         }
@@ -56,7 +77,7 @@ public final class JsonCodec {
         return outbound -> outbound
             .flatMapMany(request -> {
                 try {
-                    byte[] bytes = objectMapper.writeValueAsBytes(requestPayload);
+                    byte[] bytes = writer.get().writeValueAsBytes(requestPayload);
 
                     return request
                         .header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * A cache of {@link ObjectReader}s and {@link ObjectWriter}s for each type, so that the (de)serializers of a type are resolved once rather than on every request
+ */
+final class JsonCodecCache {
+
+    private final Supplier<ObjectMapper> objectMapper;
+
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Class<?>, Optional<ObjectWriter>> writers = new ConcurrentHashMap<>();
+
+    JsonCodecCache(Supplier<ObjectMapper> objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    ObjectReader getReader(Class<?> type) {
+        return this.readers.computeIfAbsent(type, t -> this.objectMapper.get().readerFor(t));
+    }
+
+    Optional<ObjectWriter> getWriter(Class<?> type) {
+        return this.writers.computeIfAbsent(type, t -> {
+            ObjectMapper objectMapper = this.objectMapper.get();
+            return objectMapper.canSerialize(t) ? Optional.of(objectMapper.writerFor(t)) : Optional.empty();
+        });
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.TooLongFrameException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * An incremental decoder that emits each element of an array-valued field of a top-level JSON object as a slice of the received buffers, as soon as the element is complete.
+ * <p>
+ * Each received byte is scanned once, tracking only nesting depth, whether it is within a string, and whether the most recent top-level key matches the field name.  Bytes
+ * outside the current element are discarded as they are scanned, so no more than a single element is buffered at a time.  The contents of other fields are ignored.
+ */
+final class JsonElementDecoder extends ByteToMessageDecoder {
+
+    private final byte[] fieldName;
+
+    private final int maximumElementSize;
+
+    private int depth;
+
+    private boolean escaped;
+
+    private boolean inArray;
+
+    private boolean inElement;
+
+    private boolean inString;
+
+    private int keyIndex = -1;
+
+    private boolean keyMatched;
+
+    private int offset;
+
+    JsonElementDecoder(String fieldName, int maximumElementSize) {
+        this.fieldName = fieldName.getBytes(StandardCharsets.UTF_8);
+        this.maximumElementSize = maximumElementSize;
+        setCumulator(COMPOSITE_CUMULATOR);
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        int i = in.readerIndex() + this.offset;
+
+        for (; i < in.writerIndex(); i++) {
+            byte c = in.getByte(i);
+
+            if (this.inString) {
+                scanString(c);
+                continue;
+            }
+
+            switch (c) {
+                case '"':
+                    startElement(in, i);
+                    this.inString = true;
+                    this.keyIndex = this.depth == 1 ? 0 : -1;
+                    break;
+                case '{':
+                case '[':
+                    startElement(in, i);
+                    this.inArray |= c == '[' && this.depth == 1 && this.keyMatched;
+                    this.depth++;
+                    break;
+                case '}':
+                case ']':
+                    this.depth--;
+
+                    if (this.inArray && this.depth == 2) {
+                        endElement(in, i + 1, out);
+                    } else if (this.inArray && this.depth == 1) {
+                        endElement(in, i, out);
+                        this.inArray = false;
+                        this.keyMatched = false;
+                    }
+                    break;
+                case ',':
+                    if (this.inArray && this.depth == 2) {
+                        endElement(in, i, out);
+                    } else if (this.depth == 1) {
+                        this.keyMatched = false;
+                    }
+                    break;
+                case ' ':
+                case '\t':
+                case '\r':
+                case '\n':
+                case ':':
+                    break;
+                default:
+                    startElement(in, i);
+            }
+
+            if (!this.inElement) {
+                in.readerIndex(i + 1);
+            } else if (i + 1 - in.readerIndex() > this.maximumElementSize) {
+                this.inArray = false;
+                throw new TooLongFrameException(String.format("JSON element exceeds %d bytes", this.maximumElementSize));
+            }
+        }
+
+        this.offset = i - in.readerIndex();
+    }
+
+    private void endElement(ByteBuf in, int end, List<Object> out) {
+        if (this.inElement) {
+            out.add(in.readRetainedSlice(end - in.readerIndex()));
+            this.inElement = false;
+        }
+    }
+
+    private void scanString(byte c) {
+        if (this.escaped) {
+            this.escaped = false;
+        } else if (c == '\\') {
+            this.escaped = true;
+            this.keyIndex = -1;
+        } else if (c == '"') {
+            this.inString = false;
+            this.keyMatched = this.keyIndex == this.fieldName.length;
+        } else if (this.keyIndex >= 0) {
+            this.keyIndex = this.keyIndex < this.fieldName.length && this.fieldName[this.keyIndex] == c ? this.keyIndex + 1 : -1;
+        }
+    }
+
+    private void startElement(ByteBuf in, int index) {
+        if (this.inArray && this.depth == 2 && !this.inElement) {
+            in.readerIndex(index);
+            this.inElement = true;
+        }
+    }
+
+}
@@ -19,11 +19,12 @@ package org.cloudfoundry.reactor.util;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.ssl.SslHandler;
 import io.netty.util.AsciiString;
-import org.cloudfoundry.util.ByteArrayPool;
 import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -31,11 +32,11 @@ import reactor.ipc.netty.NettyOutbound;
 import reactor.ipc.netty.http.client.HttpClientRequest;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -90,14 +91,21 @@ public final class MultipartHttpClientRequest {
             })
             .collect(Collectors.toList());
 
-        Long contentLength = parts.stream()
-            .mapToLong(part -> delimiter.length() + CRLF.length() + part.getLength())
-            .sum() + closeDelimiter.length();
-
-        NettyOutbound intermediateRequest = this.request
-            .chunkedTransfer(false)
-            .header(CONTENT_TYPE, BOUNDARY_PREAMBLE.concat(boundary))
-            .header(CONTENT_LENGTH, String.valueOf(contentLength));
+        NettyOutbound intermediateRequest;
+        if (parts.stream().anyMatch(PartHttpClientRequest::isStreaming)) {
+            intermediateRequest = this.request
+                .chunkedTransfer(true)
+                .header(CONTENT_TYPE, BOUNDARY_PREAMBLE.concat(boundary));
+        } else {
+            Long contentLength = parts.stream()
+                .mapToLong(part -> delimiter.length() + CRLF.length() + part.getLength())
+                .sum() + closeDelimiter.length();
+
+            intermediateRequest = this.request
+                .chunkedTransfer(false)
+                .header(CONTENT_TYPE, BOUNDARY_PREAMBLE.concat(boundary))
+                .header(CONTENT_LENGTH, String.valueOf(contentLength));
+        }
 
         for (PartHttpClientRequest part : parts) {
             intermediateRequest = intermediateRequest.sendObject(Unpooled.wrappedBuffer(delimiter.toByteArray()));
@@ -130,6 +138,8 @@ public final class MultipartHttpClientRequest {
 
     public static final class PartHttpClientRequest {
 
+        private static final int FILE_CHUNK_SIZE = 64 * 1_024;
+
         private static final AsciiString HEADER_DELIMITER = new AsciiString(": ");
 
         private final HttpHeaders headers = new DefaultHttpHeaders(true);
@@ -142,6 +152,8 @@ public final class MultipartHttpClientRequest {
 
         private ByteBuf renderedHeaders;
 
+        private Flux<ByteBuf> stream;
+
         private PartHttpClientRequest(ObjectMapper objectMapper) {
             this.objectMapper = objectMapper;
         }
@@ -167,6 +179,11 @@ public final class MultipartHttpClientRequest {
             }
         }
 
+        public void sendStream(Flux<ByteBuf> stream) {
+            this.renderedHeaders = renderHeaders();
+            this.stream = stream;
+        }
+
         public PartHttpClientRequest setContentDispositionFormData(String name) {
             return setContentDispositionFormData(name, null);
         }
@@ -187,32 +204,45 @@ public final class MultipartHttpClientRequest {
             return this;
         }
 
-        private static Flux<byte[]> fileReadingFlux(Path file) {
-            return Flux.generate(() -> Files.newInputStream(file, StandardOpenOption.READ),
-                (in, sink) -> {
-                    ByteArrayPool.withByteArray(buffer -> {
-                        try {
-                            int length = in.read(buffer);
-                            if (length != -1) {
-                                sink.next(Arrays.copyOf(buffer, length));
-                            } else {
-                                sink.complete();
-                            }
-                        } catch (IOException e) {
-                            sink.error(e);
+        static Flux<ByteBuf> fileReadingFlux(Path file, ByteBufAllocator allocator) {
+            return Flux.generate(() -> FileChannel.open(file, StandardOpenOption.READ),
+                (channel, sink) -> {
+                    ByteBuf buffer = allocator.directBuffer(FILE_CHUNK_SIZE);
+
+                    try {
+                        if (buffer.writeBytes(channel, FILE_CHUNK_SIZE) != -1) {
+                            sink.next(buffer);
+                        } else {
+                            buffer.release();
+                            sink.complete();
                         }
-                    });
+                    } catch (IOException e) {
+                        buffer.release();
+                        sink.error(e);
+                    }
 
-                    return in;
-                }, inputStream -> {
+                    return channel;
+                }, channel -> {
                     try {
-                        inputStream.close();
+                        channel.close();
                     } catch (IOException e) {
                         throw Exceptions.propagate(e);
                     }
                 });
         }
 
+        private static boolean isSecure(NettyOutbound request) {
+            return request.context().channel().pipeline().get(SslHandler.class) != null;
+        }
+
+        private static NettyOutbound sendFile(NettyOutbound request, Path file) {
+            if (isSecure(request)) {
+                return request.send(fileReadingFlux(file, request.alloc()));
+            } else {
+                return request.sendFile(file);
+            }
+        }
+
         private long getLength() {
             return this.renderedHeaders.readableBytes() + getPayloadLength();
         }
@@ -231,6 +261,10 @@ public final class MultipartHttpClientRequest {
             }
         }
 
+        private boolean isStreaming() {
+            return this.stream != null;
+        }
+
         private ByteBuf renderHeaders() {
             AsciiString s = this.headers.entries().stream()
                 .sorted(Comparator.comparing(Map.Entry::getKey))
@@ -244,7 +278,9 @@ public final class MultipartHttpClientRequest {
 
         private NettyOutbound sendPayload(NettyOutbound request) {
             if (this.file != null) {
-                return request.sendByteArray(fileReadingFlux(this.file));
+                return sendFile(request, this.file);
+            } else if (this.stream != null) {
+                return request.send(this.stream);
             } else if (this.payload != null) {
                 return request.sendByteArray(Mono.just(this.payload));
             } else {
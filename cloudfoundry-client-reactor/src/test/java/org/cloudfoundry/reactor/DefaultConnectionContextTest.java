@@ -16,13 +16,24 @@
 
 package org.cloudfoundry.reactor;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.cloudfoundry.CloudFoundryJsonModule;
 import org.junit.Test;
 import reactor.test.StepVerifier;
 
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.time.Duration;
 
 import static io.netty.handler.codec.http.HttpMethod.GET;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public final class DefaultConnectionContextTest extends AbstractRestTest {
 
@@ -32,6 +43,44 @@ public final class DefaultConnectionContextTest extends AbstractRestTest {
         .secure(false)
         .build();
 
+    @Test
+    public void afterburner() {
+        ConnectionContext connectionContext = DefaultConnectionContext.builder()
+            .afterburner(true)
+            .apiHost(this.mockWebServer.getHostName())
+            .port(this.mockWebServer.getPort())
+            .secure(false)
+            .build();
+
+        assertThat(connectionContext.getObjectMapper().getRegisteredModuleIds()).contains(AfterburnerModule.class.getName());
+    }
+
+    @Test
+    public void afterburnerMissing() {
+        ClassLoader classLoader = new URLClassLoader(new URL[0], null);
+
+        assertThatThrownBy(() -> _DefaultConnectionContext.createAfterburnerModule(classLoader))
+            .isInstanceOf(IllegalStateException.class)
+            .hasCauseInstanceOf(ClassNotFoundException.class);
+    }
+
+    @Test
+    public void generatedCodecs() {
+        ConnectionContext connectionContext = DefaultConnectionContext.builder()
+            .apiHost(this.mockWebServer.getHostName())
+            .generatedCodecs(true)
+            .port(this.mockWebServer.getPort())
+            .secure(false)
+            .build();
+
+        assertThat(connectionContext.getObjectMapper().getRegisteredModuleIds()).contains(CloudFoundryJsonModule.class.getName());
+    }
+
+    @Test
+    public void generatedCodecsDisabled() {
+        assertThat(this.connectionContext.getObjectMapper().getRegisteredModuleIds()).doesNotContain(CloudFoundryJsonModule.class.getName());
+    }
+
     @Test
     public void getInfo() throws Exception {
         mockRequest(InteractionContext.builder()
@@ -52,4 +101,32 @@ public final class DefaultConnectionContextTest extends AbstractRestTest {
             .verify(Duration.ofSeconds(5));
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCompressionParallelism() {
+        DefaultConnectionContext.builder()
+            .apiHost(this.mockWebServer.getHostName())
+            .compressionParallelism(0)
+            .build();
+    }
+
+    @Test
+    public void modules() throws IOException {
+        ConnectionContext connectionContext = DefaultConnectionContext.builder()
+            .apiHost(this.mockWebServer.getHostName())
+            .module(new SimpleModule()
+                .addDeserializer(Integer.class, new JsonDeserializer<Integer>() {
+
+                    @Override
+                    public Integer deserialize(JsonParser p, DeserializationContext ctxt) {
+                        return -1;
+                    }
+
+                }))
+            .port(this.mockWebServer.getPort())
+            .secure(false)
+            .build();
+
+        assertThat(connectionContext.getObjectMapper().readValue("1", Integer.class)).isEqualTo(-1);
+    }
+
 }
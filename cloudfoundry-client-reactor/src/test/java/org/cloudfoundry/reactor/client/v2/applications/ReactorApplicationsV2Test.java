@@ -67,20 +67,38 @@ import org.cloudfoundry.client.v2.servicebindings.ServiceBindingEntity;
 import org.cloudfoundry.client.v2.servicebindings.ServiceBindingResource;
 import org.cloudfoundry.client.v2.serviceinstances.Service;
 import org.cloudfoundry.client.v2.serviceinstances.ServiceInstance;
+import org.cloudfoundry.reactor.ConnectionContext;
+import org.cloudfoundry.reactor.DefaultConnectionContext;
 import org.cloudfoundry.reactor.InteractionContext;
 import org.cloudfoundry.reactor.TestRequest;
 import org.cloudfoundry.reactor.TestResponse;
 import org.cloudfoundry.reactor.client.AbstractClientApiTest;
 import org.cloudfoundry.util.FluentMap;
 import org.cloudfoundry.util.OperationUtils;
+import org.junit.Rule;
 import org.junit.Test;
-import org.springframework.core.io.ClassPathResource;
+import org.junit.rules.TemporaryFolder;
+import reactor.ipc.netty.http.client.HttpClient;
 import reactor.test.StepVerifier;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import static io.netty.handler.codec.http.HttpMethod.DELETE;
 import static io.netty.handler.codec.http.HttpMethod.GET;
@@ -95,6 +113,9 @@ import static org.cloudfoundry.util.tuple.TupleUtils.consumer;
 
 public final class ReactorApplicationsV2Test extends AbstractClientApiTest {
 
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
     private final ReactorApplicationsV2 applications = new ReactorApplicationsV2(CONNECTION_CONTEXT, this.root, TOKEN_PROVIDER);
 
     @SuppressWarnings("deprecation")
@@ -293,6 +314,135 @@ public final class ReactorApplicationsV2Test extends AbstractClientApiTest {
             .verify(Duration.ofSeconds(5));
     }
 
+    @Test
+    public void downloadChannel() {
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(GET).path("/v2/apps/test-application-id/download")
+                .build())
+            .response(TestResponse.builder()
+                .status(OK)
+                .payload("fixtures/client/v2/apps/GET_{id}_download_response.bin")
+                .build())
+            .build());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] expected = getBytes("fixtures/client/v2/apps/GET_{id}_download_response.bin");
+
+        this.applications
+            .download(DownloadApplicationRequest.builder()
+                .applicationId("test-application-id")
+                .build(), Channels.newChannel(out))
+            .as(StepVerifier::create)
+            .expectNext((long) expected.length)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(out.toByteArray()).isEqualTo(expected);
+    }
+
+    @Test
+    public void downloadDropletChannel() {
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(GET).path("/v2/apps/test-application-id/droplet/download")
+                .build())
+            .response(TestResponse.builder()
+                .status(OK)
+                .payload("fixtures/client/v2/apps/GET_{id}_download_response.bin")
+                .build())
+            .build());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WritableByteChannel delegate = Channels.newChannel(out);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        byte[] expected = getBytes("fixtures/client/v2/apps/GET_{id}_download_response.bin");
+
+        this.applications
+            .downloadDroplet(DownloadApplicationDropletRequest.builder()
+                .applicationId("test-application-id")
+                .build(), new WritableByteChannel() {
+
+                @Override
+                public void close() throws IOException {
+                    delegate.close();
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return delegate.isOpen();
+                }
+
+                @Override
+                public int write(ByteBuffer src) throws IOException {
+                    threads.add(Thread.currentThread().getName());
+                    return delegate.write(src);
+                }
+
+            })
+            .as(StepVerifier::create)
+            .expectNext((long) expected.length)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(out.toByteArray()).isEqualTo(expected);
+        assertThat(threads).isNotEmpty().allMatch(name -> name.startsWith("elastic"));
+    }
+
+    @Test
+    public void downloadDropletPath() throws IOException {
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(GET).path("/v2/apps/test-application-id/droplet/download")
+                .build())
+            .response(TestResponse.builder()
+                .status(OK)
+                .payload("fixtures/client/v2/apps/GET_{id}_download_response.bin")
+                .build())
+            .build());
+
+        Path destination = this.folder.newFile().toPath();
+        byte[] expected = getBytes("fixtures/client/v2/apps/GET_{id}_download_response.bin");
+
+        this.applications
+            .downloadDroplet(DownloadApplicationDropletRequest.builder()
+                .applicationId("test-application-id")
+                .build(), destination)
+            .as(StepVerifier::create)
+            .expectNext((long) expected.length)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(Files.readAllBytes(destination)).isEqualTo(expected);
+    }
+
+    @Test
+    public void downloadPath() throws IOException {
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(GET).path("/v2/apps/test-application-id/download")
+                .build())
+            .response(TestResponse.builder()
+                .status(OK)
+                .payload("fixtures/client/v2/apps/GET_{id}_download_response.bin")
+                .build())
+            .build());
+
+        Path destination = this.folder.getRoot().toPath().resolve("application.zip");
+        byte[] expected = getBytes("fixtures/client/v2/apps/GET_{id}_download_response.bin");
+
+        this.applications
+            .download(DownloadApplicationRequest.builder()
+                .applicationId("test-application-id")
+                .build(), destination)
+            .as(StepVerifier::create)
+            .expectNext((long) expected.length)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(Files.readAllBytes(destination)).isEqualTo(expected);
+    }
+
     @Test
     public void downloadDroplet() {
         mockRequest(InteractionContext.builder()
@@ -955,28 +1105,22 @@ public final class ReactorApplicationsV2Test extends AbstractClientApiTest {
 
     @Test
     public void upload() throws IOException {
+        Path application = this.folder.newFile("application.zip").toPath();
+        createArchive(application, "path/to/content.txt", "path/to/code.jar", "index.html");
+
         mockRequest(InteractionContext.builder()
             .request(TestRequest.builder()
                 .method(PUT).path("/v2/apps/test-application-id/bits")
                 .contents(consumer((headers, body) -> {
+                    byte[] contents = body.readByteArray();
                     String boundary = extractBoundary(headers);
 
-                    assertThat(body.readString(Charset.defaultCharset()))
-                        .isEqualTo("\r\n--" + boundary + "\r\n" +
-                            "content-disposition: form-data; name=\"resources\"\r\n" +
-                            "content-length: 178\r\n" +
-                            "content-type: application/json\r\n" +
-                            "\r\n" +
-                            "[{\"sha1\":\"b907173290db6a155949ab4dc9b2d019dea0c901\",\"fn\":\"path/to/content.txt\",\"size\":123}," +
-                            "{\"sha1\":\"ff84f89760317996b9dd180ab996b079f418396f\",\"fn\":\"path/to/code.jar\",\"size\":123}]" +
-                            "\r\n" + "--" + boundary + "\r\n" +
-                            "content-disposition: form-data; name=\"application\"; filename=\"application.zip\"\r\n" +
-                            "content-length: 13\r\n" +
-                            "content-type: application/zip\r\n" +
-                            "\r\n" +
-                            "test-content\n" +
-                            "\r\n" +
-                            "--" + boundary + "--");
+                    assertThat(new String(extractPart(contents, boundary, "resources"), StandardCharsets.UTF_8))
+                        .isEqualTo("[{\"sha1\":\"b907173290db6a155949ab4dc9b2d019dea0c901\",\"fn\":\"path/to/content.txt\",\"size\":123}," +
+                            "{\"sha1\":\"ff84f89760317996b9dd180ab996b079f418396f\",\"fn\":\"path/to/code.jar\",\"size\":123}]");
+
+                    assertThat(getEntryNames(extractPart(contents, boundary, "application")))
+                        .containsExactly("index.html");
                 }))
                 .build())
             .response(TestResponse.builder()
@@ -987,7 +1131,7 @@ public final class ReactorApplicationsV2Test extends AbstractClientApiTest {
 
         this.applications
             .upload(UploadApplicationRequest.builder()
-                .application(new ClassPathResource("fixtures/client/v2/apps/test-application.zip").getFile().toPath())
+                .application(application)
                 .applicationId("test-application-id")
                 .resource(Resource.builder()
                     .hash("b907173290db6a155949ab4dc9b2d019dea0c901")
@@ -1016,4 +1160,158 @@ public final class ReactorApplicationsV2Test extends AbstractClientApiTest {
             .verify(Duration.ofSeconds(5));
     }
 
+    @Test
+    public void uploadBinaryFile() throws IOException {
+        byte[] expected = new byte[1_024 * 1_024 + 17];
+        new Random(0).nextBytes(expected);
+
+        Path application = this.folder.newFile("application.zip").toPath();
+        Files.write(application, expected);
+
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(PUT).path("/v2/apps/test-application-id/bits")
+                .contents(consumer((headers, body) -> assertThat(extractPart(body.readByteArray(), extractBoundary(headers), "application")).isEqualTo(expected)))
+                .build())
+            .response(TestResponse.builder()
+                .status(CREATED)
+                .payload("fixtures/client/v2/apps/PUT_{id}_bits_response.json")
+                .build())
+            .build());
+
+        this.applications
+            .upload(UploadApplicationRequest.builder()
+                .application(application)
+                .applicationId("test-application-id")
+                .build())
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void uploadDirectoryExcludesMatchedResources() throws IOException {
+        Path application = this.folder.newFolder("application").toPath();
+        Files.createDirectories(application.resolve("path/to"));
+        Files.write(application.resolve("path/to/content.txt"), "test-matched".getBytes(StandardCharsets.UTF_8));
+        Files.write(application.resolve("index.html"), "test-unmatched".getBytes(StandardCharsets.UTF_8));
+
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(PUT).path("/v2/apps/test-application-id/bits")
+                .contents(consumer((headers, body) -> {
+                    byte[] archive = extractPart(body.readByteArray(), extractBoundary(headers), "application");
+
+                    assertThat(getEntryNames(archive))
+                        .contains("index.html")
+                        .doesNotContain("path/to/content.txt");
+                }))
+                .build())
+            .response(TestResponse.builder()
+                .status(CREATED)
+                .payload("fixtures/client/v2/apps/PUT_{id}_bits_response.json")
+                .build())
+            .build());
+
+        this.applications
+            .upload(UploadApplicationRequest.builder()
+                .application(application)
+                .applicationId("test-application-id")
+                .resource(Resource.builder()
+                    .hash("b907173290db6a155949ab4dc9b2d019dea0c901")
+                    .path("path/to/content.txt")
+                    .size(12)
+                    .build())
+                .build())
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void uploadDirectoryStreaming() throws IOException {
+        Path application = this.folder.newFolder("application").toPath();
+        Files.createDirectories(application.resolve("path/to"));
+        Files.write(application.resolve("path/to/content.txt"), "test-matched".getBytes(StandardCharsets.UTF_8));
+        Files.write(application.resolve("index.html"), "test-unmatched".getBytes(StandardCharsets.UTF_8));
+
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(PUT).path("/v2/apps/test-application-id/bits")
+                .contents(consumer((headers, body) -> {
+                    assertThat(headers.get("Transfer-Encoding")).isEqualTo("chunked");
+
+                    byte[] archive = extractPart(body.readByteArray(), extractBoundary(headers), "application");
+
+                    assertThat(getEntryNames(archive))
+                        .contains("index.html")
+                        .doesNotContain("path/to/content.txt");
+                }))
+                .build())
+            .response(TestResponse.builder()
+                .status(CREATED)
+                .payload("fixtures/client/v2/apps/PUT_{id}_bits_response.json")
+                .build())
+            .build());
+
+        ConnectionContext connectionContext = DefaultConnectionContext.builder()
+            .apiHost("localhost")
+            .httpClient(HttpClient.create())
+            .streamingUploads(true)
+            .build();
+
+        new ReactorApplicationsV2(connectionContext, this.root, TOKEN_PROVIDER)
+            .upload(UploadApplicationRequest.builder()
+                .application(application)
+                .applicationId("test-application-id")
+                .resource(Resource.builder()
+                    .hash("b907173290db6a155949ab4dc9b2d019dea0c901")
+                    .path("path/to/content.txt")
+                    .size(12)
+                    .build())
+                .build())
+            .as(StepVerifier::create)
+            .expectNextCount(1)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    private static void createArchive(Path archive, String... names) throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+            for (String name : names) {
+                out.putNextEntry(new ZipEntry(name));
+                out.write(String.format("test-%s", name).getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+    }
+
+    private static byte[] extractPart(byte[] body, String boundary, String name) {
+        String contents = new String(body, StandardCharsets.ISO_8859_1);
+
+        int disposition = contents.indexOf(String.format("name=\"%s\"", name));
+        assertThat(disposition).as("Has part %s", name).isNotEqualTo(-1);
+
+        int start = contents.indexOf("\r\n\r\n", disposition) + 4;
+        int end = contents.indexOf("\r\n--" + boundary, start);
+
+        return contents.substring(start, end).getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static List<String> getEntryNames(byte[] archive) {
+        List<String> names = new ArrayList<>();
+
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                names.add(entry.getName());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        return names;
+    }
+
 }
@@ -167,4 +167,28 @@ public final class ReactorEventsTest extends AbstractClientApiTest {
             .verify(Duration.ofSeconds(5));
     }
 
+    @Test
+    public void listResources() {
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(GET).path("/v2/events?q=actee:test-actee&page=-1")
+                .build())
+            .response(TestResponse.builder()
+                .status(OK)
+                .payload("fixtures/client/v2/events/GET_response.json")
+                .build())
+            .build());
+
+        this.events
+            .listResources(ListEventsRequest.builder()
+                .actee("test-actee")
+                .page(-1)
+                .build())
+            .map(resource -> resource.getMetadata().getId())
+            .as(StepVerifier::create)
+            .expectNext("2cc565c7-18e7-4fff-8fb0-52525f09ee6b", "a82493b7-bd16-421b-aef0-d0b5c40869e8", "4a0e6a34-2807-44cd-a5cc-b61890662ade")
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
 }
@@ -47,12 +47,18 @@ import org.cloudfoundry.reactor.TestResponse;
 import org.cloudfoundry.reactor.client.AbstractClientApiTest;
 import org.cloudfoundry.util.FluentMap;
 import org.cloudfoundry.util.OperationUtils;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.springframework.core.io.ClassPathResource;
 import reactor.test.StepVerifier;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.channels.Channels;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Collections;
 
@@ -66,6 +72,9 @@ import static org.cloudfoundry.util.tuple.TupleUtils.consumer;
 
 public final class ReactorPackagesTest extends AbstractClientApiTest {
 
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
     private final ReactorPackages packages = new ReactorPackages(CONNECTION_CONTEXT, this.root, TOKEN_PROVIDER);
 
     @Test
@@ -197,6 +206,60 @@ public final class ReactorPackagesTest extends AbstractClientApiTest {
             .verify(Duration.ofSeconds(5));
     }
 
+    @Test
+    public void downloadChannel() {
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(GET).path("/v3/packages/test-package-id/download")
+                .build())
+            .response(TestResponse.builder()
+                .status(OK)
+                .payload("fixtures/client/v3/packages/GET_{id}_download_response.bin")
+                .build())
+            .build());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] expected = getBytes("fixtures/client/v3/packages/GET_{id}_download_response.bin");
+
+        this.packages
+            .download(DownloadPackageRequest.builder()
+                .packageId("test-package-id")
+                .build(), Channels.newChannel(out))
+            .as(StepVerifier::create)
+            .expectNext((long) expected.length)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(out.toByteArray()).isEqualTo(expected);
+    }
+
+    @Test
+    public void downloadPath() throws IOException {
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(GET).path("/v3/packages/test-package-id/download")
+                .build())
+            .response(TestResponse.builder()
+                .status(OK)
+                .payload("fixtures/client/v3/packages/GET_{id}_download_response.bin")
+                .build())
+            .build());
+
+        Path destination = this.folder.newFile().toPath();
+        byte[] expected = getBytes("fixtures/client/v3/packages/GET_{id}_download_response.bin");
+
+        this.packages
+            .download(DownloadPackageRequest.builder()
+                .packageId("test-package-id")
+                .build(), destination)
+            .as(StepVerifier::create)
+            .expectNext((long) expected.length)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(Files.readAllBytes(destination)).isEqualTo(expected);
+    }
+
     @Test
     public void get() {
         mockRequest(InteractionContext.builder()
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+import org.cloudfoundry.doppler.CounterEvent;
+import org.cloudfoundry.doppler.Envelope;
+import org.cloudfoundry.doppler.EventType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class ConnectionStatisticsTest {
+
+    @Test
+    public void counterEvents() {
+        List<Envelope> alerts = new ArrayList<>();
+        ConnectionStatistics statistics = new ConnectionStatistics(0, alerts::add);
+
+        statistics.onConnect();
+        statistics.onEnvelope(counterEvent(ConnectionStatistics.DROPPED_MESSAGES, 10L));
+        statistics.onEnvelope(counterEvent(ConnectionStatistics.DROPPED_MESSAGES, 5L));
+        statistics.onEnvelope(counterEvent(ConnectionStatistics.SLOW_CONSUMER, 1L));
+        statistics.onEnvelope(counterEvent("test-name", 1L));
+
+        assertThat(statistics.getEnvelopes()).isEqualTo(4);
+        assertThat(statistics.getDroppedEnvelopes()).isEqualTo(15);
+        assertThat(statistics.getSlowConsumerAlerts()).isEqualTo(1);
+        assertThat(alerts).hasSize(1);
+    }
+
+    @Test
+    public void reconnect() {
+        ConnectionStatistics statistics = new ConnectionStatistics(0, null);
+
+        statistics.onConnect();
+        statistics.onEnvelope(counterEvent("test-name", 1L));
+        statistics.onDisconnect();
+        statistics.onConnect();
+        statistics.onEnvelope(counterEvent("test-name", 1L));
+
+        assertThat(statistics.getDisconnects()).isEqualTo(1);
+        assertThat(statistics.getReconnects()).isEqualTo(1);
+        assertThat(statistics.getEnvelopes()).isEqualTo(2);
+        assertThat(statistics.getLastReconnectLatency().isNegative()).isFalse();
+    }
+
+    private static Envelope counterEvent(String name, long delta) {
+        return Envelope.builder()
+            .counterEvent(CounterEvent.builder()
+                .delta(delta)
+                .name(name)
+                .build())
+            .eventType(EventType.COUNTER_EVENT)
+            .origin("test-origin")
+            .build();
+    }
+
+}
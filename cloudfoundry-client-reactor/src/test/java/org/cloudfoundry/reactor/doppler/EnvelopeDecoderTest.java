@@ -0,0 +1,157 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import okio.ByteString;
+import org.cloudfoundry.doppler.Envelope;
+import org.cloudfoundry.doppler.EventType;
+import org.cloudfoundry.dropsonde.events.CounterEvent;
+import org.cloudfoundry.dropsonde.events.HttpStartStop;
+import org.cloudfoundry.dropsonde.events.LogMessage;
+import org.cloudfoundry.dropsonde.events.Method;
+import org.cloudfoundry.dropsonde.events.PeerType;
+import org.cloudfoundry.dropsonde.events.UUID;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class EnvelopeDecoderTest {
+
+    @Test
+    public void counterEvent() {
+        assertDecoded(new org.cloudfoundry.dropsonde.events.Envelope.Builder()
+            .counterEvent(new CounterEvent.Builder()
+                .delta(1L)
+                .name("test-name")
+                .total(2L)
+                .build())
+            .eventType(org.cloudfoundry.dropsonde.events.Envelope.EventType.CounterEvent)
+            .origin("test-origin")
+            .build());
+    }
+
+    @Test
+    public void filter() {
+        ByteBuf buffer = Unpooled.wrappedBuffer(org.cloudfoundry.dropsonde.events.Envelope.ADAPTER.encode(new org.cloudfoundry.dropsonde.events.Envelope.Builder()
+            .counterEvent(new CounterEvent.Builder()
+                .delta(1L)
+                .name("test-name")
+                .build())
+            .eventType(org.cloudfoundry.dropsonde.events.Envelope.EventType.CounterEvent)
+            .origin("test-origin")
+            .build()));
+
+        assertThat(EnvelopeDecoder.filter(Collections.emptySet(), Collections.emptySet()).test(buffer)).isTrue();
+        assertThat(EnvelopeDecoder.filter(EnumSet.of(EventType.COUNTER_EVENT), Collections.emptySet()).test(buffer)).isTrue();
+        assertThat(EnvelopeDecoder.filter(EnumSet.of(EventType.LOG_MESSAGE), Collections.emptySet()).test(buffer)).isFalse();
+        assertThat(EnvelopeDecoder.filter(Collections.emptySet(), Collections.singleton("test-origin")).test(buffer)).isTrue();
+        assertThat(EnvelopeDecoder.filter(EnumSet.of(EventType.COUNTER_EVENT), Collections.singleton("test-other-origin")).test(buffer)).isFalse();
+        assertThat(buffer.readerIndex()).isEqualTo(0);
+    }
+
+    @Test
+    public void httpStartStop() {
+        assertDecoded(new org.cloudfoundry.dropsonde.events.Envelope.Builder()
+            .deployment("test-deployment")
+            .eventType(org.cloudfoundry.dropsonde.events.Envelope.EventType.HttpStartStop)
+            .httpStartStop(new HttpStartStop.Builder()
+                .applicationId(new UUID.Builder().high(1L).low(2L).build())
+                .contentLength(3L)
+                .forwarded(Arrays.asList("test-forwarded-1", "test-forwarded-2"))
+                .instanceId("test-instance-id")
+                .instanceIndex(4)
+                .method(Method.PUT)
+                .peerType(PeerType.Server)
+                .remoteAddress("test-remote-address")
+                .requestId(new UUID.Builder().high(5L).low(-6L).build())
+                .startTimestamp(7L)
+                .statusCode(200)
+                .stopTimestamp(8L)
+                .uri("test-uri")
+                .userAgent("test-user-agent")
+                .build())
+            .index("test-index")
+            .ip("test-ip")
+            .job("test-job")
+            .origin("test-origin")
+            .tags(Collections.singletonMap("test-key", "test-value"))
+            .timestamp(9L)
+            .build());
+    }
+
+    @Test
+    public void logMessage() {
+        org.cloudfoundry.dropsonde.events.Envelope dropsonde = new org.cloudfoundry.dropsonde.events.Envelope.Builder()
+            .eventType(org.cloudfoundry.dropsonde.events.Envelope.EventType.LogMessage)
+            .logMessage(new LogMessage.Builder()
+                .app_id("test-application-id")
+                .message(ByteString.encodeUtf8("test-message ☃"))
+                .message_type(LogMessage.MessageType.ERR)
+                .source_instance("test-source-instance")
+                .source_type("test-source-type")
+                .timestamp(1L)
+                .build())
+            .origin("test-origin")
+            .build();
+
+        assertDecoded(dropsonde);
+        assertDecoded(dropsonde);
+    }
+
+    @Test
+    public void unknownEnumeratedValue() {
+        ByteBuf logMessage = Unpooled.buffer()
+            .writeByte(0x0A).writeByte(4).writeBytes("test".getBytes(StandardCharsets.UTF_8))
+            .writeByte(0x10).writeByte(7)
+            .writeByte(0x18).writeByte(1);
+
+        ByteBuf buffer = Unpooled.buffer()
+            .writeByte(0x0A).writeByte(11).writeBytes("test-origin".getBytes(StandardCharsets.UTF_8))
+            .writeByte(0x10).writeByte(org.cloudfoundry.dropsonde.events.Envelope.EventType.LogMessage.getValue())
+            .writeByte(0x42).writeByte(logMessage.readableBytes()).writeBytes(logMessage);
+
+        assertThat(EnvelopeDecoder.filter(EnumSet.of(EventType.LOG_MESSAGE), Collections.emptySet()).test(buffer)).isTrue();
+        assertThat(EnvelopeDecoder.decode(buffer)).isEmpty();
+        assertThat(buffer.isReadable()).isFalse();
+    }
+
+    @Test
+    public void unknownEventType() {
+        ByteBuf buffer = Unpooled.buffer()
+            .writeByte(0x0A).writeByte(11).writeBytes("test-origin".getBytes(StandardCharsets.UTF_8))
+            .writeByte(0x10).writeByte(99);
+
+        assertThat(EnvelopeDecoder.filter(EnumSet.of(EventType.LOG_MESSAGE), Collections.emptySet()).test(buffer)).isFalse();
+        assertThat(EnvelopeDecoder.filter(Collections.emptySet(), Collections.emptySet()).test(buffer)).isTrue();
+        assertThat(EnvelopeDecoder.decode(buffer)).isEmpty();
+        assertThat(buffer.isReadable()).isFalse();
+    }
+
+    private static void assertDecoded(org.cloudfoundry.dropsonde.events.Envelope dropsonde) {
+        byte[] encoded = org.cloudfoundry.dropsonde.events.Envelope.ADAPTER.encode(dropsonde);
+
+        assertThat(EnvelopeDecoder.decode(Unpooled.wrappedBuffer(encoded))).contains(Envelope.from(dropsonde));
+    }
+
+}
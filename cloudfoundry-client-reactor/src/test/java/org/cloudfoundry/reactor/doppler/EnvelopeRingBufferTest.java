@@ -0,0 +1,183 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+import org.cloudfoundry.doppler.Envelope;
+import org.cloudfoundry.doppler.EventType;
+import org.cloudfoundry.doppler.ValueMetric;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class EnvelopeRingBufferTest {
+
+    private final AtomicLongArray dropped = new AtomicLongArray(EventType.values().length);
+
+    @Test
+    public void dropNewest() {
+        StepVerifier.create(buffer(OverflowStrategy.DROP_NEWEST), 0)
+            .thenRequest(10)
+            .expectNext(envelope(0), envelope(1), envelope(2), envelope(3))
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.dropped.get(EventType.VALUE_METRIC.ordinal())).isEqualTo(6);
+    }
+
+    @Test
+    public void dropOldest() {
+        StepVerifier.create(buffer(OverflowStrategy.DROP_OLDEST), 0)
+            .thenRequest(10)
+            .expectNext(envelope(6), envelope(7), envelope(8), envelope(9))
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.dropped.get(EventType.VALUE_METRIC.ordinal())).isEqualTo(6);
+    }
+
+    @Test
+    public void sample() {
+        Collector collector = new Collector();
+        EnvelopeRingBuffer buffer = new EnvelopeRingBuffer(collector, 8, OverflowStrategy.SAMPLE, this.dropped);
+        buffer.onSubscribe(Operators.emptySubscription());
+
+        // Up to half full, every envelope is admitted; above it, each type is sampled
+        for (int i = 0; i < 5; i++) {
+            assertThat(offer(buffer, EventType.LOG_MESSAGE)).isTrue();
+        }
+        assertThat(offer(buffer, EventType.LOG_MESSAGE)).isTrue();
+        assertThat(offer(buffer, EventType.LOG_MESSAGE)).isFalse();
+        assertThat(offer(buffer, EventType.LOG_MESSAGE)).isTrue();
+
+        // With 7 of 8 buffered, 1 in 4 of each type is admitted
+        assertThat(sample(buffer, collector, 8)).containsExactly(2, 2);
+
+        collector.subscription.request(2);
+
+        // With 5 of 8 buffered, 1 in 2 of each type is admitted
+        assertThat(sample(buffer, collector, 8)).containsExactly(4, 4);
+
+        collector.subscription.request(Long.MAX_VALUE);
+        buffer.onComplete();
+
+        assertThat(collector.received).extracting(Envelope::getEventType).contains(EventType.COUNTER_EVENT, EventType.LOG_MESSAGE, EventType.VALUE_METRIC);
+        assertThat(collector.received).hasSize(19);
+        assertThat(collector.completed).isTrue();
+        assertThat(this.dropped.get(EventType.COUNTER_EVENT.ordinal())).isEqualTo(10);
+        assertThat(this.dropped.get(EventType.LOG_MESSAGE.ordinal())).isEqualTo(1);
+        assertThat(this.dropped.get(EventType.VALUE_METRIC.ordinal())).isEqualTo(10);
+    }
+
+    @Test
+    public void unbounded() {
+        StepVerifier.create(buffer(OverflowStrategy.DROP_OLDEST))
+            .expectNextCount(10)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.dropped.get(EventType.VALUE_METRIC.ordinal())).isEqualTo(0);
+    }
+
+    private static Envelope envelope(EventType eventType) {
+        return Envelope.builder()
+            .eventType(eventType)
+            .origin("test-origin")
+            .build();
+    }
+
+    private static Envelope envelope(int value) {
+        return Envelope.builder()
+            .eventType(EventType.VALUE_METRIC)
+            .origin("test-origin")
+            .valueMetric(ValueMetric.builder()
+                .name("test-name")
+                .unit("test-unit")
+                .value((double) value)
+                .build())
+            .build();
+    }
+
+    private Flux<Envelope> buffer(OverflowStrategy strategy) {
+        Flux<Envelope> source = Flux.range(0, 10).map(EnvelopeRingBufferTest::envelope);
+        return Flux.from(subscriber -> source.subscribe(new EnvelopeRingBuffer(subscriber, 4, strategy, this.dropped)));
+    }
+
+    private boolean offer(EnvelopeRingBuffer buffer, EventType eventType) {
+        long dropped = this.dropped.get(eventType.ordinal());
+        buffer.onNext(envelope(eventType));
+        return this.dropped.get(eventType.ordinal()) == dropped;
+    }
+
+    /**
+     * Offers {@code count} envelopes of each of two event types, alternately, consuming each admitted envelope so that the number buffered stays the same
+     *
+     * @return the number of envelopes of each type that were admitted
+     */
+    private int[] sample(EnvelopeRingBuffer buffer, Collector collector, int count) {
+        int[] admitted = new int[2];
+
+        for (int i = 0; i < count * 2; i++) {
+            if (offer(buffer, i % 2 == 0 ? EventType.VALUE_METRIC : EventType.COUNTER_EVENT)) {
+                admitted[i % 2]++;
+                collector.subscription.request(1);
+            }
+        }
+
+        return admitted;
+    }
+
+    private static final class Collector implements Subscriber<Envelope> {
+
+        private final List<Envelope> received = new ArrayList<>();
+
+        private boolean completed;
+
+        private Subscription subscription;
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            throw new AssertionError(t);
+        }
+
+        @Override
+        public void onNext(Envelope envelope) {
+            this.received.add(envelope);
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.subscription = s;
+        }
+
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.doppler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.TooLongFrameException;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public final class MultipartDecoderTest {
+
+    private static final String PAYLOAD = "preamble\r\n--test-boundary\r\n\r\nalpha\r\n--test-boundary\r\nContent-Type: test-type\r\n\r\nbeta\r\n--test-boundary--\r\nepilogue";
+
+    @Test
+    public void decode() {
+        EmbeddedChannel channel = new EmbeddedChannel(new MultipartDecoder("test-boundary", 1024));
+        channel.writeInbound(Unpooled.copiedBuffer(PAYLOAD, StandardCharsets.US_ASCII));
+
+        assertThat(readPart(channel)).isEqualTo("alpha");
+        assertThat(readPart(channel)).isEqualTo("beta");
+        assertThat((Object) channel.readInbound()).isNull();
+    }
+
+    @Test
+    public void decodeSplit() {
+        EmbeddedChannel channel = new EmbeddedChannel(new MultipartDecoder("test-boundary", 1024));
+        byte[] payload = PAYLOAD.getBytes(StandardCharsets.US_ASCII);
+
+        for (byte b : payload) {
+            channel.writeInbound(Unpooled.wrappedBuffer(new byte[]{b}));
+        }
+
+        assertThat(readPart(channel)).isEqualTo("alpha");
+        assertThat(readPart(channel)).isEqualTo("beta");
+        assertThat((Object) channel.readInbound()).isNull();
+    }
+
+    @Test
+    public void decodeSplitAtLimit() {
+        String payload = "--test-boundary\r\n\r\n12345678\r\n--test-boundary--\r\n";
+        int start = payload.indexOf("12345678") + 8;
+
+        for (int split = start; split < payload.length(); split++) {
+            EmbeddedChannel channel = new EmbeddedChannel(new MultipartDecoder("test-boundary", 8));
+            channel.writeInbound(Unpooled.copiedBuffer(payload.substring(0, split), StandardCharsets.US_ASCII));
+            channel.writeInbound(Unpooled.copiedBuffer(payload.substring(split), StandardCharsets.US_ASCII));
+
+            assertThat(readPart(channel)).isEqualTo("12345678");
+            assertThat((Object) channel.readInbound()).isNull();
+        }
+    }
+
+    @Test
+    public void decodeTooLong() {
+        EmbeddedChannel channel = new EmbeddedChannel(new MultipartDecoder("test-boundary", 8));
+
+        assertThatThrownBy(() -> channel.writeInbound(Unpooled.copiedBuffer("--test-boundary\r\n\r\nalpha\r\n--test-boundary\r\n\r\nbeta-too-long\r\n--test-boundary--\r\n",
+            StandardCharsets.US_ASCII)))
+            .isInstanceOf(TooLongFrameException.class)
+            .hasMessageContaining("part exceeds 8 bytes");
+
+        assertThat(readPart(channel)).isEqualTo("alpha");
+        assertThat((Object) channel.readInbound()).isNull();
+    }
+
+    private static String readPart(EmbeddedChannel channel) {
+        ByteBuf part = channel.readInbound();
+
+        try {
+            return part.toString(StandardCharsets.US_ASCII);
+        } finally {
+            part.release();
+        }
+    }
+
+}
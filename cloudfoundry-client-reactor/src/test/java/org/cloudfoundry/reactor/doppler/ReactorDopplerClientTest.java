@@ -173,6 +173,29 @@ public final class ReactorDopplerClientTest extends AbstractDopplerApiTest {
             .verify(Duration.ofSeconds(5));
     }
 
+    @Test
+    public void recentLogsFiltered() {
+        mockRequest(InteractionContext.builder()
+            .request(TestRequest.builder()
+                .method(GET).path("/apps/test-application-id/recentlogs")
+                .build())
+            .response(TestResponse.builder()
+                .status(OK)
+                .contentType("multipart/x-protobuf; boundary=92d42123ec83c0af6a27ba0de34528b702a53e2e67ba99636286b6a4cafb")
+                .payload("fixtures/doppler/apps/GET_{id}_recentlogs_response.bin")
+                .build())
+            .build());
+
+        this.dopplerEndpoints
+            .recentLogs(RecentLogsRequest.builder()
+                .applicationId("test-application-id")
+                .eventType(EventType.CONTAINER_METRIC)
+                .build())
+            .as(StepVerifier::create)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
     @Test
     public void recentLogsLarge() {
         mockRequest(InteractionContext.builder()
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.cloudfoundry.reactor.doppler;
+
+import org.cloudfoundry.UnknownCloudFoundryException;
+import org.cloudfoundry.doppler.CounterEvent;
+import org.cloudfoundry.doppler.Envelope;
+import org.cloudfoundry.doppler.EventType;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class ReactorDopplerEndpointsTest {
+
+    private static final Envelope ENVELOPE = Envelope.builder()
+        .counterEvent(CounterEvent.builder()
+            .delta(1L)
+            .name("test-name")
+            .build())
+        .eventType(EventType.COUNTER_EVENT)
+        .origin("test-origin")
+        .build();
+
+    @Test
+    public void reconnectGiveUpTransientError() {
+        ConnectionStatistics statistics = new ConnectionStatistics(0, null);
+        AtomicInteger subscriptions = new AtomicInteger();
+
+        StepVerifier.withVirtualTime(() -> ReactorDopplerEndpoints.reconnect(onConnect -> {
+            subscriptions.incrementAndGet();
+            return Flux.error(new IOException("test-message"));
+        }, statistics))
+            .thenAwait(Duration.ofHours(1))
+            .expectError(IOException.class)
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(subscriptions.get()).isEqualTo(11);
+        assertThat(statistics.getDisconnects()).isEqualTo(11);
+    }
+
+    @Test
+    public void reconnectPermanentError() {
+        ConnectionStatistics statistics = new ConnectionStatistics(0, null);
+        AtomicInteger subscriptions = new AtomicInteger();
+
+        StepVerifier.withVirtualTime(() -> ReactorDopplerEndpoints.reconnect(onConnect -> {
+            subscriptions.incrementAndGet();
+            return Flux.error(new UnknownCloudFoundryException(404, "test-payload"));
+        }, statistics))
+            .thenAwait(Duration.ofHours(1))
+            .expectError(UnknownCloudFoundryException.class)
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(subscriptions.get()).isEqualTo(1);
+        assertThat(statistics.getReconnects()).isEqualTo(0);
+    }
+
+    @Test
+    public void reconnectTransientError() {
+        ConnectionStatistics statistics = new ConnectionStatistics(0, null);
+        AtomicInteger subscriptions = new AtomicInteger();
+
+        StepVerifier.withVirtualTime(() -> ReactorDopplerEndpoints.reconnect(onConnect -> {
+            switch (subscriptions.incrementAndGet()) {
+                case 1:
+                    return Flux.error(new IOException("test-message"));
+                case 2:
+                    onConnect.run();
+                    return Flux.just(ENVELOPE);
+                case 3:
+                    onConnect.run();
+                    return Flux.error(new UnknownCloudFoundryException(503, "test-payload"));
+                default:
+                    return Flux.error(new UnknownCloudFoundryException(403, "test-payload"));
+            }
+        }, statistics))
+            .thenAwait(Duration.ofHours(1))
+            .expectNext(ENVELOPE)
+            .thenAwait(Duration.ofHours(1))
+            .expectError(UnknownCloudFoundryException.class)
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(subscriptions.get()).isEqualTo(4);
+        assertThat(statistics.getReconnects()).isEqualTo(1);
+        assertThat(statistics.getDisconnects()).isEqualTo(4);
+    }
+
+}
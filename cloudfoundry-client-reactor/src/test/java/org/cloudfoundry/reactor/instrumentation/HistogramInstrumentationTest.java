@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.instrumentation;
+
+import org.cloudfoundry.reactor.HttpExchange;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class HistogramInstrumentationTest {
+
+    private final HistogramInstrumentation instrumentation = new HistogramInstrumentation();
+
+    @Test
+    public void maximumEndpoints() {
+        HistogramInstrumentation instrumentation = new HistogramInstrumentation(2);
+
+        instrumentation.record(exchange("/v2/apps/alpha", 200, 0));
+        instrumentation.record(exchange("/v2/apps/bravo", 200, 0));
+        instrumentation.record(exchange("/v2/apps/charlie", 200, 0));
+        instrumentation.record(exchange("/v2/apps/delta", 200, 0));
+        instrumentation.record(exchange("/v2/apps/alpha", 200, 0));
+
+        assertThat(instrumentation.getEndpoints()).containsOnlyKeys("GET /v2/apps/alpha", "GET /v2/apps/bravo", HistogramInstrumentation.OTHER);
+        assertThat(instrumentation.getEndpoints().get("GET /v2/apps/alpha").getLatency().getCount()).isEqualTo(2);
+        assertThat(instrumentation.getEndpoints().get(HistogramInstrumentation.OTHER).getLatency().getCount()).isEqualTo(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maximumEndpointsInvalid() {
+        new HistogramInstrumentation(0);
+    }
+
+    @Test
+    public void record() {
+        this.instrumentation.record(exchange(200, 2));
+        this.instrumentation.record(exchange(null, 0));
+
+        EndpointStatistics statistics = this.instrumentation.getEndpoints().get("GET /v2/apps/{id}");
+
+        assertThat(statistics.getBytesIn()).isEqualTo(100);
+        assertThat(statistics.getBytesOut()).isEqualTo(0);
+        assertThat(statistics.getLatency().getCount()).isEqualTo(2);
+        assertThat(statistics.getLatency().getMaximum()).isEqualTo(Duration.ofMillis(20).toNanos());
+        assertThat(statistics.getRetries()).isEqualTo(2);
+        assertThat(statistics.getStatusCount(0)).isEqualTo(1);
+        assertThat(statistics.getStatusCount(2)).isEqualTo(1);
+        assertThat(statistics.getTimeToFirstByte().getCount()).isEqualTo(1);
+        assertThat(statistics.getTokenWait().getCount()).isEqualTo(2);
+    }
+
+    private static HttpExchange exchange(Integer status, int retries) {
+        return exchange("/v2/apps/{id}", status, retries);
+    }
+
+    private static HttpExchange exchange(String endpoint, Integer status, int retries) {
+        return HttpExchange.builder()
+            .bytesIn(status == null ? null : 100L)
+            .endpoint(endpoint)
+            .latency(Duration.ofMillis(20))
+            .method("GET")
+            .retries(retries)
+            .status(status)
+            .timeToFirstByte(status == null ? null : Duration.ofMillis(10))
+            .tokenWait(Duration.ofMillis(1))
+            .build();
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.instrumentation;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class HistogramTest {
+
+    private final Histogram histogram = new Histogram();
+
+    @Test
+    public void empty() {
+        assertThat(this.histogram.getCount()).isEqualTo(0);
+        assertThat(this.histogram.getMaximum()).isEqualTo(0);
+        assertThat(this.histogram.getMean()).isEqualTo(0);
+        assertThat(this.histogram.getPercentile(0.5)).isEqualTo(0);
+    }
+
+    @Test
+    public void percentiles() {
+        for (int i = 1; i <= 1_000; i++) {
+            this.histogram.record(i);
+        }
+
+        assertThat(this.histogram.getCount()).isEqualTo(1_000);
+        assertThat(this.histogram.getMaximum()).isEqualTo(1_000);
+        assertThat(this.histogram.getMean()).isEqualTo(500.5);
+        assertThat(this.histogram.getPercentile(0.5)).isBetween(500L, 500L + 500L / 8);
+        assertThat(this.histogram.getPercentile(0.9)).isBetween(900L, 900L + 900L / 8);
+        assertThat(this.histogram.getPercentile(1)).isEqualTo(1_000);
+    }
+
+    @Test
+    public void upperBounds() {
+        for (long value : new long[]{0, 1, 7, 8, 9, 15, 16, 1_000_000, Long.MAX_VALUE}) {
+            int index = Histogram.index(value);
+
+            assertThat(Histogram.upperBound(index)).isGreaterThanOrEqualTo(value);
+
+            if (index > 0) {
+                assertThat(Histogram.upperBound(index - 1)).isLessThan(value);
+            }
+        }
+    }
+
+}
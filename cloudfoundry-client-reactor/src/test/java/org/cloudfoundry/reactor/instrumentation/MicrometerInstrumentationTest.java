@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.instrumentation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.cloudfoundry.reactor.HttpExchange;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class MicrometerInstrumentationTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final MicrometerInstrumentation instrumentation = new MicrometerInstrumentation(this.registry);
+
+    @Test
+    public void maximumEndpoints() {
+        MicrometerInstrumentation instrumentation = new MicrometerInstrumentation(this.registry, "test", 2);
+
+        instrumentation.record(exchange("/v2/apps/alpha", 200, 0));
+        instrumentation.record(exchange("/v2/apps/bravo", 200, 0));
+        instrumentation.record(exchange("/v2/apps/charlie", 200, 0));
+        instrumentation.record(exchange("/v2/apps/delta", 200, 0));
+
+        assertThat(this.registry.find("test").tags("endpoint", "/v2/apps/alpha").timer()).isNotNull();
+        assertThat(this.registry.find("test").tags("endpoint", "/v2/apps/charlie").timer()).isNull();
+        assertThat(this.registry.find("test").tags("endpoint", HistogramInstrumentation.OTHER).timer().count()).isEqualTo(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maximumEndpointsInvalid() {
+        new MicrometerInstrumentation(this.registry, "test", 0);
+    }
+
+    @Test
+    public void record() {
+        this.instrumentation.record(exchange("/v2/apps/{id}", 200, 2));
+        this.instrumentation.record(exchange("/v2/apps/{id}", 200, 0));
+        this.instrumentation.record(exchange("/v2/apps/{id}", null, 0));
+
+        Timer latency = this.registry.find(MicrometerInstrumentation.DEFAULT_NAME).tags("method", "GET", "endpoint", "/v2/apps/{id}", "status", "200").timer();
+        assertThat(latency.count()).isEqualTo(2);
+        assertThat(latency.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(40);
+
+        assertThat(this.registry.find(MicrometerInstrumentation.DEFAULT_NAME + ".bytes.in").tags("status", "200").summary().totalAmount()).isEqualTo(200);
+        assertThat(this.registry.find(MicrometerInstrumentation.DEFAULT_NAME + ".bytes.out").tags("status", "200").summary().totalAmount()).isEqualTo(20);
+        assertThat(this.registry.find(MicrometerInstrumentation.DEFAULT_NAME + ".retries").tags("status", "200").counter().count()).isEqualTo(2);
+        assertThat(this.registry.find(MicrometerInstrumentation.DEFAULT_NAME).tags("status", "none").timer().count()).isEqualTo(1);
+        assertThat(this.registry.find(MicrometerInstrumentation.DEFAULT_NAME + ".first.byte").tags("status", "none").timer().count()).isEqualTo(0);
+    }
+
+    private static HttpExchange exchange(String endpoint, Integer status, int retries) {
+        return HttpExchange.builder()
+            .bytesIn(status == null ? null : 100L)
+            .bytesOut(status == null ? null : 10L)
+            .endpoint(endpoint)
+            .latency(Duration.ofMillis(20))
+            .method("GET")
+            .retries(retries)
+            .status(status)
+            .timeToFirstByte(status == null ? null : Duration.ofMillis(10))
+            .tokenWait(Duration.ofMillis(1))
+            .build();
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.cloudfoundry.reactor.tokenprovider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.cloudfoundry.reactor.ConnectionContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.http.client.HttpClient;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public final class AbstractUaaTokenProviderTest {
+
+    private final ConnectionContext connectionContext = mock(ConnectionContext.class);
+
+    private final MockWebServer mockWebServer = new MockWebServer();
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private volatile Duration lifetime = Duration.ofHours(1);
+
+    private volatile CountDownLatch responses = new CountDownLatch(0);
+
+    @Before
+    public void setUp() {
+        when(this.connectionContext.getHttpClient()).thenReturn(HttpClient.create());
+        when(this.connectionContext.getObjectMapper()).thenReturn(new ObjectMapper());
+        when(this.connectionContext.getRoot("authorization_endpoint")).thenReturn(Mono.just(this.mockWebServer.url("/").uri().toString()));
+
+        this.mockWebServer.setDispatcher(new Dispatcher() {
+
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                int count = AbstractUaaTokenProviderTest.this.requests.incrementAndGet();
+                AbstractUaaTokenProviderTest.this.responses.await(5, TimeUnit.SECONDS);
+
+                return new MockResponse()
+                    .setHeader("Content-Type", "application/json")
+                    .setBody(String.format("{\"access_token\":\"%s\",\"token_type\":\"bearer\",\"refresh_token\":\"test-refresh-token-%d\"}",
+                        getAccessToken(AbstractUaaTokenProviderTest.this.lifetime), count));
+            }
+
+        });
+    }
+
+    @After
+    public void shutdown() throws IOException {
+        this.mockWebServer.shutdown();
+    }
+
+    @Test
+    public void invalidateDuringInitialNegotiation() {
+        ClientCredentialsGrantTokenProvider tokenProvider = ClientCredentialsGrantTokenProvider.builder().build();
+        this.responses = new CountDownLatch(1);
+
+        tokenProvider.getToken(this.connectionContext).subscribe();
+        tokenProvider.invalidate(this.connectionContext);
+        this.responses.countDown();
+
+        assertThat(tokenProvider.getToken(this.connectionContext).block(Duration.ofSeconds(5))).startsWith("bearer ");
+        assertThat(this.requests.get()).isEqualTo(1);
+        assertThat(tokenProvider.getRefreshCount(this.connectionContext)).isEqualTo(0);
+        assertThat(tokenProvider.getUnauthorizedRefreshCount(this.connectionContext)).isEqualTo(0);
+    }
+
+    @Test
+    public void invalidateSingleFlight() throws ExecutionException, InterruptedException {
+        ClientCredentialsGrantTokenProvider tokenProvider = ClientCredentialsGrantTokenProvider.builder().build();
+        String initial = tokenProvider.getToken(this.connectionContext).block(Duration.ofSeconds(5));
+        this.responses = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(8);
+
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    tokenProvider.invalidate(this.connectionContext);
+                    invalidated.countDown();
+                    return tokenProvider.getToken(this.connectionContext).block(Duration.ofSeconds(5));
+                }));
+            }
+
+            start.countDown();
+            assertThat(invalidated.await(5, TimeUnit.SECONDS)).isTrue();
+            this.responses.countDown();
+
+            List<String> tokens = new ArrayList<>();
+            for (Future<String> future : futures) {
+                tokens.add(future.get());
+            }
+
+            assertThat(tokens).doesNotContain(initial).containsOnly(tokens.get(0));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(this.requests.get()).isEqualTo(2);
+        assertThat(tokenProvider.getRefreshCount(this.connectionContext)).isEqualTo(1);
+        assertThat(tokenProvider.getUnauthorizedRefreshCount(this.connectionContext)).isEqualTo(1);
+    }
+
+    @Test
+    public void refreshBeforeExpiration() throws InterruptedException {
+        ClientCredentialsGrantTokenProvider tokenProvider = ClientCredentialsGrantTokenProvider.builder()
+            .refreshMargin(Duration.ofMinutes(2))
+            .build();
+
+        StepVerifier.withVirtualTime(() -> tokenProvider.getToken(this.connectionContext)
+            .thenMany(tokenProvider.getRefreshTokens(this.connectionContext)))
+            .expectNext("test-refresh-token-1")
+            .then(() -> tokenProvider.getToken(this.connectionContext))
+            .then(() -> VirtualTimeScheduler.get().advanceTimeBy(Duration.ofMinutes(59)))
+            .expectNext("test-refresh-token-2")
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+
+        assertRefreshed();
+    }
+
+    @Test
+    public void refreshIdle() {
+        ClientCredentialsGrantTokenProvider tokenProvider = ClientCredentialsGrantTokenProvider.builder()
+            .refreshMargin(Duration.ofMinutes(1))
+            .build();
+        this.lifetime = Duration.ofSeconds(10);
+
+        StepVerifier.withVirtualTime(() -> tokenProvider.getToken(this.connectionContext))
+            .expectNextCount(1)
+            .then(() -> VirtualTimeScheduler.get().advanceTimeBy(Duration.ofSeconds(10)))
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(this.requests.get()).isEqualTo(1);
+        assertThat(tokenProvider.getRefreshCount(this.connectionContext)).isEqualTo(0);
+
+        assertThat(tokenProvider.getToken(this.connectionContext).block(Duration.ofSeconds(5))).startsWith("bearer ");
+        assertThat(this.requests.get()).isEqualTo(2);
+        assertThat(tokenProvider.getRefreshCount(this.connectionContext)).isEqualTo(0);
+        assertThat(tokenProvider.getUnauthorizedRefreshCount(this.connectionContext)).isEqualTo(0);
+    }
+
+    @Test
+    public void refreshShortLivedToken() throws InterruptedException {
+        ClientCredentialsGrantTokenProvider tokenProvider = ClientCredentialsGrantTokenProvider.builder()
+            .refreshMargin(Duration.ofHours(1))
+            .build();
+        this.lifetime = Duration.ofMinutes(10);
+
+        StepVerifier.withVirtualTime(() -> tokenProvider.getToken(this.connectionContext)
+            .thenMany(tokenProvider.getRefreshTokens(this.connectionContext)))
+            .expectNext("test-refresh-token-1")
+            .then(() -> tokenProvider.getToken(this.connectionContext))
+            .then(() -> VirtualTimeScheduler.get().advanceTimeBy(Duration.ofMinutes(6)))
+            .expectNext("test-refresh-token-2")
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+
+        assertRefreshed();
+    }
+
+    private static String getAccessToken(Duration lifetime) {
+        Instant now = Instant.now();
+
+        return Jwts.builder()
+            .setId(String.valueOf(System.nanoTime()))
+            .setIssuedAt(Date.from(now))
+            .setExpiration(Date.from(now.plus(lifetime)))
+            .compact();
+    }
+
+    private void assertRefreshed() throws InterruptedException {
+        assertThat(this.requests.get()).isEqualTo(2);
+        assertThat(this.mockWebServer.takeRequest(5, TimeUnit.SECONDS).getBody().readString(StandardCharsets.UTF_8)).contains("grant_type=client_credentials");
+        assertThat(this.mockWebServer.takeRequest(5, TimeUnit.SECONDS).getBody().readString(StandardCharsets.UTF_8))
+            .contains("grant_type=refresh_token")
+            .contains("refresh_token=test-refresh-token-1");
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import org.cloudfoundry.reactor.HttpExchange;
+import org.junit.After;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.ipc.netty.NettyContext;
+import reactor.ipc.netty.http.client.HttpClientRequest;
+import reactor.ipc.netty.http.client.HttpClientResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public final class ExchangeRecorderTest {
+
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+
+    private final List<HttpExchange> exchanges = new ArrayList<>();
+
+    private final HttpClientResponse response = mock(HttpClientResponse.class);
+
+    @After
+    public void finish() {
+        this.channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void awaitBody() {
+        ExchangeRecorder recorder = ExchangeRecorder.create(this.exchanges::add, "GET", true);
+        receive(recorder);
+        recorder.finish(SignalType.ON_COMPLETE);
+
+        this.channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer(new byte[10])));
+        assertThat(this.exchanges).isEmpty();
+
+        this.channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(new byte[5])));
+        assertThat(this.exchanges).hasSize(1);
+        assertThat(this.exchanges.get(0).getBytesIn()).isEqualTo(15L);
+        assertThat(this.exchanges.get(0).getEndpoint()).isEqualTo("/v2/info");
+        assertThat(this.exchanges.get(0).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    public void awaitBodyWebsocket() {
+        ExchangeRecorder recorder = ExchangeRecorder.create(this.exchanges::add, "WS", true);
+        receive(recorder);
+        recorder.finish(SignalType.ON_COMPLETE);
+
+        this.channel.writeInbound(new TextWebSocketFrame("alpha"));
+        this.channel.writeInbound(new TextWebSocketFrame("bravo"));
+        assertThat(this.exchanges).isEmpty();
+
+        this.channel.close();
+        assertThat(this.exchanges).hasSize(1);
+        assertThat(this.exchanges.get(0).getBytesIn()).isEqualTo(10L);
+    }
+
+    @Test
+    public void doNotAwaitBody() {
+        ExchangeRecorder recorder = ExchangeRecorder.create(this.exchanges::add, "GET", false);
+        receive(recorder);
+
+        this.channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer(new byte[10])));
+        this.channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(new byte[5])));
+        assertThat(this.exchanges).isEmpty();
+
+        recorder.finish(SignalType.ON_COMPLETE);
+        assertThat(this.exchanges).hasSize(1);
+        assertThat(this.exchanges.get(0).getBytesIn()).isEqualTo(15L);
+    }
+
+    @Test
+    public void endpoint() {
+        assertThat(ExchangeRecorder.endpoint("https://api.run.pivotal.io/v2/apps/6b5c2a8e-1b2c-4d3e-8f9a-0b1c2d3e4f5a/stats?inline-relations-depth=1"))
+            .isEqualTo("/v2/apps/{id}/stats");
+    }
+
+    @Test
+    public void endpointNoPath() {
+        assertThat(ExchangeRecorder.endpoint("https://api.run.pivotal.io")).isEqualTo("/");
+    }
+
+    @Test
+    public void endpointNumber() {
+        assertThat(ExchangeRecorder.endpoint("https://api.run.pivotal.io/routing/v1/router_groups/12/routes")).isEqualTo("/routing/v1/router_groups/{id}/routes");
+    }
+
+    @Test
+    public void requestBody() {
+        ExchangeRecorder recorder = ExchangeRecorder.create(this.exchanges::add, "POST", false);
+        send(recorder);
+
+        this.channel.writeOutbound(new DefaultHttpContent(Unpooled.wrappedBuffer(new byte[10])));
+        this.channel.writeOutbound(Unpooled.wrappedBuffer(new byte[5]));
+        receive(recorder);
+
+        recorder.finish(SignalType.ON_COMPLETE);
+        assertThat(this.exchanges).hasSize(1);
+        assertThat(this.exchanges.get(0).getBytesOut()).isEqualTo(15L);
+    }
+
+    private void receive(ExchangeRecorder recorder) {
+        when(this.response.addHandler(any(ChannelHandler.class))).thenAnswer(invocation -> {
+            this.channel.pipeline().addLast((ChannelHandler) invocation.getArguments()[0]);
+            return this.response;
+        });
+        when(this.response.responseHeaders()).thenReturn(new DefaultHttpHeaders());
+        when(this.response.status()).thenReturn(HttpResponseStatus.OK);
+
+        Mono.just(this.response)
+            .transform(recorder.response("https://api.run.pivotal.io/v2/info"))
+            .subscribe();
+    }
+
+    private void send(ExchangeRecorder recorder) {
+        HttpClientRequest request = mock(HttpClientRequest.class);
+        NettyContext context = mock(NettyContext.class);
+
+        when(context.addHandler(any(ChannelHandler.class))).thenAnswer(invocation -> {
+            this.channel.pipeline().addLast((ChannelHandler) invocation.getArguments()[0]);
+            return context;
+        });
+        when(request.context()).thenReturn(context);
+
+        recorder.onRequest(request);
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.http.client.HttpClientRequest;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public final class JsonCodecCacheTest {
+
+    private final JsonCodecCache codecs = new JsonCodecCache(ObjectMapper::new);
+
+    private final ObjectMapper objectMapper = mock(ObjectMapper.class);
+
+    private final HttpClientRequest outbound = mock(HttpClientRequest.class);
+
+    @Test
+    public void getReader() {
+        assertThat(this.codecs.getReader(Map.class)).isSameAs(this.codecs.getReader(Map.class));
+    }
+
+    @Test
+    public void getWriter() {
+        assertThat(this.codecs.getWriter(Map.class)).isPresent();
+        assertThat(this.codecs.getWriter(Map.class).get()).isSameAs(this.codecs.getWriter(Map.class).get());
+    }
+
+    @Test
+    public void getWriterNotSerializable() {
+        when(this.objectMapper.canSerialize(Object.class)).thenReturn(false);
+        when(this.outbound.send()).thenReturn(Mono.empty());
+
+        JsonCodecCache codecs = new JsonCodecCache(() -> this.objectMapper);
+        assertThat(codecs.getWriter(Object.class)).isEmpty();
+
+        Flux.from(JsonCodec.encode(codecs.getWriter(Object.class), new Object()).apply(Mono.just(this.outbound)))
+            .as(StepVerifier::create)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        verify(this.outbound).send();
+        verify(this.outbound, never()).sendByteArray(any());
+        verify(this.objectMapper, never()).writerFor(Object.class);
+    }
+
+}
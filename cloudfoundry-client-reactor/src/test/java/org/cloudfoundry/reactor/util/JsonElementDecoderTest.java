@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.TooLongFrameException;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public final class JsonElementDecoderTest {
+
+    @Test
+    public void decode() {
+        EmbeddedChannel channel = new EmbeddedChannel(new JsonElementDecoder("resources", 1024));
+
+        for (byte b : "{\"total_results\":2,\"resources\":[{\"metadata\":{\"id\":\"a\"},\"entity\":{\"name\":\"x}\\\"]\"}},{\"metadata\":{\"id\":\"b\"}}],\"other\":[{}]}"
+            .getBytes(StandardCharsets.UTF_8)) {
+
+            channel.writeInbound(Unpooled.wrappedBuffer(new byte[]{b}));
+        }
+
+        assertThat(readElement(channel)).isEqualTo("{\"metadata\":{\"id\":\"a\"},\"entity\":{\"name\":\"x}\\\"]\"}}");
+        assertThat(readElement(channel)).isEqualTo("{\"metadata\":{\"id\":\"b\"}}");
+        assertThat((Object) channel.readInbound()).isNull();
+    }
+
+    @Test
+    public void decodeOtherField() {
+        EmbeddedChannel channel = new EmbeddedChannel(new JsonElementDecoder("resources", 1024));
+        channel.writeInbound(Unpooled.copiedBuffer("{\"resourcesX\":[1],\"resources\":[2]}", StandardCharsets.UTF_8));
+
+        assertThat(readElement(channel)).isEqualTo("2");
+        assertThat((Object) channel.readInbound()).isNull();
+    }
+
+    @Test
+    public void decodeScalars() {
+        EmbeddedChannel channel = new EmbeddedChannel(new JsonElementDecoder("resources", 1024));
+        channel.writeInbound(Unpooled.copiedBuffer("{\"resources\": [1, \"two\", 3]}", StandardCharsets.UTF_8));
+
+        assertThat(readElement(channel)).isEqualTo("1");
+        assertThat(readElement(channel)).isEqualTo("\"two\"");
+        assertThat(readElement(channel)).isEqualTo("3");
+        assertThat((Object) channel.readInbound()).isNull();
+    }
+
+    @Test
+    public void decodeTooLong() {
+        EmbeddedChannel channel = new EmbeddedChannel(new JsonElementDecoder("resources", 4));
+
+        assertThatThrownBy(() -> channel.writeInbound(Unpooled.copiedBuffer("{\"resources\":[{\"test-key\":\"test-value\"}]}", StandardCharsets.UTF_8)))
+            .isInstanceOf(TooLongFrameException.class);
+    }
+
+    private static String readElement(EmbeddedChannel channel) {
+        ByteBuf element = channel.readInbound();
+
+        try {
+            return element.toString(StandardCharsets.UTF_8);
+        } finally {
+            element.release();
+        }
+    }
+
+}
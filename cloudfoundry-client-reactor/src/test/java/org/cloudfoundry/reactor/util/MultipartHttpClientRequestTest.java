@@ -0,0 +1,64 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.reactor.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class MultipartHttpClientRequestTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void fileReadingFlux() throws IOException {
+        byte[] expected = new byte[3 * 64 * 1_024 + 17];
+        new Random(0).nextBytes(expected);
+
+        Path file = this.folder.newFile("test-file").toPath();
+        Files.write(file, expected);
+
+        List<ByteBuf> buffers = MultipartHttpClientRequest.PartHttpClientRequest.fileReadingFlux(file, ByteBufAllocator.DEFAULT)
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        for (ByteBuf buffer : buffers) {
+            assertThat(buffer.isDirect()).isTrue();
+
+            buffer.readBytes(actual, buffer.readableBytes());
+            assertThat(buffer.release()).isTrue();
+        }
+
+        assertThat(buffers).hasSize(4);
+        assertThat(actual.toByteArray()).isEqualTo(expected);
+    }
+
+}
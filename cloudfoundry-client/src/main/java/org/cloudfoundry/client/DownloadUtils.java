@@ -0,0 +1,89 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.client;
+
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Utilities for writing downloads to channels and files.  These back the default implementations of the channel and file download methods of the client APIs.
+ */
+public final class DownloadUtils {
+
+    private static final int WRITE_PREFETCH = 4;
+
+    private DownloadUtils() {
+    }
+
+    /**
+     * Writes the chunks of a download to a file as they are received, returning the number of bytes written.  The file is created if it does not exist and truncated if it does, and is
+     * closed when the download has been written.
+     *
+     * @param download    the chunks of the download
+     * @param destination the file to write the download to
+     * @return the number of bytes written
+     */
+    public static Mono<Long> writeTo(Flux<byte[]> download, Path destination) {
+        return Mono.using(() -> FileChannel.open(destination, CREATE, TRUNCATE_EXISTING, WRITE),
+            channel -> writeTo(download, channel),
+            channel -> {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    throw Exceptions.propagate(e);
+                }
+            });
+    }
+
+    /**
+     * Writes the chunks of a download to a channel as they are received, returning the number of bytes written.  Chunks are written on the elastic scheduler, so that a blocking channel
+     * never blocks the thread the download is received on.
+     *
+     * @param download    the chunks of the download
+     * @param destination the channel to write the download to
+     * @return the number of bytes written
+     */
+    public static Mono<Long> writeTo(Flux<byte[]> download, WritableByteChannel destination) {
+        return download
+            .publishOn(Schedulers.elastic(), WRITE_PREFETCH)
+            .reduce(0L, (count, bytes) -> {
+                try {
+                    ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+                    while (byteBuffer.hasRemaining()) {
+                        destination.write(byteBuffer);
+                    }
+
+                    return count + bytes.length;
+                } catch (IOException e) {
+                    throw Exceptions.propagate(e);
+                }
+            });
+    }
+
+}
@@ -16,9 +16,13 @@
 
 package org.cloudfoundry.client.v2.applications;
 
+import org.cloudfoundry.client.DownloadUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
 /**
  * Main entry point to the Cloud Foundry Applications V2 Client API
  */
@@ -65,6 +69,30 @@ public interface ApplicationsV2 {
      */
     Flux<byte[]> download(DownloadApplicationRequest request);
 
+    /**
+     * Makes the <a href="http://apidocs.cloudfoundry.org/latest-release/apps/downloads_the_bits_for_an_app.html">Downloads the bits for an App</a> request, writing the bits to a channel as
+     * they are received
+     *
+     * @param request     the Download Application request
+     * @param destination the channel to write the bits to
+     * @return the number of bytes written
+     */
+    default Mono<Long> download(DownloadApplicationRequest request, WritableByteChannel destination) {
+        return DownloadUtils.writeTo(download(request), destination);
+    }
+
+    /**
+     * Makes the <a href="http://apidocs.cloudfoundry.org/latest-release/apps/downloads_the_bits_for_an_app.html">Downloads the bits for an App</a> request, writing the bits to a file as
+     * they are received
+     *
+     * @param request     the Download Application request
+     * @param destination the file to write the bits to
+     * @return the number of bytes written
+     */
+    default Mono<Long> download(DownloadApplicationRequest request, Path destination) {
+        return DownloadUtils.writeTo(download(request), destination);
+    }
+
     /**
      * Makes the <a href="http://apidocs.cloudfoundry.org/latest-release/apps/downloads_the_staged_droplet_for_an_app.html">Downloads the staged droplet for an App</a> request
      *
@@ -73,6 +101,30 @@ public interface ApplicationsV2 {
      */
     Flux<byte[]> downloadDroplet(DownloadApplicationDropletRequest request);
 
+    /**
+     * Makes the <a href="http://apidocs.cloudfoundry.org/latest-release/apps/downloads_the_staged_droplet_for_an_app.html">Downloads the staged droplet for an App</a> request, writing the
+     * droplet to a channel as it is received
+     *
+     * @param request     the Download Droplet request
+     * @param destination the channel to write the droplet to
+     * @return the number of bytes written
+     */
+    default Mono<Long> downloadDroplet(DownloadApplicationDropletRequest request, WritableByteChannel destination) {
+        return DownloadUtils.writeTo(downloadDroplet(request), destination);
+    }
+
+    /**
+     * Makes the <a href="http://apidocs.cloudfoundry.org/latest-release/apps/downloads_the_staged_droplet_for_an_app.html">Downloads the staged droplet for an App</a> request, writing the
+     * droplet to a file as it is received
+     *
+     * @param request     the Download Droplet request
+     * @param destination the file to write the droplet to
+     * @return the number of bytes written
+     */
+    default Mono<Long> downloadDroplet(DownloadApplicationDropletRequest request, Path destination) {
+        return DownloadUtils.writeTo(downloadDroplet(request), destination);
+    }
+
     /**
      * Makes the <a href="http://apidocs.cloudfoundry.org/latest-release/apps/get_the_env_for_an_app.html">Get the env for an App</a> request
      *
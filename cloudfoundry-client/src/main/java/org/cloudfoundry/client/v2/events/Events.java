@@ -16,6 +16,7 @@
 
 package org.cloudfoundry.client.v2.events;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -39,4 +40,16 @@ public interface Events {
      */
     Mono<ListEventsResponse> list(ListEventsRequest request);
 
+    /**
+     * Makes the <a href="http://apidocs.cloudfoundry.org/latest-release/events/list_all_events.html">List Events</a> request, emitting the resources of the requested page as they are
+     * received
+     *
+     * @param request the List Events request
+     * @return the resources of the page returned by the List Events request
+     */
+    default Flux<EventResource> listResources(ListEventsRequest request) {
+        return list(request)
+            .flatMapIterable(ListEventsResponse::getResources);
+    }
+
 }
@@ -16,9 +16,13 @@
 
 package org.cloudfoundry.client.v3.packages;
 
+import org.cloudfoundry.client.DownloadUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
 /**
  * Main entry point to the Cloud Foundry Packages Client API
  */
@@ -56,6 +60,30 @@ public interface Packages {
      */
     Flux<byte[]> download(DownloadPackageRequest request);
 
+    /**
+     * Makes the <a href="http://apidocs.cloudfoundry.org/latest-release/packages_(experimental)/download_the_bits_for_a_package.html">Download the bits for a package</a> request, writing
+     * the bits to a channel as they are received
+     *
+     * @param request     the Download Package request
+     * @param destination the channel to write the bits to
+     * @return the number of bytes written
+     */
+    default Mono<Long> download(DownloadPackageRequest request, WritableByteChannel destination) {
+        return DownloadUtils.writeTo(download(request), destination);
+    }
+
+    /**
+     * Makes the <a href="http://apidocs.cloudfoundry.org/latest-release/packages_(experimental)/download_the_bits_for_a_package.html">Download the bits for a package</a> request, writing
+     * the bits to a file as they are received
+     *
+     * @param request     the Download Package request
+     * @param destination the file to write the bits to
+     * @return the number of bytes written
+     */
+    default Mono<Long> download(DownloadPackageRequest request, Path destination) {
+        return DownloadUtils.writeTo(download(request), destination);
+    }
+
     /**
      * Makes the <a href="http://apidocs.cloudfoundry.org/latest-release/packages_(experimental)/get_a_package.html">Get Package</a> request
      *
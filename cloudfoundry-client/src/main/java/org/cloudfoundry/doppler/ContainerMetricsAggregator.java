@@ -0,0 +1,233 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.doppler;
+
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregates {@link ContainerMetric}s into rolling statistics for each application instance, as received from {@link DopplerClient#containerMetrics(ContainerMetricsRequest)} or
+ * the firehose.
+ * <p>
+ * Each instance is tracked with preallocated primitive ring buffers holding at most {@code samples} values of each metric, so the memory used by an instance is fixed when it is
+ * first seen and recording a metric allocates nothing beyond the snapshot it returns.  Samples are aged by the timestamp of the envelope that carried them rather than by when
+ * they were received, so a delayed or replayed batch of envelopes is windowed the same way as a live one.  Each instance is locked separately, so metrics for different instances
+ * can be recorded concurrently.
+ */
+public final class ContainerMetricsAggregator {
+
+    private final ConcurrentMap<String, Instances> applications = new ConcurrentHashMap<>();
+
+    private final int samples;
+
+    private final long window;
+
+    /**
+     * Creates a new instance
+     *
+     * @param samples the maximum number of samples of each instance to calculate statistics from
+     * @param window  the maximum age of samples to calculate statistics from
+     */
+    public ContainerMetricsAggregator(int samples, Duration window) {
+        if (samples < 1) {
+            throw new IllegalArgumentException(String.format("Samples must be positive: %d", samples));
+        }
+
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException(String.format("Window must be positive: %s", window));
+        }
+
+        this.samples = samples;
+        this.window = window.toNanos();
+    }
+
+    /**
+     * Records the container metrics in a stream of envelopes, ignoring envelopes of other event types and envelopes without a container metric
+     *
+     * @param envelopes the envelopes
+     * @return a snapshot of the statistics of an instance each time a container metric for it is received
+     */
+    public Flux<ContainerMetricsSnapshot> aggregate(Flux<Envelope> envelopes) {
+        return envelopes
+            .filter(envelope -> EventType.CONTAINER_METRIC == envelope.getEventType() && envelope.getContainerMetric() != null)
+            .map(envelope -> record(envelope.getContainerMetric(), envelope.getTimestamp() != null ? envelope.getTimestamp() : now()));
+    }
+
+    /**
+     * Records a container metric, timestamped with the current time
+     *
+     * @param containerMetric the container metric
+     * @return a snapshot of the statistics of the instance the container metric is for
+     */
+    public ContainerMetricsSnapshot record(ContainerMetric containerMetric) {
+        return record(containerMetric, now());
+    }
+
+    /**
+     * Records a container metric
+     *
+     * @param containerMetric the container metric
+     * @param timestamp       the time the container metric was emitted, in nanoseconds since the epoch, as reported by {@link Envelope#getTimestamp()}
+     * @return a snapshot of the statistics of the instance the container metric is for
+     */
+    public ContainerMetricsSnapshot record(ContainerMetric containerMetric, long timestamp) {
+        int instanceIndex = containerMetric.getInstanceIndex();
+
+        if (instanceIndex < 0) {
+            throw new IllegalArgumentException(String.format("Instance index must not be negative: %d", instanceIndex));
+        }
+
+        Window window = this.applications.computeIfAbsent(containerMetric.getApplicationId(), applicationId -> new Instances()).get(instanceIndex, this.samples);
+
+        synchronized (window) {
+            window.add(timestamp, containerMetric.getCpuPercentage(), containerMetric.getMemoryBytes(), containerMetric.getDiskBytes());
+            long cutoff = timestamp - this.window;
+
+            return ContainerMetricsSnapshot.builder()
+                .applicationId(containerMetric.getApplicationId())
+                .cpuPercentage(window.statistics(window.cpuPercentages, cutoff))
+                .diskBytes(window.statistics(window.diskBytes, cutoff))
+                .instanceIndex(instanceIndex)
+                .memoryBytes(window.statistics(window.memoryBytes, cutoff))
+                .samples(window.count(cutoff))
+                .build();
+        }
+    }
+
+    /**
+     * Stops tracking the instances of an application
+     *
+     * @param applicationId the ID of the application
+     */
+    public void remove(String applicationId) {
+        this.applications.remove(applicationId);
+    }
+
+    private static long now() {
+        return TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+    }
+
+    private static double percentile(double[] sorted, int count, int percentile) {
+        return sorted[Math.max(0, (count * percentile + 99) / 100 - 1)];
+    }
+
+    private static final class Instances {
+
+        private volatile Window[] windows = new Window[0];
+
+        private Window get(int instanceIndex, int samples) {
+            Window[] windows = this.windows;
+
+            if (instanceIndex < windows.length && windows[instanceIndex] != null) {
+                return windows[instanceIndex];
+            }
+
+            synchronized (this) {
+                windows = this.windows;
+
+                if (windows.length <= instanceIndex) {
+                    windows = Arrays.copyOf(windows, Math.max(instanceIndex + 1, windows.length * 2));
+                }
+
+                if (windows[instanceIndex] == null) {
+                    windows[instanceIndex] = new Window(samples);
+                }
+
+                this.windows = windows;
+                return windows[instanceIndex];
+            }
+        }
+
+    }
+
+    private static final class Window {
+
+        private final double[] cpuPercentages;
+
+        private final double[] diskBytes;
+
+        private final double[] memoryBytes;
+
+        private final double[] sorted;
+
+        private final long[] timestamps;
+
+        private int head;
+
+        private int size;
+
+        private Window(int samples) {
+            this.cpuPercentages = new double[samples];
+            this.diskBytes = new double[samples];
+            this.memoryBytes = new double[samples];
+            this.sorted = new double[samples];
+            this.timestamps = new long[samples];
+        }
+
+        private void add(long timestamp, double cpuPercentage, double memoryBytes, double diskBytes) {
+            this.cpuPercentages[this.head] = cpuPercentage;
+            this.diskBytes[this.head] = diskBytes;
+            this.memoryBytes[this.head] = memoryBytes;
+            this.timestamps[this.head] = timestamp;
+
+            this.head = (this.head + 1) % this.timestamps.length;
+            this.size = Math.min(this.size + 1, this.timestamps.length);
+        }
+
+        private int count(long cutoff) {
+            int count = 0;
+
+            for (int i = 0; i < this.size; i++) {
+                if (this.timestamps[i] - cutoff >= 0) {
+                    count++;
+                }
+            }
+
+            return count;
+        }
+
+        private MetricStatistics statistics(double[] values, long cutoff) {
+            int count = 0;
+            double sum = 0;
+
+            for (int i = 0; i < this.size; i++) {
+                if (this.timestamps[i] - cutoff >= 0) {
+                    this.sorted[count++] = values[i];
+                    sum += values[i];
+                }
+            }
+
+            Arrays.sort(this.sorted, 0, count);
+
+            return MetricStatistics.builder()
+                .maximum(this.sorted[count - 1])
+                .mean(sum / count)
+                .minimum(this.sorted[0])
+                .percentile50(percentile(this.sorted, count, 50))
+                .percentile90(percentile(this.sorted, count, 90))
+                .percentile99(percentile(this.sorted, count, 99))
+                .build();
+        }
+
+    }
+
+}
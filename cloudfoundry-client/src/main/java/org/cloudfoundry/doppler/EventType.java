@@ -35,7 +35,7 @@ public enum EventType {
 
     VALUE_METRIC;
 
-    static EventType from(org.cloudfoundry.dropsonde.events.Envelope.EventType dropsonde) {
+    public static EventType from(org.cloudfoundry.dropsonde.events.Envelope.EventType dropsonde) {
         switch (Objects.requireNonNull(dropsonde, "dropsonde")) {
             case ContainerMetric:
                 return CONTAINER_METRIC;
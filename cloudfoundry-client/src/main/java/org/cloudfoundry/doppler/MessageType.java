@@ -33,7 +33,7 @@ public enum MessageType {
      */
     OUT;
 
-    static MessageType from(org.cloudfoundry.dropsonde.events.LogMessage.MessageType dropsonde) {
+    public static MessageType from(org.cloudfoundry.dropsonde.events.LogMessage.MessageType dropsonde) {
         switch (Objects.requireNonNull(dropsonde, "dropsonde")) {
             case ERR:
                 return ERR;
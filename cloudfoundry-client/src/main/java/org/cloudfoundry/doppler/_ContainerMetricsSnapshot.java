@@ -0,0 +1,57 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.doppler;
+
+import org.immutables.value.Value;
+
+/**
+ * Rolling statistics of the resource usage of an application instance
+ */
+@Value.Immutable
+abstract class _ContainerMetricsSnapshot {
+
+    /**
+     * The ID of the contained application
+     */
+    abstract String getApplicationId();
+
+    /**
+     * Statistics of the CPU used, on a scale of 0 to 100
+     */
+    abstract MetricStatistics getCpuPercentage();
+
+    /**
+     * Statistics of the bytes of disk used
+     */
+    abstract MetricStatistics getDiskBytes();
+
+    /**
+     * The instance index of the contained application
+     */
+    abstract Integer getInstanceIndex();
+
+    /**
+     * Statistics of the bytes of memory used
+     */
+    abstract MetricStatistics getMemoryBytes();
+
+    /**
+     * The number of samples the statistics are calculated from
+     */
+    abstract Integer getSamples();
+
+}
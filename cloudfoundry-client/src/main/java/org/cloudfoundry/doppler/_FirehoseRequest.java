@@ -19,12 +19,26 @@ package org.cloudfoundry.doppler;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.immutables.value.Value;
 
+import java.util.Set;
+
 /**
  * The request payload for the Firehose endpoint
  */
 @Value.Immutable
 abstract class _FirehoseRequest {
 
+    /**
+     * The event types to receive.  If empty, envelopes of every event type are received.
+     */
+    @JsonIgnore
+    abstract Set<EventType> getEventTypes();
+
+    /**
+     * The origins to receive.  If empty, envelopes from every origin are received.
+     */
+    @JsonIgnore
+    abstract Set<String> getOrigins();
+
     /**
      * The subscription id
      */
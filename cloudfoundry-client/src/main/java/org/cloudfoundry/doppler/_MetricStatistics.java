@@ -0,0 +1,57 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.doppler;
+
+import org.immutables.value.Value;
+
+/**
+ * Statistics of the values of a container metric within a window
+ */
+@Value.Immutable
+abstract class _MetricStatistics {
+
+    /**
+     * The maximum value
+     */
+    abstract Double getMaximum();
+
+    /**
+     * The mean value
+     */
+    abstract Double getMean();
+
+    /**
+     * The minimum value
+     */
+    abstract Double getMinimum();
+
+    /**
+     * The 50th percentile (median) value
+     */
+    abstract Double getPercentile50();
+
+    /**
+     * The 90th percentile value
+     */
+    abstract Double getPercentile90();
+
+    /**
+     * The 99th percentile value
+     */
+    abstract Double getPercentile99();
+
+}
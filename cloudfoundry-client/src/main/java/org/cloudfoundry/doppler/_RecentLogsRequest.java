@@ -19,6 +19,8 @@ package org.cloudfoundry.doppler;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.immutables.value.Value;
 
+import java.util.Set;
+
 /**
  * The request payload for the Recent Logs endpoint
  */
@@ -31,4 +33,10 @@ abstract class _RecentLogsRequest {
     @JsonIgnore
     abstract String getApplicationId();
 
+    /**
+     * The event types to receive.  If empty, envelopes of every event type are received.
+     */
+    @JsonIgnore
+    abstract Set<EventType> getEventTypes();
+
 }
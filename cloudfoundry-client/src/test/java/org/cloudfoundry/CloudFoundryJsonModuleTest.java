@@ -0,0 +1,174 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.DefaultDeserializationContext;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import org.cloudfoundry.client.v2.Metadata;
+import org.cloudfoundry.client.v2.applications.UpdateApplicationRequest;
+import org.cloudfoundry.client.v2.applications.UpdateApplicationRequestJsonSerializer;
+import org.cloudfoundry.client.v2.events.EventEntity;
+import org.cloudfoundry.client.v2.events.EventResource;
+import org.cloudfoundry.client.v2.events.ListEventsResponse;
+import org.cloudfoundry.client.v2.events.ListEventsResponseJsonDeserializer;
+import org.cloudfoundry.client.v2.events.ListEventsResponseJsonSerializer;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.ALWAYS;
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+import static com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES;
+import static com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public final class CloudFoundryJsonModuleTest {
+
+    private static final String LIST_EVENTS_RESPONSE = "{\"total_results\":1,\"total_pages\":1,\"prev_url\":null,\"next_url\":null,\"resources\":[{\"metadata\":{\"guid\":\"test-id\"," +
+        "\"url\":\"test-url\",\"created_at\":\"test-created-at\",\"updated_at\":null},\"entity\":{\"type\":\"audit.app.update\",\"actor\":\"test-actor\"," +
+        "\"metadata\":{\"test-key\":\"test-value\",\"test-null\":null}}}]}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .disable(FAIL_ON_UNKNOWN_PROPERTIES)
+        .registerModule(new Jdk8Module())
+        .registerModule(new CloudFoundryJsonModule())
+        .registerModule(new TestJsonModule())
+        .setSerializationInclusion(NON_NULL);
+
+    private final ObjectMapper reflectiveObjectMapper = new ObjectMapper()
+        .disable(FAIL_ON_UNKNOWN_PROPERTIES)
+        .registerModule(new Jdk8Module())
+        .setSerializationInclusion(NON_NULL);
+
+    @Test
+    public void deserialize() throws Exception {
+        assertThat(this.objectMapper.readValue(LIST_EVENTS_RESPONSE, ListEventsResponse.class))
+            .isEqualTo(ListEventsResponse.builder()
+                .totalPages(1)
+                .totalResults(1)
+                .resource(EventResource.builder()
+                    .metadata(Metadata.builder()
+                        .createdAt("test-created-at")
+                        .id("test-id")
+                        .url("test-url")
+                        .build())
+                    .entity(EventEntity.builder()
+                        .actor("test-actor")
+                        .metadata("test-key", Optional.of("test-value"))
+                        .metadata("test-null", Optional.empty())
+                        .type("audit.app.update")
+                        .build())
+                    .build())
+                .build())
+            .isEqualTo(this.reflectiveObjectMapper.readValue(LIST_EVENTS_RESPONSE, ListEventsResponse.class));
+    }
+
+    @Test
+    public void deserializeMissingRequired() {
+        assertThatThrownBy(() -> this.objectMapper.readValue("{\"enabled\":true}", PrimitiveValues.class))
+            .isInstanceOf(JsonMappingException.class);
+    }
+
+    @Test
+    public void deserializePrimitiveNull() throws Exception {
+        String json = "{\"count\":null,\"enabled\":null,\"name\":\"test-name\"}";
+
+        assertThat(this.objectMapper.readValue(json, PrimitiveValues.class))
+            .isEqualTo(PrimitiveValues.builder()
+                .count(0)
+                .enabled(false)
+                .name("test-name")
+                .build())
+            .isEqualTo(this.reflectiveObjectMapper.readValue(json, PrimitiveValues.class));
+    }
+
+    @Test
+    public void deserializePrimitiveNullFailure() {
+        assertThatThrownBy(() -> this.objectMapper.copy().enable(FAIL_ON_NULL_FOR_PRIMITIVES).readValue("{\"count\":null,\"enabled\":true}", PrimitiveValues.class))
+            .isInstanceOf(JsonMappingException.class);
+    }
+
+    @Test
+    public void generatedDeserializer() throws Exception {
+        DefaultDeserializationContext context = ((DefaultDeserializationContext) this.objectMapper.getDeserializationContext())
+            .createInstance(this.objectMapper.getDeserializationConfig(), null, null);
+
+        assertThat(context.findRootValueDeserializer(this.objectMapper.constructType(ListEventsResponse.class))).isInstanceOf(ListEventsResponseJsonDeserializer.class);
+        assertThat(context.findRootValueDeserializer(this.objectMapper.constructType(PrimitiveValues.class))).isInstanceOf(PrimitiveValuesJsonDeserializer.class);
+    }
+
+    @Test
+    public void generatedSerializer() throws Exception {
+        assertThat(this.objectMapper.getSerializerProviderInstance().findValueSerializer(ListEventsResponse.class)).isInstanceOf(ListEventsResponseJsonSerializer.class);
+        assertThat(this.objectMapper.getSerializerProviderInstance().findValueSerializer(UpdateApplicationRequest.class)).isInstanceOf(UpdateApplicationRequestJsonSerializer.class);
+        assertThat(this.objectMapper.getSerializerProviderInstance().findValueSerializer(PrimitiveValues.class)).isInstanceOf(PrimitiveValuesJsonSerializer.class);
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        ListEventsResponse response = this.objectMapper.readValue(LIST_EVENTS_RESPONSE, ListEventsResponse.class);
+
+        assertThat(this.objectMapper.readValue(this.objectMapper.writeValueAsBytes(response), ListEventsResponse.class)).isEqualTo(response);
+    }
+
+    @Test
+    public void serialize() throws Exception {
+        UpdateApplicationRequest request = UpdateApplicationRequest.builder()
+            .applicationId("test-application-id")
+            .environmentJson("test-key", "test-value")
+            .environmentJson("test-null", null)
+            .instances(2)
+            .name("test-name")
+            .build();
+
+        assertThat(this.objectMapper.readTree(this.objectMapper.writeValueAsBytes(request)))
+            .isEqualTo(this.objectMapper.readTree("{\"environment_json\":{\"test-key\":\"test-value\",\"test-null\":null},\"instances\":2,\"name\":\"test-name\"}"))
+            .isEqualTo(this.objectMapper.readTree(this.reflectiveObjectMapper.writeValueAsBytes(request)));
+    }
+
+    @Test
+    public void serializeAlways() throws Exception {
+        PrimitiveValues values = PrimitiveValues.builder()
+            .count(1)
+            .enabled(true)
+            .build();
+
+        assertThat(this.objectMapper.readTree(this.objectMapper.copy().setSerializationInclusion(ALWAYS).writeValueAsBytes(values)))
+            .isEqualTo(this.objectMapper.readTree("{\"count\":1,\"enabled\":true,\"name\":null}"));
+        assertThat(this.objectMapper.readTree(this.objectMapper.writeValueAsBytes(values)))
+            .isEqualTo(this.objectMapper.readTree("{\"count\":1,\"enabled\":true}"));
+    }
+
+    @Test
+    public void unknownProperty() {
+        assertThatThrownBy(() -> this.objectMapper.copy().enable(FAIL_ON_UNKNOWN_PROPERTIES).readValue("{\"total_results\":1,\"test-unknown\":null}", ListEventsResponse.class))
+            .isInstanceOf(UnrecognizedPropertyException.class);
+    }
+
+    @Test
+    public void unknownPropertyIgnored() throws Exception {
+        assertThat(this.objectMapper.readValue("{\"total_results\":1,\"test-unknown\":{\"test-key\":[1]}}", ListEventsResponse.class))
+            .isEqualTo(ListEventsResponse.builder()
+                .totalResults(1)
+                .build());
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.client;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class DownloadUtilsTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writeToChannel() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Long count = DownloadUtils.writeTo(Flux.just(new byte[]{0, 1, 2}, new byte[]{3, 4}), Channels.newChannel(out))
+            .block(Duration.ofSeconds(5));
+
+        assertThat(count).isEqualTo(5L);
+        assertThat(out.toByteArray()).containsExactly(0, 1, 2, 3, 4);
+    }
+
+    @Test
+    public void writeToPath() throws IOException {
+        Path destination = this.folder.getRoot().toPath().resolve("download");
+        Files.write(destination, new byte[]{9, 9, 9, 9, 9, 9, 9, 9});
+
+        Long count = DownloadUtils.writeTo(Flux.just(new byte[]{0, 1, 2}, new byte[]{3, 4}), destination)
+            .block(Duration.ofSeconds(5));
+
+        assertThat(count).isEqualTo(5L);
+        assertThat(Files.readAllBytes(destination)).containsExactly(0, 1, 2, 3, 4);
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.doppler;
+
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class ContainerMetricsAggregatorTest {
+
+    private final ContainerMetricsAggregator aggregator = new ContainerMetricsAggregator(4, Duration.ofHours(1));
+
+    @Test
+    public void aggregate() {
+        List<ContainerMetricsSnapshot> snapshots = Flux.just(envelope(0, 10.0, 0L), envelope(1, 20.0, 0L), valueMetric(), emptyContainerMetric(), envelope(0, 30.0, 0L))
+            .as(this.aggregator::aggregate)
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(snapshots).hasSize(3);
+        assertThat(snapshots.get(2).getInstanceIndex()).isEqualTo(0);
+        assertThat(snapshots.get(2).getSamples()).isEqualTo(2);
+        assertThat(snapshots.get(2).getCpuPercentage().getMean()).isEqualTo(20.0);
+    }
+
+    @Test
+    public void aggregateEnvelopeTimestamps() {
+        long start = Duration.ofDays(17_000).toNanos();
+
+        List<ContainerMetricsSnapshot> snapshots = Flux.just(envelope(0, 10.0, start), envelope(0, 20.0, start + Duration.ofMinutes(30).toNanos()),
+            envelope(0, 30.0, start + Duration.ofMinutes(90).toNanos()))
+            .as(this.aggregator::aggregate)
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(snapshots.get(1).getSamples()).isEqualTo(2);
+        assertThat(snapshots.get(2).getSamples()).isEqualTo(2);
+        assertThat(snapshots.get(2).getCpuPercentage().getMean()).isEqualTo(25.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeInstanceIndex() {
+        this.aggregator.record(containerMetric(-1, 10.0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeWindow() {
+        new ContainerMetricsAggregator(4, Duration.ofMillis(-1));
+    }
+
+    @Test
+    public void record() {
+        ContainerMetricsSnapshot snapshot = null;
+
+        for (int i = 1; i <= 6; i++) {
+            snapshot = this.aggregator.record(containerMetric(0, i * 10.0));
+        }
+
+        assertThat(snapshot.getSamples()).isEqualTo(4);
+        assertThat(snapshot.getCpuPercentage()).isEqualTo(MetricStatistics.builder()
+            .maximum(60.0)
+            .mean(45.0)
+            .minimum(30.0)
+            .percentile50(40.0)
+            .percentile90(60.0)
+            .percentile99(60.0)
+            .build());
+        assertThat(snapshot.getMemoryBytes().getMaximum()).isEqualTo(600.0);
+    }
+
+    @Test
+    public void recordConcurrently() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            int instanceIndex = i;
+
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 1_000; j++) {
+                    this.aggregator.record(containerMetric(instanceIndex, j));
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int i = 0; i < 8; i++) {
+            ContainerMetricsSnapshot snapshot = this.aggregator.record(containerMetric(i, 1_000.0));
+
+            assertThat(snapshot.getSamples()).isEqualTo(4);
+            assertThat(snapshot.getCpuPercentage().getMinimum()).isEqualTo(997.0);
+        }
+    }
+
+    @Test
+    public void recordExpired() {
+        ContainerMetricsAggregator aggregator = new ContainerMetricsAggregator(4, Duration.ofMillis(1));
+
+        aggregator.record(containerMetric(0, 10.0), 0L);
+        ContainerMetricsSnapshot snapshot = aggregator.record(containerMetric(0, 20.0), Duration.ofMillis(10).toNanos());
+
+        assertThat(snapshot.getSamples()).isEqualTo(1);
+        assertThat(snapshot.getCpuPercentage().getMean()).isEqualTo(20.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroWindow() {
+        new ContainerMetricsAggregator(4, Duration.ZERO);
+    }
+
+    private static ContainerMetric containerMetric(int instanceIndex, double cpuPercentage) {
+        return ContainerMetric.builder()
+            .applicationId("test-application-id")
+            .cpuPercentage(cpuPercentage)
+            .diskBytes((long) cpuPercentage * 100)
+            .instanceIndex(instanceIndex)
+            .memoryBytes((long) cpuPercentage * 10)
+            .build();
+    }
+
+    private static Envelope emptyContainerMetric() {
+        return Envelope.builder()
+            .eventType(EventType.CONTAINER_METRIC)
+            .origin("test-origin")
+            .build();
+    }
+
+    private static Envelope envelope(int instanceIndex, double cpuPercentage, long timestamp) {
+        return Envelope.builder()
+            .containerMetric(containerMetric(instanceIndex, cpuPercentage))
+            .eventType(EventType.CONTAINER_METRIC)
+            .origin("test-origin")
+            .timestamp(timestamp)
+            .build();
+    }
+
+    private static Envelope valueMetric() {
+        return Envelope.builder()
+            .eventType(EventType.VALUE_METRIC)
+            .origin("test-origin")
+            .valueMetric(ValueMetric.builder()
+                .name("test-name")
+                .unit("test-unit")
+                .value(0.0)
+                .build())
+            .build();
+    }
+
+}
@@ -50,6 +50,7 @@ import org.cloudfoundry.operations.stacks.Stacks;
 import org.cloudfoundry.routing.RoutingClient;
 import org.cloudfoundry.uaa.UaaClient;
 import org.cloudfoundry.util.ExceptionUtils;
+import org.cloudfoundry.util.HashCache;
 import org.cloudfoundry.util.PaginationUtils;
 import org.cloudfoundry.util.ResourceUtils;
 import org.immutables.value.Value;
@@ -74,7 +75,7 @@ abstract class _DefaultCloudFoundryOperations implements CloudFoundryOperations
     @Override
     @Value.Derived
     public Applications applications() {
-        return new DefaultApplications(getCloudFoundryClientPublisher(), getDopplerClientPublisher(), getSpaceId());
+        return new DefaultApplications(getCloudFoundryClientPublisher(), getDopplerClientPublisher(), getSpaceId(), Optional.ofNullable(getHashCache()));
     }
 
     @Override
@@ -163,6 +164,13 @@ abstract class _DefaultCloudFoundryOperations implements CloudFoundryOperations
             .orElse(Mono.error(new IllegalStateException("DopplerClient must be set")));
     }
 
+    /**
+     * The (optional) {@link HashCache} used when pushing applications, so that files that have not changed since a previous push are not rehashed.  Persisting the cache to a file
+     * lets it survive between runs, as when pushing from a CI pipeline.
+     */
+    @Nullable
+    abstract HashCache getHashCache();
+
     /**
      * The organization to target
      */
@@ -210,6 +210,15 @@ public interface Applications {
      */
     Mono<Void> stop(StopApplicationRequest request);
 
+    /**
+     * Tail the logs of multiple applications as a single, time-ordered stream.  Unless {@link TailLogsRequest#getFirehose()} is set, one stream connection is opened for each
+     * application, so tailing many applications is better done through the firehose.
+     *
+     * @param request the tail logs request
+     * @return the applications logs
+     */
+    Flux<ApplicationLog> tailLogs(TailLogsRequest request);
+
     /**
      * Unset an environment variable of an application
      *
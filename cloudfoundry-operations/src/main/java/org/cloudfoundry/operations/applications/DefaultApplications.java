@@ -83,6 +83,7 @@ import org.cloudfoundry.client.v2.stacks.StackResource;
 import org.cloudfoundry.doppler.DopplerClient;
 import org.cloudfoundry.doppler.Envelope;
 import org.cloudfoundry.doppler.EventType;
+import org.cloudfoundry.doppler.FirehoseRequest;
 import org.cloudfoundry.doppler.LogMessage;
 import org.cloudfoundry.doppler.RecentLogsRequest;
 import org.cloudfoundry.doppler.StreamRequest;
@@ -90,22 +91,19 @@ import org.cloudfoundry.operations.util.OperationsLogging;
 import org.cloudfoundry.util.DateUtils;
 import org.cloudfoundry.util.DelayTimeoutException;
 import org.cloudfoundry.util.ExceptionUtils;
-import org.cloudfoundry.util.FileUtils;
 import org.cloudfoundry.util.FluentMap;
+import org.cloudfoundry.util.HashCache;
 import org.cloudfoundry.util.JobUtils;
 import org.cloudfoundry.util.PaginationUtils;
 import org.cloudfoundry.util.ResourceMatchingUtils;
 import org.cloudfoundry.util.ResourceUtils;
 import org.cloudfoundry.util.SortingUtils;
-import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.function.Tuple2;
 import reactor.util.function.Tuple4;
 import reactor.util.function.Tuples;
 
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Collections;
@@ -116,6 +114,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
@@ -153,17 +156,30 @@ public final class DefaultApplications implements Applications {
 
     private final Mono<DopplerClient> dopplerClient;
 
+    private final Optional<HashCache> hashCache;
+
+    private final Map<String, Flux<LogMessage>> logsStreams = new ConcurrentHashMap<>();
+
     private final RandomWords randomWords;
 
     private final Mono<String> spaceId;
 
     public DefaultApplications(Mono<CloudFoundryClient> cloudFoundryClient, Mono<DopplerClient> dopplerClient, Mono<String> spaceId) {
-        this(cloudFoundryClient, dopplerClient, spaceId, new WordListRandomWords());
+        this(cloudFoundryClient, dopplerClient, spaceId, Optional.empty());
+    }
+
+    public DefaultApplications(Mono<CloudFoundryClient> cloudFoundryClient, Mono<DopplerClient> dopplerClient, Mono<String> spaceId, Optional<HashCache> hashCache) {
+        this(cloudFoundryClient, dopplerClient, spaceId, hashCache, new WordListRandomWords());
     }
 
     DefaultApplications(Mono<CloudFoundryClient> cloudFoundryClient, Mono<DopplerClient> dopplerClient, Mono<String> spaceId, RandomWords randomWords) {
+        this(cloudFoundryClient, dopplerClient, spaceId, Optional.empty(), randomWords);
+    }
+
+    DefaultApplications(Mono<CloudFoundryClient> cloudFoundryClient, Mono<DopplerClient> dopplerClient, Mono<String> spaceId, Optional<HashCache> hashCache, RandomWords randomWords) {
         this.cloudFoundryClient = cloudFoundryClient;
         this.dopplerClient = dopplerClient;
+        this.hashCache = hashCache;
         this.spaceId = spaceId;
         this.randomWords = randomWords;
     }
@@ -319,7 +335,7 @@ public final class DefaultApplications implements Applications {
         return Mono
             .when(this.cloudFoundryClient, this.spaceId)
             .then(function((cloudFoundryClient, spaceId) -> getApplicationId(cloudFoundryClient, request.getName(), spaceId)))
-            .flatMapMany(applicationId -> getLogs(this.dopplerClient, applicationId, request.getRecent()))
+            .flatMapMany(applicationId -> getLogs(this.dopplerClient, applicationId, request.getRecent(), request.getRecentLimit()))
             .transform(OperationsLogging.log("Get Application Logs"))
             .checkpoint();
     }
@@ -385,7 +401,7 @@ public final class DefaultApplications implements Applications {
             .flatMapMany(function((cloudFoundryClient, availableDomains, spaceId) -> Flux.fromIterable(request.getManifests())
                 .flatMap(manifest -> {
                     if (manifest.getPath() != null) {
-                        return pushApplication(cloudFoundryClient, availableDomains, manifest, this.randomWords, request, spaceId);
+                        return pushApplication(cloudFoundryClient, availableDomains, manifest, this.hashCache, this.randomWords, request, spaceId);
                     } else if (!manifest.getDockerImage().isEmpty()) {
                         return pushDocker(cloudFoundryClient, availableDomains, manifest, this.randomWords, request, spaceId);
                     } else {
@@ -542,6 +558,16 @@ public final class DefaultApplications implements Applications {
             .checkpoint();
     }
 
+    @Override
+    public Flux<ApplicationLog> tailLogs(TailLogsRequest request) {
+        return Mono
+            .when(this.cloudFoundryClient, this.spaceId)
+            .then(function((cloudFoundryClient, spaceId) -> getApplicationNames(cloudFoundryClient, request.getNames(), spaceId)))
+            .flatMapMany(applicationNames -> getLogs(this.dopplerClient, this.logsStreams, applicationNames, request.getFirehose()))
+            .transform(OperationsLogging.log("Tail Application Logs"))
+            .checkpoint();
+    }
+
     @Override
     public Mono<Void> unsetEnvironmentVariable(UnsetEnvironmentVariableApplicationRequest request) {
         return Mono
@@ -736,6 +762,23 @@ public final class DefaultApplications implements Applications {
                 t -> Mono.just(ApplicationInstancesResponse.builder().build()));
     }
 
+    private static Mono<Map<String, String>> getApplicationNames(CloudFoundryClient cloudFoundryClient, Set<String> applications, String spaceId) {
+        return requestSpaceSummary(cloudFoundryClient, spaceId)
+            .flatMapMany(DefaultApplications::extractApplications)
+            .filter(application -> applications.isEmpty() || applications.contains(application.getName()))
+            .collectMap(SpaceApplicationSummary::getId, SpaceApplicationSummary::getName)
+            .then(applicationNames -> {
+                Set<String> missing = new TreeSet<>(applications);
+                missing.removeAll(applicationNames.values());
+
+                if (!missing.isEmpty()) {
+                    return ExceptionUtils.illegalArgument("Applications %s do not exist", String.join(", ", missing));
+                }
+
+                return Mono.just(applicationNames);
+            });
+    }
+
     private static Mono<ApplicationStatisticsResponse> getApplicationStatistics(CloudFoundryClient cloudFoundryClient, String applicationId) {
         return requestApplicationStatistics(cloudFoundryClient, applicationId)
             .onErrorResume(ExceptionUtils.statusCode(CF_APP_STOPPED_STATS_ERROR), t -> Mono.just(ApplicationStatisticsResponse.builder().build()));
@@ -786,8 +829,13 @@ public final class DefaultApplications implements Applications {
         return ResourceUtils.getEntity(resource).getEnvironmentJsons();
     }
 
-    private static Flux<LogMessage> getLogs(Mono<DopplerClient> dopplerClient, String applicationId, Boolean recent) {
-        if (Optional.ofNullable(recent).orElse(false)) {
+    private static Flux<LogMessage> getLogs(Mono<DopplerClient> dopplerClient, String applicationId, Boolean recent, Integer recentLimit) {
+        if (recentLimit != null) {
+            return requestLogsRecent(dopplerClient, applicationId)
+                .filter(e -> EventType.LOG_MESSAGE == e.getEventType())
+                .map(Envelope::getLogMessage)
+                .compose(SortingUtils.last(LOG_MESSAGE_COMPARATOR, recentLimit));
+        } else if (Optional.ofNullable(recent).orElse(false)) {
             return requestLogsRecent(dopplerClient, applicationId)
                 .filter(e -> EventType.LOG_MESSAGE == e.getEventType())
                 .map(Envelope::getLogMessage)
@@ -801,6 +849,27 @@ public final class DefaultApplications implements Applications {
         }
     }
 
+    private static Flux<ApplicationLog> getLogs(Mono<DopplerClient> dopplerClient, Map<String, Flux<LogMessage>> logsStreams, Map<String, String> applicationNames, Boolean firehose) {
+        Flux<LogMessage> logMessages;
+
+        if (Optional.ofNullable(firehose).orElse(false)) {
+            logMessages = requestLogsFirehose(dopplerClient)
+                .filter(e -> EventType.LOG_MESSAGE == e.getEventType())
+                .map(Envelope::getLogMessage)
+                .filter(logMessage -> applicationNames.containsKey(logMessage.getApplicationId()));
+        } else {
+            logMessages = Flux.fromIterable(applicationNames.keySet())
+                .flatMap(applicationId -> getSharedLogsStream(dopplerClient, logsStreams, applicationId), Math.max(1, applicationNames.size()));
+        }
+
+        return logMessages
+            .compose(SortingUtils.timespan(LOG_MESSAGE_COMPARATOR, LOG_MESSAGE_TIMESPAN))
+            .map(logMessage -> ApplicationLog.builder()
+                .applicationName(applicationNames.get(logMessage.getApplicationId()))
+                .logMessage(logMessage)
+                .build());
+    }
+
     @SuppressWarnings("unchecked")
     private static Map<String, Object> getMetadataRequest(EventEntity entity) {
         Map<String, Optional<Object>> metadata = Optional
@@ -816,6 +885,12 @@ public final class DefaultApplications implements Applications {
         }
     }
 
+    private static Mono<List<ResourceMatchingUtils.ArtifactMetadata>> getMatchedResources(CloudFoundryClient cloudFoundryClient, Path application, Optional<HashCache> hashCache) {
+        return hashCache
+            .map(cache -> ResourceMatchingUtils.getMatchedResources(cloudFoundryClient, application, cache))
+            .orElseGet(() -> ResourceMatchingUtils.getMatchedResources(cloudFoundryClient, application));
+    }
+
     private static Mono<Optional<List<org.cloudfoundry.client.v2.routes.Route>>> getOptionalRoutes(CloudFoundryClient cloudFoundryClient, boolean deleteRoutes, String applicationId) {
         if (deleteRoutes) {
             return getRoutes(cloudFoundryClient, applicationId)
@@ -926,6 +1001,20 @@ public final class DefaultApplications implements Applications {
             .onErrorResume(NoSuchElementException.class, t -> ExceptionUtils.illegalArgument("Service instance %s could not be found", serviceInstanceName));
     }
 
+    private static Flux<LogMessage> getSharedLogsStream(Mono<DopplerClient> dopplerClient, Map<String, Flux<LogMessage>> logsStreams, String applicationId) {
+        return logsStreams.computeIfAbsent(applicationId, key -> {
+            AtomicReference<Flux<LogMessage>> stream = new AtomicReference<>();
+
+            stream.set(requestLogsStream(dopplerClient, key)
+                .filter(e -> EventType.LOG_MESSAGE == e.getEventType())
+                .map(Envelope::getLogMessage)
+                .doFinally(signal -> logsStreams.remove(key, stream.get()))
+                .share());
+
+            return stream.get();
+        });
+    }
+
     private static Mono<String> getSpaceId(CloudFoundryClient cloudFoundryClient, String organizationId, String space) {
         return getOrganizationSpaceByName(cloudFoundryClient, organizationId, space)
             .map(ResourceUtils::getId);
@@ -1033,12 +1122,12 @@ public final class DefaultApplications implements Applications {
         }
     }
 
-    private static Flux<Void> pushApplication(CloudFoundryClient cloudFoundryClient, List<DomainSummary> availableDomains, ApplicationManifest manifest, RandomWords randomWords,
-                                              PushApplicationManifestRequest request, String spaceId) {
+    private static Flux<Void> pushApplication(CloudFoundryClient cloudFoundryClient, List<DomainSummary> availableDomains, ApplicationManifest manifest, Optional<HashCache> hashCache,
+                                              RandomWords randomWords, PushApplicationManifestRequest request, String spaceId) {
         return getOptionalStackId(cloudFoundryClient, manifest.getStack())
             .flatMapMany(stackId -> Mono.when(
                 getApplicationId(cloudFoundryClient, manifest, spaceId, stackId.orElse(null)),
-                ResourceMatchingUtils.getMatchedResources(cloudFoundryClient, manifest.getPath())
+                getMatchedResources(cloudFoundryClient, manifest.getPath(), hashCache)
             ))
             .flatMap(function((applicationId, matchedResources) -> prepareDomainsAndRoutes(cloudFoundryClient, applicationId, availableDomains, manifest, spaceId, randomWords)
                 .then(Mono.just(Tuples.of(applicationId, matchedResources)))))
@@ -1269,11 +1358,21 @@ public final class DefaultApplications implements Applications {
                     .build()));
     }
 
+    private static Flux<Envelope> requestLogsFirehose(Mono<DopplerClient> dopplerClient) {
+        return dopplerClient
+            .flatMapMany(client -> client
+                .firehose(FirehoseRequest.builder()
+                    .eventType(EventType.LOG_MESSAGE)
+                    .subscriptionId(UUID.randomUUID().toString())
+                    .build()));
+    }
+
     private static Flux<Envelope> requestLogsRecent(Mono<DopplerClient> dopplerClient, String applicationId) {
         return dopplerClient
             .flatMapMany(client -> client
                 .recentLogs(RecentLogsRequest.builder()
                     .applicationId(applicationId)
+                    .eventType(EventType.LOG_MESSAGE)
                     .build()));
     }
 
@@ -1282,6 +1381,7 @@ public final class DefaultApplications implements Applications {
             .flatMapMany(client -> client
                 .stream(StreamRequest.builder()
                     .applicationId(applicationId)
+                    .eventType(EventType.LOG_MESSAGE)
                     .build()));
     }
 
@@ -1664,26 +1764,7 @@ public final class DefaultApplications implements Applications {
 
     private static Mono<Void> uploadApplicationAndWait(CloudFoundryClient cloudFoundryClient, String applicationId, Path application, List<ResourceMatchingUtils.ArtifactMetadata> matchedResources,
                                                        Duration stagingTimeout) {
-        return Mono
-            .defer(() -> {
-                if (matchedResources.isEmpty()) {
-                    return requestUploadApplication(cloudFoundryClient, applicationId, application, matchedResources);
-                } else {
-                    List<String> paths = matchedResources.stream()
-                        .map(ResourceMatchingUtils.ArtifactMetadata::getPath)
-                        .collect(Collectors.toList());
-
-                    return FileUtils.compress(application, p -> !paths.contains(p))
-                        .then(filteredApplication -> requestUploadApplication(cloudFoundryClient, applicationId, filteredApplication, matchedResources)
-                            .doOnTerminate((v, t) -> {
-                                try {
-                                    Files.delete(filteredApplication);
-                                } catch (IOException e) {
-                                    throw Exceptions.propagate(e);
-                                }
-                            }));
-                }
-            })
+        return requestUploadApplication(cloudFoundryClient, applicationId, application, matchedResources)
             .then(job -> JobUtils.waitForCompletion(cloudFoundryClient, stagingTimeout, job));
     }
 
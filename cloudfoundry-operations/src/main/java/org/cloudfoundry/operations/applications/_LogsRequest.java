@@ -25,6 +25,21 @@ import org.immutables.value.Value;
 @Value.Immutable
 abstract class _LogsRequest {
 
+    @Value.Check
+    void check() {
+        if (getRecentLimit() == null) {
+            return;
+        }
+
+        if (getRecentLimit() < 1) {
+            throw new IllegalStateException("recentLimit must be greater than zero");
+        }
+
+        if (Boolean.FALSE.equals(getRecent())) {
+            throw new IllegalStateException("recentLimit cannot be set when recent is false");
+        }
+    }
+
     /**
      * The name of the application
      */
@@ -36,4 +51,11 @@ abstract class _LogsRequest {
     @Nullable
     abstract Boolean getRecent();
 
+    /**
+     * The maximum number of recent log messages to retrieve.  If set, recent logs are retrieved and only the newest messages are returned.  Must be greater than zero, and cannot be
+     * set when {@code recent} is {@code false}.
+     */
+    @Nullable
+    abstract Integer getRecentLimit();
+
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.operations.applications;
+
+import org.cloudfoundry.Nullable;
+import org.immutables.value.Value;
+
+import java.util.Set;
+
+/**
+ * The request options for the tail logs of multiple applications operation
+ */
+@Value.Immutable
+abstract class _TailLogsRequest {
+
+    /**
+     * Whether to receive the logs through a single firehose subscription, filtered to the requested applications, rather than one stream per application.  Requires a token with
+     * the {@code doppler.firehose} scope.
+     */
+    @Nullable
+    abstract Boolean getFirehose();
+
+    /**
+     * The names of the applications.  If empty, the logs of every application in the space are tailed.
+     */
+    abstract Set<String> getNames();
+
+}
@@ -111,6 +111,7 @@ import org.cloudfoundry.doppler.StreamRequest;
 import org.cloudfoundry.operations.AbstractOperationsTest;
 import org.cloudfoundry.util.DateUtils;
 import org.cloudfoundry.util.FluentMap;
+import org.cloudfoundry.util.HashCache;
 import org.cloudfoundry.util.ResourceMatchingUtils;
 import org.junit.Test;
 import org.springframework.core.io.ClassPathResource;
@@ -1125,6 +1126,23 @@ public final class DefaultApplicationsTest extends AbstractOperationsTest {
             .verify(Duration.ofSeconds(5));
     }
 
+    @Test
+    public void logsRecentLimit() {
+        requestApplications(this.cloudFoundryClient, "test-application-name", TEST_SPACE_ID, "test-metadata-id");
+        requestLogsRecentTimestamps(this.dopplerClient, "test-metadata-id", 3L, 1L, 5L, 2L, 4L);
+
+        this.applications
+            .logs(LogsRequest.builder()
+                .name("test-application-name")
+                .recentLimit(3)
+                .build())
+            .map(LogMessage::getTimestamp)
+            .as(StepVerifier::create)
+            .expectNext(3L, 4L, 5L)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
     @Test
     public void logsRecentNotSet() {
         requestApplications(this.cloudFoundryClient, "test-application-name", TEST_SPACE_ID, "test-metadata-id");
@@ -1454,6 +1472,61 @@ public final class DefaultApplicationsTest extends AbstractOperationsTest {
             .verify(Duration.ofSeconds(5));
     }
 
+    @Test
+    public void pushNewApplicationHashCache() throws IOException {
+        Path testApplication = new ClassPathResource("test-application.zip").getFile().toPath();
+        HashCache hashCache = HashCache.create(16);
+        DefaultApplications applications = new DefaultApplications(Mono.just(this.cloudFoundryClient), Mono.just(this.dopplerClient), Mono.just(TEST_SPACE_ID), Optional.of(hashCache),
+            this.randomWords);
+
+        requestApplicationsEmpty(this.cloudFoundryClient, "test-name", TEST_SPACE_ID);
+        requestCreateApplication(this.cloudFoundryClient, ApplicationManifest.builder()
+            .path(testApplication)
+            .domain("test-shared-domain")
+            .name("test-name")
+            .build(), TEST_SPACE_ID, null, "test-application-id");
+        requestSpace(this.cloudFoundryClient, TEST_SPACE_ID, TEST_ORGANIZATION_ID);
+        requestListMatchingResources(this.cloudFoundryClient, Arrays.asList(new ResourceMatchingUtils.ArtifactMetadata("da39a3ee5e6b4b0d3255bfef95601890afd80709", "Staticfile", "100644", 0),
+            new ResourceMatchingUtils.ArtifactMetadata("45044a6ddbfe11415a8f8a6219de68a2c66b496b", "index.html", "100644", 178)));
+        requestPrivateDomainsEmpty(this.cloudFoundryClient, TEST_ORGANIZATION_ID);
+        requestSharedDomains(this.cloudFoundryClient, "test-shared-domain", "test-shared-domain-id");
+        requestRoutesEmpty(this.cloudFoundryClient, "test-shared-domain-id", "test-name", null);
+        requestCreateRoute(this.cloudFoundryClient, "test-shared-domain-id", "test-name", null, TEST_SPACE_ID, "test-route-id");
+        requestAssociateRoute(this.cloudFoundryClient, "test-application-id", "test-route-id");
+        requestUpload(this.cloudFoundryClient, "test-application-id", testApplication, "test-job-id");
+        requestJobSuccess(this.cloudFoundryClient, "test-job-entity-id");
+        requestUpdateApplicationState(this.cloudFoundryClient, "test-application-id", "STOPPED");
+        requestUpdateApplicationState(this.cloudFoundryClient, "test-application-id", "STARTED");
+        requestGetApplication(this.cloudFoundryClient, "test-application-id");
+        requestApplicationInstancesRunning(this.cloudFoundryClient, "test-application-id");
+
+        PushApplicationRequest request = PushApplicationRequest.builder()
+            .path(testApplication)
+            .domain("test-shared-domain")
+            .name("test-name")
+            .build();
+
+        applications
+            .push(request)
+            .as(StepVerifier::create)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(hashCache.getHits()).isEqualTo(0);
+        assertThat(hashCache.getMisses()).isEqualTo(2);
+
+        requestJobSuccess(this.cloudFoundryClient, "test-job-entity-id");
+
+        applications
+            .push(request)
+            .as(StepVerifier::create)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(hashCache.getHits()).isEqualTo(2);
+        assertThat(hashCache.getMisses()).isEqualTo(2);
+    }
+
     @Test
     public void pushNewApplicationWithEnvironmentVariables() throws IOException {
         Path testApplication = new ClassPathResource("test-application.zip").getFile().toPath();
@@ -2573,6 +2646,39 @@ public final class DefaultApplicationsTest extends AbstractOperationsTest {
             .verify(Duration.ofSeconds(5));
     }
 
+    @Test
+    public void tailLogs() {
+        requestSpaceSummary(this.cloudFoundryClient, TEST_SPACE_ID);
+        requestLogsStreamForApplication(this.dopplerClient, "application-summary-id");
+
+        this.applications
+            .tailLogs(TailLogsRequest.builder()
+                .name("application-summary-name")
+                .build())
+            .as(StepVerifier::create)
+            .expectNext(ApplicationLog.builder()
+                .applicationName("application-summary-name")
+                .logMessage(fill(LogMessage.builder(), "log-message-")
+                    .applicationId("application-summary-id")
+                    .build())
+                .build())
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void tailLogsNoApp() {
+        requestSpaceSummary(this.cloudFoundryClient, TEST_SPACE_ID);
+
+        this.applications
+            .tailLogs(TailLogsRequest.builder()
+                .name("test-application-name")
+                .build())
+            .as(StepVerifier::create)
+            .consumeErrorWith(t -> assertThat(t).isInstanceOf(IllegalArgumentException.class).hasMessage("Applications test-application-name do not exist"))
+            .verify(Duration.ofSeconds(5));
+    }
+
     @Test
     public void unsetEnvironmentVariable() {
         requestApplications(this.cloudFoundryClient, "test-app", TEST_SPACE_ID, "test-metadata-id",
@@ -3281,6 +3387,7 @@ public final class DefaultApplicationsTest extends AbstractOperationsTest {
         when(dopplerClient
             .recentLogs(RecentLogsRequest.builder()
                 .applicationId(applicationId)
+                .eventType(EventType.LOG_MESSAGE)
                 .build()))
             .thenReturn(Flux
                 .just(Envelope.builder()
@@ -3291,15 +3398,48 @@ public final class DefaultApplicationsTest extends AbstractOperationsTest {
                     .build()));
     }
 
+    private static void requestLogsRecentTimestamps(DopplerClient dopplerClient, String applicationId, Long... timestamps) {
+        when(dopplerClient
+            .recentLogs(RecentLogsRequest.builder()
+                .applicationId(applicationId)
+                .eventType(EventType.LOG_MESSAGE)
+                .build()))
+            .thenReturn(Flux.fromArray(timestamps)
+                .map(timestamp -> Envelope.builder()
+                    .eventType(EventType.LOG_MESSAGE)
+                    .logMessage(fill(LogMessage.builder(), "log-message-")
+                        .timestamp(timestamp)
+                        .build())
+                    .origin("rsp")
+                    .build()));
+    }
+
     private static void requestLogsStream(DopplerClient dopplerClient, String applicationId) {
         when(dopplerClient
             .stream(StreamRequest.builder()
                 .applicationId(applicationId)
+                .eventType(EventType.LOG_MESSAGE)
+                .build()))
+            .thenReturn(Flux
+                .just(Envelope.builder()
+                    .eventType(EventType.LOG_MESSAGE)
+                    .logMessage(fill(LogMessage.builder(), "log-message-")
+                        .build())
+                    .origin("rsp")
+                    .build()));
+    }
+
+    private static void requestLogsStreamForApplication(DopplerClient dopplerClient, String applicationId) {
+        when(dopplerClient
+            .stream(StreamRequest.builder()
+                .applicationId(applicationId)
+                .eventType(EventType.LOG_MESSAGE)
                 .build()))
             .thenReturn(Flux
                 .just(Envelope.builder()
                     .eventType(EventType.LOG_MESSAGE)
                     .logMessage(fill(LogMessage.builder(), "log-message-")
+                        .applicationId(applicationId)
                         .build())
                     .origin("rsp")
                     .build()));
@@ -26,6 +26,23 @@ public final class LogsRequestTest {
             .build();
     }
 
+    @Test(expected = IllegalStateException.class)
+    public void recentLimitNotPositive() {
+        LogsRequest.builder()
+            .name("test-name")
+            .recentLimit(0)
+            .build();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void recentLimitNotRecent() {
+        LogsRequest.builder()
+            .name("test-name")
+            .recent(false)
+            .recentLimit(10)
+            .build();
+    }
+
     @Test
     public void valid() {
         LogsRequest.builder()
@@ -33,4 +50,12 @@ public final class LogsRequestTest {
             .build();
     }
 
+    @Test
+    public void validRecentLimit() {
+        LogsRequest.builder()
+            .name("test-name")
+            .recentLimit(10)
+            .build();
+    }
+
 }
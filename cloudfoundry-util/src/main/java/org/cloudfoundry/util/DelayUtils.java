@@ -26,6 +26,8 @@ import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -65,6 +67,27 @@ public final class DelayUtils {
         return errors -> getDelay(minimum, maximum, finish, errors.zipWith(Flux.range(0, Integer.MAX_VALUE), (error, iteration) -> iteration.longValue()));
     }
 
+    /**
+     * Implements a jittered exponential backoff delay for use with {@link Flux#repeatWhen(Function)} and {@link Flux#retryWhen(Function)}, with no overall timeout.  Each delay is
+     * chosen at random between {@code minimum} and an exponentially increasing bound, so that many clients retrying at the same time are spread out.
+     *
+     * @param minimum  the minimum duration
+     * @param maximum  the maximum duration
+     * @param attempts the number of consecutive attempts, incremented for each delay.  Callers reset it to zero once an attempt succeeds in order to reset the backoff.
+     * @param <T>      the type of the companion {@link Flux}
+     * @return a delayed {@link Publisher}
+     */
+    public static <T> Function<Flux<T>, Publisher<?>> exponentialBackOffWithJitter(Duration minimum, Duration maximum, AtomicInteger attempts) {
+        return signals -> signals
+            .flatMap(signal -> {
+                Duration delay = calculateJitteredDuration(minimum, maximum, attempts.getAndIncrement());
+
+                return Mono
+                    .delay(delay)
+                    .doOnSubscribe(logDelay(delay));
+            }, 1);
+    }
+
     /**
      * Implements an fixed delay for use with {@link Mono#repeatWhenEmpty(Function)}
      *
@@ -95,6 +118,13 @@ public final class DelayUtils {
         return min(candidate, maximum);
     }
 
+    private static Duration calculateJitteredDuration(Duration minimum, Duration maximum, int attempt) {
+        Duration bound = calculateDuration(minimum, maximum, (long) Math.min(attempt, 30));
+        long spread = bound.minus(minimum).toMillis();
+
+        return spread > 0 ? minimum.plusMillis(ThreadLocalRandom.current().nextLong(spread + 1)) : bound;
+    }
+
     private static Flux<?> getDelay(Duration minimum, Duration maximum, Instant finish, Flux<Long> iterations) {
         return iterations
             .map(iteration -> calculateDuration(minimum, maximum, iteration))
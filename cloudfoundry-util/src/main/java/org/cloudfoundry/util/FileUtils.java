@@ -20,22 +20,42 @@ import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.apache.commons.compress.archivers.zip.ZipFile;
 import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
 import reactor.core.scheduler.Schedulers;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.math.BigInteger;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.FileTime;
 import java.nio.file.attribute.PosixFilePermission;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
 
 /**
  * Utilities for files
@@ -44,6 +64,12 @@ public final class FileUtils {
 
     private static final Integer DEFAULT_PERMISSIONS = 0744;
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final long MAPPED_REGION_SIZE = 64 * 1_024 * 1_024;
+
+    private static final long MAPPED_THRESHOLD = 16 * 1_024 * 1_024;
+
     private static final Map<PosixFilePermission, Integer> PERMISSION_MODES = FluentMap.<PosixFilePermission, Integer>builder()
         .entry(PosixFilePermission.OWNER_READ, 0400)
         .entry(PosixFilePermission.OWNER_WRITE, 0200)
@@ -77,20 +103,37 @@ public final class FileUtils {
      * @return the {@link Path} for a compressed artifact
      */
     public static Mono<Path> compress(Path candidate, Predicate<String> filter) {
+        return compress(candidate, filter, 1);
+    }
+
+    /**
+     * Compresses a candidate {@link Path} filtering out entries.  If the candidate is a directory, up to {@code parallelism} of its files are compressed concurrently on the shared
+     * elastic scheduler and written in the order they are encountered.  Files in formats that are already compressed are stored rather than recompressed.  Files of 16 MiB or more
+     * are not buffered in full, but are stored or deflated as they are written, so that no file is read twice.
+     *
+     * @param candidate   the candidate {@link Path} to compress
+     * @param filter      a filter applied to each path
+     * @param parallelism the number of workers to compress files with
+     * @return the {@link Path} for a compressed artifact
+     */
+    public static Mono<Path> compress(Path candidate, Predicate<String> filter, int parallelism) {
         return Mono
             .defer(() -> {
                 try {
                     Path staging = Files.createTempFile(String.format("resource-matched-%s-", candidate.getFileName()), ".zip");
 
-                    try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(staging.toFile())) {
-                        if (Files.isDirectory(candidate)) {
-                            compressFromDirectory(candidate, filter, out);
-                        } else {
-                            compressFromZip(candidate, filter, out);
-                        }
-                    }
-
-                    return Mono.just(staging);
+                    return Mono
+                        .using(() -> new ZipArchiveOutputStream(staging.toFile()),
+                            out -> parallelism > 1 && Files.isDirectory(candidate) ? compressFromDirectory(candidate, filter, parallelism, out) :
+                                Mono.<Void>fromRunnable(() -> compress(candidate, filter, out)),
+                            out -> {
+                                try {
+                                    out.close();
+                                } catch (IOException e) {
+                                    throw Exceptions.propagate(e);
+                                }
+                            })
+                        .then(Mono.just(staging));
                 } catch (IOException e) {
                     throw Exceptions.propagate(e);
                 }
@@ -98,6 +141,49 @@ public final class FileUtils {
             .subscribeOn(Schedulers.elastic());
     }
 
+    /**
+     * Compresses a candidate {@link Path} filtering out entries, streaming the compressed artifact as it is produced rather than staging it to a temporary file.
+     *
+     * @param candidate  the candidate {@link Path} to compress
+     * @param filter     a filter applied to each path
+     * @param bufferSize the number of compressed bytes to collect in each element of the stream
+     * @return a stream of the bytes of the compressed artifact
+     * @see #compressStream(Path, Predicate, int, Supplier, Consumer)
+     */
+    public static Flux<byte[]> compressStream(Path candidate, Predicate<String> filter, int bufferSize) {
+        return compressStream(candidate, filter, bufferSize, () -> new ByteArrayOutputStream(bufferSize), buffer -> {
+        })
+            .map(ByteArrayOutputStream::toByteArray);
+    }
+
+    /**
+     * Compresses a candidate {@link Path} filtering out entries, streaming the compressed artifact as it is produced rather than staging it to a temporary file.  The artifact is
+     * compressed directly into buffers obtained from the buffer supplier, and only as they are requested, so compression overlaps with consumption of the stream but no thread
+     * waits while nothing is requested.  Each buffer holds at least {@code bufferSize} bytes, other than the last, and at most {@code bufferSize} bytes more than that, so memory
+     * is bounded by the number of buffers in flight.  The exceptions are an archive's central directory, which is written into the last buffer in full, and entries of an archive
+     * candidate, which are copied without recompression only when they are no larger than {@code bufferSize} and are otherwise recompressed.
+     * <p>
+     * The length of the artifact is not known in advance, so it must be sent with chunked transfer encoding.
+     *
+     * @param candidate      the candidate {@link Path} to compress
+     * @param filter         a filter applied to each path
+     * @param bufferSize     the number of compressed bytes to collect in each buffer
+     * @param bufferSupplier a supplier of the buffers to compress into
+     * @param discard        a consumer of buffers that have been obtained from the supplier but will not be emitted
+     * @param <T>            the type of buffer
+     * @return a stream of buffers containing the bytes of the compressed artifact
+     */
+    public static <T extends OutputStream> Flux<T> compressStream(Path candidate, Predicate<String> filter, int bufferSize, Supplier<T> bufferSupplier, Consumer<T> discard) {
+        return Flux
+            .<T, CompressionStream>generate(() -> CompressionStream.open(candidate, filter, bufferSize),
+                (compression, sink) -> {
+                    compression.next(sink, bufferSupplier, discard);
+                    return compression;
+                },
+                CompressionStream::close)
+            .subscribeOn(Schedulers.elastic());
+    }
+
     /**
      * Get the relative path of an application
      *
@@ -111,14 +197,36 @@ public final class FileUtils {
     }
 
     /**
-     * Calculates the SHA-1 hash for a {@link Path}
+     * Calculates the SHA-1 hash for a {@link Path}.  The file is always read.  Use {@link HashCache#hash(Path)} to skip files that have not changed since they were last hashed.
      *
      * @param path the {@link Path} to calculate the hash for
      * @return a {@link String} representation of the hash
      */
     public static String hash(Path path) {
-        try (InputStream in = Files.newInputStream(path)) {
-            return hash(in);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MessageDigest digest = getDigest();
+            long size = channel.size();
+
+            if (size >= MAPPED_THRESHOLD) {
+                for (long position = 0; position < size; position += MAPPED_REGION_SIZE) {
+                    digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPED_REGION_SIZE, size - position)));
+                }
+            } else {
+                ByteArrayPool.withByteArray(buffer -> {
+                    try {
+                        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+                        while (channel.read(byteBuffer) != -1) {
+                            byteBuffer.flip();
+                            digest.update(byteBuffer);
+                            byteBuffer.clear();
+                        }
+                    } catch (IOException e) {
+                        throw Exceptions.propagate(e);
+                    }
+                });
+            }
+
+            return toHex(digest.digest());
         } catch (IOException e) {
             throw Exceptions.propagate(e);
         }
@@ -131,24 +239,20 @@ public final class FileUtils {
      * @return {@link String} representation of the hash
      */
     public static String hash(InputStream in) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("sha1");
+        MessageDigest digest = getDigest();
 
-            ByteArrayPool.withByteArray(buffer -> {
-                try {
-                    int length;
-                    while ((length = in.read(buffer)) != -1) {
-                        digest.update(buffer, 0, length);
-                    }
-                } catch (IOException e) {
-                    throw Exceptions.propagate(e);
+        ByteArrayPool.withByteArray(buffer -> {
+            try {
+                int length;
+                while ((length = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, length);
                 }
-            });
+            } catch (IOException e) {
+                throw Exceptions.propagate(e);
+            }
+        });
 
-            return String.format("%040x", new BigInteger(1, digest.digest()));
-        } catch (NoSuchAlgorithmException e) {
-            throw Exceptions.propagate(e);
-        }
+        return toHex(digest.digest());
     }
 
     /**
@@ -189,6 +293,14 @@ public final class FileUtils {
         }
     }
 
+    private static void compress(Path candidate, Predicate<String> filter, ZipArchiveOutputStream out) {
+        if (Files.isDirectory(candidate)) {
+            compressFromDirectory(candidate, filter, out);
+        } else {
+            compressFromZip(candidate, filter, out);
+        }
+    }
+
     private static void compressFromDirectory(Path candidate, Predicate<String> filter, ZipArchiveOutputStream out) {
         try (Stream<Path> contents = Files.walk(candidate)) {
             contents
@@ -212,6 +324,27 @@ public final class FileUtils {
         }
     }
 
+    private static Mono<Void> compressFromDirectory(Path candidate, Predicate<String> filter, int parallelism, ZipArchiveOutputStream out) {
+        return Flux
+            .using(() -> Files.walk(candidate),
+                contents -> Flux
+                    .fromStream(contents)
+                    .filter(path -> {
+                        try {
+                            return !Files.isSameFile(candidate, path);
+                        } catch (IOException e) {
+                            throw Exceptions.propagate(e);
+                        }
+                    })
+                    .filter(path -> filter.test(getRelativePathName(candidate, path)))
+                    .flatMapSequential(path -> Mono
+                        .fromCallable(() -> CompressedEntry.prepare(candidate, path))
+                        .subscribeOn(Schedulers.elastic()), parallelism),
+                Stream::close)
+            .doOnNext(entry -> entry.writeTo(out))
+            .then();
+    }
+
     private static void compressFromZip(Path candidate, Predicate<String> filter, ZipArchiveOutputStream out) {
         try (ZipFile zipFile = new ZipFile(candidate.toFile())) {
             Enumeration<ZipArchiveEntry> entries = zipFile.getEntries();
@@ -220,9 +353,13 @@ public final class FileUtils {
                 ZipArchiveEntry entry = entries.nextElement();
 
                 if (filter.test(entry.getName())) {
-                    try (InputStream in = zipFile.getInputStream(entry)) {
-                        int mode = entry.getUnixMode();
-                        write(in, entry.getLastModifiedTime(), mode == 0 ? DEFAULT_PERMISSIONS : mode, out, entry.getName());
+                    try (InputStream in = zipFile.getRawInputStream(entry)) {
+                        ZipArchiveEntry copy = new ZipArchiveEntry(entry);
+                        if (entry.getUnixMode() == 0) {
+                            copy.setUnixMode(DEFAULT_PERMISSIONS);
+                        }
+
+                        out.addRawArchiveEntry(copy, in);
                     }
                 }
             }
@@ -231,6 +368,14 @@ public final class FileUtils {
         }
     }
 
+    private static MessageDigest getDigest() {
+        try {
+            return MessageDigest.getInstance("sha1");
+        } catch (NoSuchAlgorithmException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
     private static int getUnixMode(Path path) throws IOException {
         if (!isPosixFile(path)) {
             return DEFAULT_PERMISSIONS;
@@ -245,11 +390,27 @@ public final class FileUtils {
         return path.getFileSystem().supportedFileAttributeViews().contains("posix");
     }
 
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0f];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0f];
+        }
+
+        return new String(chars);
+    }
+
     private static void write(InputStream in, FileTime lastModifiedTime, int mode, ZipArchiveOutputStream out, String path) {
+        ZipArchiveEntry entry = new ZipArchiveEntry(path);
+        entry.setUnixMode(mode);
+        entry.setLastModifiedTime(lastModifiedTime);
+
+        write(in, entry, out);
+    }
+
+    private static void write(InputStream in, ZipArchiveEntry entry, ZipArchiveOutputStream out) {
         try {
-            ZipArchiveEntry entry = new ZipArchiveEntry(path);
-            entry.setUnixMode(mode);
-            entry.setLastModifiedTime(lastModifiedTime);
             out.putArchiveEntry(entry);
 
             if (in != null) {
@@ -271,4 +432,317 @@ public final class FileUtils {
         }
     }
 
+    private static final class CompressedEntry {
+
+        private static final Set<String> STORED_EXTENSIONS = new HashSet<>(Arrays.asList(
+            "7z", "bz2", "ear", "gif", "gz", "jar", "jpeg", "jpg", "mp3", "mp4", "png", "tgz", "war", "woff", "woff2", "xz", "zip"));
+
+        private final ZipArchiveEntry entry;
+
+        private final Path path;
+
+        private final byte[] raw;
+
+        private CompressedEntry(ZipArchiveEntry entry, Path path, byte[] raw) {
+            this.entry = entry;
+            this.path = path;
+            this.raw = raw;
+        }
+
+        private static CompressedEntry prepare(Path root, Path path) throws IOException {
+            ZipArchiveEntry entry = new ZipArchiveEntry(getRelativePathName(root, path));
+            entry.setUnixMode(getUnixMode(path));
+            entry.setLastModifiedTime(Files.getLastModifiedTime(path));
+
+            if (Files.isDirectory(path)) {
+                return new CompressedEntry(entry, null, null);
+            }
+
+            boolean buffered = Files.size(path) < MAPPED_THRESHOLD;
+
+            if (isStored(path)) {
+                entry.setMethod(ZipEntry.STORED);
+
+                if (!buffered) {
+                    // the archive is file-backed, so it seeks back to record the CRC and size once the entry has been written
+                    return new CompressedEntry(entry, path, null);
+                }
+
+                CRC32 crc = new CRC32();
+                ByteArrayOutputStream stored = new ByteArrayOutputStream();
+                long size = copy(path, crc, stored);
+
+                entry.setCrc(crc.getValue());
+                entry.setSize(size);
+                entry.setCompressedSize(size);
+
+                return new CompressedEntry(entry, path, stored.toByteArray());
+            }
+
+            if (!buffered) {
+                return new CompressedEntry(entry, path, null);
+            }
+
+            CRC32 crc = new CRC32();
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+            try (DeflaterOutputStream out = new DeflaterOutputStream(compressed, deflater)) {
+                long size = copy(path, crc, out);
+                out.finish();
+
+                entry.setMethod(ZipEntry.DEFLATED);
+                entry.setCrc(crc.getValue());
+                entry.setSize(size);
+                entry.setCompressedSize(deflater.getBytesWritten());
+            } finally {
+                deflater.end();
+            }
+
+            return new CompressedEntry(entry, path, compressed.toByteArray());
+        }
+
+        private static long copy(Path path, CRC32 crc, OutputStream out) throws IOException {
+            AtomicLong size = new AtomicLong();
+
+            try (InputStream in = Files.newInputStream(path)) {
+                ByteArrayPool.withByteArray(buffer -> {
+                    try {
+                        int length;
+                        while ((length = in.read(buffer)) != -1) {
+                            crc.update(buffer, 0, length);
+                            size.addAndGet(length);
+
+                            if (out != null) {
+                                out.write(buffer, 0, length);
+                            }
+                        }
+                    } catch (IOException e) {
+                        throw Exceptions.propagate(e);
+                    }
+                });
+            }
+
+            return size.get();
+        }
+
+        private static boolean isStored(Path path) {
+            String fileName = path.getFileName().toString();
+            int index = fileName.lastIndexOf('.');
+
+            return index != -1 && STORED_EXTENSIONS.contains(fileName.substring(index + 1).toLowerCase(Locale.ENGLISH));
+        }
+
+        private void writeTo(ZipArchiveOutputStream out) {
+            try {
+                if (this.path == null) {
+                    out.putArchiveEntry(this.entry);
+                    out.closeArchiveEntry();
+                } else if (this.raw != null) {
+                    out.addRawArchiveEntry(this.entry, new ByteArrayInputStream(this.raw));
+                } else {
+                    try (InputStream in = Files.newInputStream(this.path)) {
+                        write(in, this.entry, out);
+                    }
+                }
+            } catch (IOException e) {
+                throw Exceptions.propagate(e);
+            }
+        }
+
+    }
+
+    private static final class CompressionStream {
+
+        private final int bufferSize;
+
+        private final byte[] chunk = new byte[8_192];
+
+        private final AutoCloseable contents;
+
+        private final Iterator<EntryWriter> entries;
+
+        private boolean finished;
+
+        private InputStream in;
+
+        private final ZipArchiveOutputStream out;
+
+        private final SwitchableOutputStream target = new SwitchableOutputStream();
+
+        private CompressionStream(AutoCloseable contents, Iterator<EntryWriter> entries, int bufferSize) {
+            this.bufferSize = bufferSize;
+            this.contents = contents;
+            this.entries = entries;
+            this.out = new ZipArchiveOutputStream(this.target);
+        }
+
+        private static CompressionStream open(Path candidate, Predicate<String> filter, int bufferSize) throws IOException {
+            if (Files.isDirectory(candidate)) {
+                Stream<Path> contents = Files.walk(candidate);
+
+                Iterator<EntryWriter> entries = contents
+                    .filter(path -> {
+                        try {
+                            return !Files.isSameFile(candidate, path);
+                        } catch (IOException e) {
+                            throw Exceptions.propagate(e);
+                        }
+                    })
+                    .filter(path -> filter.test(getRelativePathName(candidate, path)))
+                    .map(path -> (EntryWriter) out -> {
+                        ZipArchiveEntry entry = new ZipArchiveEntry(getRelativePathName(candidate, path));
+                        entry.setUnixMode(getUnixMode(path));
+                        entry.setLastModifiedTime(Files.getLastModifiedTime(path));
+
+                        out.putArchiveEntry(entry);
+
+                        if (Files.isDirectory(path)) {
+                            out.closeArchiveEntry();
+                            return null;
+                        }
+
+                        return Files.newInputStream(path);
+                    })
+                    .iterator();
+
+                return new CompressionStream(contents, entries, bufferSize);
+            }
+
+            ZipFile zipFile = new ZipFile(candidate.toFile());
+
+            Iterator<EntryWriter> entries = Collections.list(zipFile.getEntries()).stream()
+                .filter(entry -> filter.test(entry.getName()))
+                .map(entry -> (EntryWriter) out -> {
+                    int mode = entry.getUnixMode() == 0 ? DEFAULT_PERMISSIONS : entry.getUnixMode();
+
+                    if (entry.getCompressedSize() <= bufferSize) {
+                        ZipArchiveEntry copy = new ZipArchiveEntry(entry);
+                        copy.setUnixMode(mode);
+
+                        try (InputStream in = zipFile.getRawInputStream(entry)) {
+                            out.addRawArchiveEntry(copy, in);
+                        }
+
+                        return null;
+                    }
+
+                    ZipArchiveEntry copy = new ZipArchiveEntry(entry.getName());
+                    copy.setUnixMode(mode);
+                    copy.setTime(entry.getTime());
+
+                    out.putArchiveEntry(copy);
+                    return zipFile.getInputStream(entry);
+                })
+                .iterator();
+
+            return new CompressionStream(zipFile, entries, bufferSize);
+        }
+
+        private void close() {
+            this.target.switchTo(null);
+
+            try {
+                if (this.in != null) {
+                    this.in.close();
+                    this.out.closeArchiveEntry();
+                }
+
+                this.out.close();
+            } catch (IOException e) {
+                // the stream has already terminated, so a failure to write the remains of the archive is of no consequence
+            } finally {
+                try {
+                    this.contents.close();
+                } catch (Exception e) {
+                    throw Exceptions.propagate(e);
+                }
+            }
+        }
+
+        private <T extends OutputStream> void next(SynchronousSink<T> sink, Supplier<T> bufferSupplier, Consumer<T> discard) {
+            T buffer = bufferSupplier.get();
+            this.target.switchTo(buffer);
+
+            try {
+                while (!this.finished && this.target.count < this.bufferSize) {
+                    step();
+                }
+            } catch (Exception e) {
+                this.target.switchTo(null);
+                discard.accept(buffer);
+                sink.error(Exceptions.unwrap(e));
+                return;
+            }
+
+            this.target.switchTo(null);
+
+            if (this.target.count > 0) {
+                sink.next(buffer);
+            } else {
+                discard.accept(buffer);
+                sink.complete();
+            }
+        }
+
+        private void step() throws IOException {
+            if (this.in != null) {
+                int length = this.in.read(this.chunk);
+
+                if (length == -1) {
+                    this.in.close();
+                    this.in = null;
+                    this.out.closeArchiveEntry();
+                } else {
+                    this.out.write(this.chunk, 0, length);
+                }
+            } else if (this.entries.hasNext()) {
+                this.in = this.entries.next().write(this.out);
+            } else {
+                this.out.finish();
+                this.finished = true;
+            }
+        }
+
+        @FunctionalInterface
+        private interface EntryWriter {
+
+            InputStream write(ZipArchiveOutputStream out) throws IOException;
+
+        }
+
+        private static final class SwitchableOutputStream extends OutputStream {
+
+            private long count;
+
+            private OutputStream delegate;
+
+            @Override
+            public void write(int b) throws IOException {
+                if (this.delegate != null) {
+                    this.delegate.write(b);
+                    this.count++;
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (this.delegate != null) {
+                    this.delegate.write(b, off, len);
+                    this.count += len;
+                }
+            }
+
+            private void switchTo(OutputStream delegate) {
+                if (delegate != null) {
+                    this.count = 0;
+                }
+
+                this.delegate = delegate;
+            }
+
+        }
+
+    }
+
 }
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.util;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Exceptions;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A cache of file content hashes, keyed by absolute path and validated against the file's size, last modified time and file key (the inode where available).  Unchanged files are not
+ * rehashed.  Entries of archives are keyed by the path of the archive and the name of the entry, and validated against the entry's size, last modified time and CRC.
+ * <p>
+ * A file rewritten with the same size within the resolution of its file system's modification times would not be seen to have changed.  So, as with the Git index, an entry whose
+ * last modified time is not at least {@link #MODIFICATION_TIME_RESOLUTION} before the time it was cached is not trusted and the file is rehashed until it is.
+ * <p>
+ * The cache is bounded and evicts the least recently used entries once it is full.  It is safe for use by concurrent pushes and can optionally be persisted to disk so that hashes
+ * survive between runs.
+ */
+public final class HashCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("cloudfoundry-client.hash-cache");
+
+    static final long MODIFICATION_TIME_RESOLUTION = 2_000;
+
+    private static final String SEPARATOR = "\t";
+
+    private static final int FIELDS = 6;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final Optional<Path> location;
+
+    private final Map<String, Entry> entries;
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private HashCache(Optional<Path> location, int maximumSize) {
+        this.location = location;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maximumSize;
+            }
+
+        };
+    }
+
+    /**
+     * Creates a new in-memory instance
+     *
+     * @param maximumSize the maximum number of hashes to cache
+     * @return the cache
+     */
+    public static HashCache create(int maximumSize) {
+        return new HashCache(Optional.empty(), maximumSize);
+    }
+
+    /**
+     * Creates a new instance persisted to a file.  If the file exists, the cache is populated from it.
+     *
+     * @param location    the file to persist the cache to
+     * @param maximumSize the maximum number of hashes to cache
+     * @return the cache
+     */
+    public static HashCache create(Path location, int maximumSize) {
+        HashCache hashCache = new HashCache(Optional.of(location), maximumSize);
+        hashCache.load(location);
+        return hashCache;
+    }
+
+    /**
+     * Returns the number of lookups that were served from the cache
+     *
+     * @return the number of cache hits
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Returns the number of lookups that required the file to be hashed
+     *
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Calculates the SHA-1 hash for a {@link Path}, returning a cached value if the file has not changed since it was last hashed
+     *
+     * @param path the {@link Path} to calculate the hash for
+     * @return a {@link String} representation of the hash
+     */
+    public String hash(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+            return hash(path.toAbsolutePath().toString(), attributes.size(), attributes.lastModifiedTime().toMillis(), Objects.toString(attributes.fileKey(), ""), () -> FileUtils.hash(path));
+        } catch (IOException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    /**
+     * Calculates the SHA-1 hash for an entry of an archive, returning a cached value if the entry has not changed since it was last hashed
+     *
+     * @param archive the {@link Path} of the archive
+     * @param zipFile the open archive
+     * @param entry   the entry to calculate the hash for
+     * @return a {@link String} representation of the hash
+     */
+    public String hash(Path archive, ZipFile zipFile, ZipArchiveEntry entry) {
+        String key = String.format("%s!/%s", archive.toAbsolutePath(), entry.getName());
+
+        return hash(key, entry.getSize(), entry.getTime(), String.format("crc:%08x", entry.getCrc()), () -> {
+            try (InputStream in = zipFile.getInputStream(entry)) {
+                return FileUtils.hash(in);
+            } catch (IOException e) {
+                throw Exceptions.propagate(e);
+            }
+        });
+    }
+
+    /**
+     * Writes the contents of the cache to its file, if it has one.  The file is replaced atomically where the file system supports it.
+     */
+    public void persist() {
+        if (!this.location.isPresent()) {
+            return;
+        }
+
+        Path location = this.location.get();
+
+        List<String> lines = new ArrayList<>();
+        synchronized (this.entries) {
+            this.entries.forEach((key, entry) -> lines.add(entry.toLine(key)));
+        }
+
+        try {
+            Path staging = Files.createTempFile(location.toAbsolutePath().getParent(), location.getFileName().toString(), ".tmp");
+
+            try (BufferedWriter out = Files.newBufferedWriter(staging, StandardCharsets.UTF_8)) {
+                for (String line : lines) {
+                    out.write(line);
+                    out.newLine();
+                }
+            }
+
+            try {
+                Files.move(staging, location, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(staging, location, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            switch (c) {
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+
+        return escaped.toString();
+    }
+
+    private static String unescape(String value) {
+        StringBuilder unescaped = new StringBuilder(value.length());
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c != '\\') {
+                unescaped.append(c);
+                continue;
+            }
+
+            if (++i == value.length()) {
+                throw new IllegalArgumentException(String.format("Incomplete escape sequence: %s", value));
+            }
+
+            switch (value.charAt(i)) {
+                case '\\':
+                    unescaped.append('\\');
+                    break;
+                case 't':
+                    unescaped.append('\t');
+                    break;
+                case 'n':
+                    unescaped.append('\n');
+                    break;
+                case 'r':
+                    unescaped.append('\r');
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.format("Unknown escape sequence: %s", value));
+            }
+        }
+
+        return unescaped.toString();
+    }
+
+    private String hash(String key, long size, long lastModified, String fileKey, Supplier<String> hasher) {
+        Entry entry;
+        synchronized (this.entries) {
+            entry = this.entries.get(key);
+        }
+
+        if (entry != null && entry.matches(size, lastModified, fileKey)) {
+            this.hits.incrementAndGet();
+            return entry.hash;
+        }
+
+        this.misses.incrementAndGet();
+        long cached = System.currentTimeMillis();
+        String hash = hasher.get();
+
+        synchronized (this.entries) {
+            this.entries.put(key, new Entry(hash, size, lastModified, fileKey, cached));
+        }
+
+        return hash;
+    }
+
+    private void load(Path location) {
+        if (!Files.exists(location)) {
+            return;
+        }
+
+        try (BufferedReader in = Files.newBufferedReader(location, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] fields = line.split(SEPARATOR, -1);
+
+                if (fields.length != FIELDS) {
+                    LOGGER.debug("Ignoring malformed hash cache line: {}", line);
+                    continue;
+                }
+
+                try {
+                    this.entries.put(unescape(fields[5]), new Entry(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]), unescape(fields[3]), Long.parseLong(fields[4])));
+                } catch (IllegalArgumentException e) {
+                    LOGGER.debug("Ignoring malformed hash cache line: {}", line);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to load hash cache from {}", location, e);
+        }
+    }
+
+    private static final class Entry {
+
+        private final long cached;
+
+        private final String fileKey;
+
+        private final String hash;
+
+        private final long lastModified;
+
+        private final long size;
+
+        private Entry(String hash, long size, long lastModified, String fileKey, long cached) {
+            this.cached = cached;
+            this.fileKey = fileKey;
+            this.hash = hash;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+        private boolean matches(long size, long lastModified, String fileKey) {
+            return this.size == size && this.lastModified == lastModified && this.fileKey.equals(fileKey) && this.lastModified + MODIFICATION_TIME_RESOLUTION <= this.cached;
+        }
+
+        private String toLine(String key) {
+            return String.join(SEPARATOR, this.hash, String.valueOf(this.size), String.valueOf(this.lastModified), escape(this.fileKey), String.valueOf(this.cached), escape(key));
+        }
+
+    }
+
+}
@@ -27,6 +27,16 @@ import java.util.function.Function;
  */
 public final class PaginationUtils {
 
+    /**
+     * The default number of pages that are requested concurrently, ahead of downstream demand
+     */
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    /**
+     * The default number of responses that are prefetched from each page request
+     */
+    public static final int DEFAULT_PREFETCH = 1;
+
     private PaginationUtils() {
     }
 
@@ -41,10 +51,27 @@ public final class PaginationUtils {
     public static <T extends org.cloudfoundry.client.v2.Resource<?>, U extends org.cloudfoundry.client.v2.PaginatedResponse<T>> Flux<T> requestClientV2Resources(
         Function<Integer, Mono<U>> pageSupplier) {
 
+        return requestClientV2Resources(pageSupplier, DEFAULT_CONCURRENCY, DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Generate the stream of resources accumulated from a series of responses obtained from the page supplier.  Pages are requested lazily as downstream demand arrives, with at most
+     * {@code concurrency} pages in flight, and resources are emitted in page order.
+     *
+     * @param pageSupplier a function from integers to {@link Mono}s of {@link org.cloudfoundry.client.v2.PaginatedResponse}s.
+     * @param concurrency  the maximum number of pages to request concurrently
+     * @param prefetch     the number of responses to prefetch from each page request
+     * @param <T>          the type of resource in the list on each {@link org.cloudfoundry.client.v2.PaginatedResponse}.
+     * @param <U>          the type of {@link org.cloudfoundry.client.v2.PaginatedResponse}.
+     * @return a stream of <code>T</code> objects.
+     */
+    public static <T extends org.cloudfoundry.client.v2.Resource<?>, U extends org.cloudfoundry.client.v2.PaginatedResponse<T>> Flux<T> requestClientV2Resources(
+        Function<Integer, Mono<U>> pageSupplier, int concurrency, int prefetch) {
+
         return pageSupplier
             .apply(1)
-            .flatMapMany(requestClientV2AdditionalPages(pageSupplier))
-            .flatMap(ResourceUtils::getResources);
+            .flatMapMany(requestClientV2AdditionalPages(pageSupplier, concurrency, prefetch))
+            .concatMap(ResourceUtils::getResources);
     }
 
     /**
@@ -57,9 +84,25 @@ public final class PaginationUtils {
      */
     @SuppressWarnings("rawtypes")
     public static <T, U extends org.cloudfoundry.client.v3.PaginatedResponse<T>> Flux<T> requestClientV3Resources(Function<Integer, Mono<U>> pageSupplier) {
+        return requestClientV3Resources(pageSupplier, DEFAULT_CONCURRENCY, DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Generate the stream of resources accumulated from a series of responses obtained from the page supplier.  Pages are requested lazily as downstream demand arrives, with at most
+     * {@code concurrency} pages in flight, and resources are emitted in page order.
+     *
+     * @param pageSupplier a function from integers to {@link Mono}s of {@link org.cloudfoundry.client.v3.PaginatedResponse}s.
+     * @param concurrency  the maximum number of pages to request concurrently
+     * @param prefetch     the number of responses to prefetch from each page request
+     * @param <T>          the type of resource in the list on each {@link org.cloudfoundry.client.v3.PaginatedResponse}.
+     * @param <U>          the type of {@link org.cloudfoundry.client.v3.PaginatedResponse}.
+     * @return a stream of <code>T</code> objects.
+     */
+    @SuppressWarnings("rawtypes")
+    public static <T, U extends org.cloudfoundry.client.v3.PaginatedResponse<T>> Flux<T> requestClientV3Resources(Function<Integer, Mono<U>> pageSupplier, int concurrency, int prefetch) {
         return pageSupplier
             .apply(1)
-            .flatMapMany(requestClientV3AdditionalPages(pageSupplier))
+            .flatMapMany(requestClientV3AdditionalPages(pageSupplier, concurrency, prefetch))
             .flatMapIterable(org.cloudfoundry.client.v3.PaginatedResponse::getResources);
     }
 
@@ -73,44 +116,58 @@ public final class PaginationUtils {
      */
     @SuppressWarnings("rawtypes")
     public static <T, U extends org.cloudfoundry.uaa.PaginatedResponse<T>> Flux<T> requestUaaResources(Function<Integer, Mono<U>> pageSupplier) {
+        return requestUaaResources(pageSupplier, DEFAULT_CONCURRENCY, DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Generate the stream of resources accumulated from a series of responses obtained from the page supplier.  Pages are requested lazily as downstream demand arrives, with at most
+     * {@code concurrency} pages in flight, and resources are emitted in page order.
+     *
+     * @param pageSupplier a function from integers to {@link Mono}s of {@link org.cloudfoundry.uaa.PaginatedResponse}s.
+     * @param concurrency  the maximum number of pages to request concurrently
+     * @param prefetch     the number of responses to prefetch from each page request
+     * @param <T>          the type of resource in the list on each {@link org.cloudfoundry.uaa.PaginatedResponse}.
+     * @param <U>          the type of {@link org.cloudfoundry.uaa.PaginatedResponse}.
+     * @return a stream of <code>T</code> objects.
+     */
+    @SuppressWarnings("rawtypes")
+    public static <T, U extends org.cloudfoundry.uaa.PaginatedResponse<T>> Flux<T> requestUaaResources(Function<Integer, Mono<U>> pageSupplier, int concurrency, int prefetch) {
         return pageSupplier
             .apply(1)
-            .flatMapMany(requestUaaAdditionalPages(pageSupplier))
+            .flatMapMany(requestUaaAdditionalPages(pageSupplier, concurrency, prefetch))
             .flatMapIterable(org.cloudfoundry.uaa.PaginatedResponse::getResources);
     }
 
-    private static <T> Function<T, Flux<T>> requestAdditionalPages(Function<Integer, Mono<T>> pageSupplier, Function<T, Integer> totalPagesSupplier) {
+    private static <T> Function<T, Flux<T>> requestAdditionalPages(Function<Integer, Mono<T>> pageSupplier, Function<T, Integer> totalPagesSupplier, int concurrency, int prefetch) {
         return response -> {
             Integer totalPages = Optional.ofNullable(totalPagesSupplier.apply(response)).orElse(1);
 
             return Flux
                 .range(2, totalPages - 1)
-                .flatMap(pageSupplier)
-                .startWith(response)
-                .buffer()
-                .flatMapIterable(d -> d);
+                .flatMapSequential(pageSupplier, concurrency, prefetch)
+                .startWith(response);
         };
     }
 
-    private static <T extends org.cloudfoundry.client.v2.PaginatedResponse<?>> Function<T, Flux<T>> requestClientV2AdditionalPages(Function<Integer, Mono<T>> pageSupplier) {
-        return requestAdditionalPages(pageSupplier, response -> response.getTotalPages());
+    private static <T extends org.cloudfoundry.client.v2.PaginatedResponse<?>> Function<T, Flux<T>> requestClientV2AdditionalPages(Function<Integer, Mono<T>> pageSupplier, int concurrency,
+                                                                                                                                      int prefetch) {
+        return requestAdditionalPages(pageSupplier, response -> response.getTotalPages(), concurrency, prefetch);
     }
 
-    private static <T extends org.cloudfoundry.client.v3.PaginatedResponse<?>> Function<T, Flux<T>> requestClientV3AdditionalPages(Function<Integer, Mono<T>> pageSupplier) {
-        return requestAdditionalPages(pageSupplier, response -> response.getPagination().getTotalPages());
+    private static <T extends org.cloudfoundry.client.v3.PaginatedResponse<?>> Function<T, Flux<T>> requestClientV3AdditionalPages(Function<Integer, Mono<T>> pageSupplier, int concurrency,
+                                                                                                                                      int prefetch) {
+        return requestAdditionalPages(pageSupplier, response -> response.getPagination().getTotalPages(), concurrency, prefetch);
     }
 
-    private static <T extends org.cloudfoundry.uaa.PaginatedResponse<?>> Function<T, Flux<T>> requestUaaAdditionalPages(Function<Integer, Mono<T>> pageSupplier) {
+    private static <T extends org.cloudfoundry.uaa.PaginatedResponse<?>> Function<T, Flux<T>> requestUaaAdditionalPages(Function<Integer, Mono<T>> pageSupplier, int concurrency, int prefetch) {
         return response -> {
             Integer totalPages = (response.getTotalResults() - 1) / response.getItemsPerPage() + 1;
 
             return Flux
                 .range(1, totalPages - 1)
                 .map(page -> 1 + (page * response.getItemsPerPage()))
-                .flatMap(pageSupplier)
-                .startWith(response)
-                .buffer()
-                .flatMapIterable(d -> d);
+                .flatMapSequential(pageSupplier, concurrency, prefetch)
+                .startWith(response);
         };
     }
 
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.util;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reorders the elements of a source within a sliding time window, as described by {@link SortingUtils#timespan(Comparator, Duration, int, SortingUtils.LateElements)}.
+ * <p>
+ * Arriving elements are handed off through a lock-free queue and every other piece of state is only touched by whichever thread is currently draining, so the priority queue needs
+ * no locking.  At most {@code maximumSize} elements are requested from the source beyond those that have been emitted or dropped, which bounds memory use and propagates back
+ * pressure from the subscriber.  Element ages are measured with {@link System#nanoTime()}, read once per arrival and once per drain.
+ */
+final class ReorderBuffer<T> implements Subscriber<T>, Subscription {
+
+    private final Subscriber<? super T> actual;
+
+    private final Queue<Arrival<T>> arrivals = new ConcurrentLinkedQueue<>();
+
+    private final Comparator<T> comparator;
+
+    private final Queue<T> late = new ArrayDeque<>();
+
+    private final SortingUtils.LateElements lateElements;
+
+    private final int limit;
+
+    private final int maximumSize;
+
+    private final Queue<Arrival<T>> pending;
+
+    private final AtomicLong requested = new AtomicLong();
+
+    private final Duration tick;
+
+    private final long timespan;
+
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile boolean cancelled;
+
+    private long consumed;
+
+    private volatile boolean done;
+
+    private Throwable error;
+
+    private T lastEmitted;
+
+    private volatile Disposable ticker;
+
+    private Subscription upstream;
+
+    ReorderBuffer(Subscriber<? super T> actual, Comparator<T> comparator, Duration timespan, int maximumSize, SortingUtils.LateElements lateElements) {
+        this.actual = actual;
+        this.comparator = comparator;
+        this.lateElements = lateElements;
+        this.limit = Math.max(1, maximumSize - (maximumSize >> 2));
+        this.maximumSize = maximumSize;
+        this.pending = new PriorityQueue<>((a, b) -> comparator.compare(a.value, b.value));
+        this.tick = Duration.ofNanos(Math.max(Duration.ofMillis(1).toNanos(), timespan.toNanos() / 2));
+        this.timespan = timespan.toNanos();
+    }
+
+    @Override
+    public void cancel() {
+        if (this.cancelled) {
+            return;
+        }
+
+        this.cancelled = true;
+        this.upstream.cancel();
+        dispose();
+
+        if (this.wip.getAndIncrement() == 0) {
+            clear();
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        this.done = true;
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        this.error = t;
+        this.done = true;
+        drain();
+    }
+
+    @Override
+    public void onNext(T t) {
+        this.arrivals.offer(new Arrival<>(t, System.nanoTime()));
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        this.upstream = s;
+        this.ticker = Flux.interval(this.tick).subscribe(n -> drain());
+        this.actual.onSubscribe(this);
+        s.request(this.maximumSize);
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            cancel();
+            this.actual.onError(new IllegalArgumentException(String.format("Request must be positive: %d", n)));
+            return;
+        }
+
+        long current;
+        do {
+            current = this.requested.get();
+        } while (current != Long.MAX_VALUE && !this.requested.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+
+        drain();
+    }
+
+    private void clear() {
+        this.arrivals.clear();
+        this.late.clear();
+        this.pending.clear();
+    }
+
+    private void dispose() {
+        Disposable ticker = this.ticker;
+
+        if (ticker != null) {
+            ticker.dispose();
+        }
+    }
+
+    private void drain() {
+        if (this.wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+
+        for (; ; ) {
+            if (this.cancelled) {
+                clear();
+                return;
+            }
+
+            boolean d = this.done;
+
+            if (d && this.error != null) {
+                clear();
+                dispose();
+                this.actual.onError(this.error);
+                return;
+            }
+
+            for (Arrival<T> arrival = this.arrivals.poll(); arrival != null; arrival = this.arrivals.poll()) {
+                if (this.lastEmitted == null || this.comparator.compare(arrival.value, this.lastEmitted) >= 0) {
+                    this.pending.offer(arrival);
+                } else if (SortingUtils.LateElements.EMIT == this.lateElements) {
+                    this.late.offer(arrival.value);
+                } else {
+                    this.consumed++;
+                }
+            }
+
+            long now = System.nanoTime();
+            long r = this.requested.get();
+            long e = 0;
+
+            while (e != r) {
+                T next = this.late.poll();
+
+                if (next == null) {
+                    Arrival<T> head = this.pending.peek();
+
+                    if (head == null || !(d || this.pending.size() >= this.maximumSize || now - head.arrived >= this.timespan)) {
+                        break;
+                    }
+
+                    this.pending.poll();
+                    next = head.value;
+                    this.lastEmitted = next;
+                }
+
+                this.actual.onNext(next);
+                this.consumed++;
+                e++;
+
+                if (this.cancelled) {
+                    clear();
+                    return;
+                }
+            }
+
+            if (d && this.late.isEmpty() && this.pending.isEmpty()) {
+                dispose();
+                this.actual.onComplete();
+                return;
+            }
+
+            if (e != 0 && r != Long.MAX_VALUE) {
+                this.requested.addAndGet(-e);
+            }
+
+            if (this.consumed >= this.limit) {
+                this.upstream.request(this.consumed);
+                this.consumed = 0;
+            }
+
+            missed = this.wip.addAndGet(-missed);
+            if (missed == 0) {
+                break;
+            }
+        }
+    }
+
+    private static final class Arrival<T> {
+
+        private final long arrived;
+
+        private final T value;
+
+        private Arrival(T value, long arrived) {
+            this.arrived = arrived;
+            this.value = value;
+        }
+
+    }
+
+}
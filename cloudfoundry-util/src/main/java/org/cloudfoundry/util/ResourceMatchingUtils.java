@@ -33,23 +33,80 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Enumeration;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * Utilities for matching resources
  */
 public final class ResourceMatchingUtils {
 
+    private static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
     private static final Logger LOGGER = LoggerFactory.getLogger("cloudfoundry-client.resource-matching");
 
     private ResourceMatchingUtils() {
     }
 
+    /**
+     * Returns the artifacts of an application that already exist on the server, hashing the application's files with one worker per available processor
+     *
+     * @param cloudFoundryClient the client to use to match resources
+     * @param application        the application directory or archive
+     * @return the metadata of the artifacts that were matched
+     */
     public static Mono<List<ArtifactMetadata>> getMatchedResources(CloudFoundryClient cloudFoundryClient, Path application) {
-        return (Files.isDirectory(application) ? getArtifactMetadataFromDirectory(application) : getArtifactMetadataFromZip(application))
+        return getMatchedResources(cloudFoundryClient, application, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Returns the artifacts of an application that already exist on the server
+     *
+     * @param cloudFoundryClient the client to use to match resources
+     * @param application        the application directory or archive
+     * @param parallelism        the number of workers to hash the application's files with
+     * @return the metadata of the artifacts that were matched
+     */
+    public static Mono<List<ArtifactMetadata>> getMatchedResources(CloudFoundryClient cloudFoundryClient, Path application, int parallelism) {
+        return getMatchedResources(cloudFoundryClient, application, parallelism, FileUtils::hash, ResourceMatchingUtils::hash);
+    }
+
+    /**
+     * Returns the artifacts of an application that already exist on the server, hashing the application's files with one worker per available processor and consulting a
+     * {@link HashCache} so that files that have not changed since they were last hashed are not rehashed
+     *
+     * @param cloudFoundryClient the client to use to match resources
+     * @param application        the application directory or archive
+     * @param hashCache          the cache of file hashes
+     * @return the metadata of the artifacts that were matched
+     */
+    public static Mono<List<ArtifactMetadata>> getMatchedResources(CloudFoundryClient cloudFoundryClient, Path application, HashCache hashCache) {
+        return getMatchedResources(cloudFoundryClient, application, DEFAULT_PARALLELISM, hashCache);
+    }
+
+    /**
+     * Returns the artifacts of an application that already exist on the server, consulting a {@link HashCache} so that files, or entries of an archive, that have not changed since
+     * they were last hashed are not rehashed.  The cache is persisted once the application has been hashed.
+     *
+     * @param cloudFoundryClient the client to use to match resources
+     * @param application        the application directory or archive
+     * @param parallelism        the number of workers to hash the application's files with
+     * @param hashCache          the cache of file hashes
+     * @return the metadata of the artifacts that were matched
+     */
+    public static Mono<List<ArtifactMetadata>> getMatchedResources(CloudFoundryClient cloudFoundryClient, Path application, int parallelism, HashCache hashCache) {
+        return getMatchedResources(cloudFoundryClient, application, parallelism, hashCache::hash, hashCache::hash)
+            .doOnSuccess(matched -> {
+                LOGGER.debug("Hash cache hits: {}, misses: {}", hashCache.getHits(), hashCache.getMisses());
+                hashCache.persist();
+            });
+    }
+
+    private static Mono<List<ArtifactMetadata>> getMatchedResources(CloudFoundryClient cloudFoundryClient, Path application, int parallelism, Function<Path, String> hasher,
+                                                                    EntryHasher entryHasher) {
+        return getArtifactMetadata(application, parallelism, hasher, entryHasher)
             .collectMap(ArtifactMetadata::getHash)
             .flatMapMany(artifactMetadatas -> requestListMatchingResources(cloudFoundryClient, artifactMetadatas.values())
                 .flatMapIterable(ListMatchingResourcesResponse::getResources)
@@ -61,7 +118,22 @@ public final class ResourceMatchingUtils {
             .subscribeOn(Schedulers.elastic());
     }
 
-    private static Flux<ArtifactMetadata> getArtifactMetadataFromDirectory(Path application) {
+    private static Flux<ArtifactMetadata> getArtifactMetadata(Path application, int parallelism, Function<Path, String> hasher, EntryHasher entryHasher) {
+        return Flux
+            .defer(() -> Files.isDirectory(application) ? getArtifactMetadataFromDirectory(application, parallelism, hasher) :
+                getArtifactMetadataFromZip(application, parallelism, entryHasher));
+    }
+
+    private static ArtifactMetadata getArtifactMetadata(Path application, ZipFile zipFile, ZipArchiveEntry entry, EntryHasher entryHasher) {
+        String hash = entryHasher.hash(application, zipFile, entry);
+        String path = entry.getName();
+        String permissions = FileUtils.permissions(entry.getUnixMode());
+        int size = (int) entry.getSize();
+
+        return new ArtifactMetadata(hash, path, permissions, size);
+    }
+
+    private static Flux<ArtifactMetadata> getArtifactMetadataFromDirectory(Path application, int parallelism, Function<Path, String> hasher) {
         return Flux
             .defer(() -> {
                 try {
@@ -71,35 +143,37 @@ public final class ResourceMatchingUtils {
                 }
             })
             .filter(path -> !Files.isDirectory(path))
-            .map(path -> new ArtifactMetadata(FileUtils.hash(path), FileUtils.getRelativePathName(application, path), FileUtils.permissions(path), FileUtils.size(path)));
+            .parallel(parallelism)
+            .runOn(Schedulers.elastic())
+            .map(path -> new ArtifactMetadata(hasher.apply(path), FileUtils.getRelativePathName(application, path), FileUtils.permissions(path), FileUtils.size(path)))
+            .sequential();
     }
 
-    private static Flux<ArtifactMetadata> getArtifactMetadataFromZip(Path application) {
-        List<ArtifactMetadata> artifactMetadatas = new ArrayList<>();
-
-        try (ZipFile zipFile = new ZipFile(application.toFile())) {
-            Enumeration<ZipArchiveEntry> entries = zipFile.getEntries();
-
-            while (entries.hasMoreElements()) {
-                ZipArchiveEntry entry = entries.nextElement();
-
-                if (!entry.isDirectory()) {
-                    try (InputStream in = zipFile.getInputStream(entry)) {
-                        String hash = FileUtils.hash(in);
-                        String path = entry.getName();
-                        String permissions = FileUtils.permissions(entry.getUnixMode());
-                        int size = (int) entry.getSize();
-
-                        artifactMetadatas.add(new ArtifactMetadata(hash, path, permissions, size));
+    private static Flux<ArtifactMetadata> getArtifactMetadataFromZip(Path application, int parallelism, EntryHasher entryHasher) {
+        return Flux
+            .using(() -> new ZipFile(application.toFile()),
+                zipFile -> Flux
+                    .fromIterable(Collections.list(zipFile.getEntries()))
+                    .filter(entry -> !entry.isDirectory())
+                    .parallel(parallelism)
+                    .runOn(Schedulers.elastic())
+                    .map(entry -> getArtifactMetadata(application, zipFile, entry, entryHasher))
+                    .sequential(),
+                zipFile -> {
+                    try {
+                        zipFile.close();
+                    } catch (IOException e) {
+                        throw Exceptions.propagate(e);
                     }
+                });
+    }
 
-                }
-            }
+    private static String hash(Path application, ZipFile zipFile, ZipArchiveEntry entry) {
+        try (InputStream in = zipFile.getInputStream(entry)) {
+            return FileUtils.hash(in);
         } catch (IOException e) {
             throw Exceptions.propagate(e);
         }
-
-        return Flux.fromIterable(artifactMetadatas);
     }
 
     private static Mono<ListMatchingResourcesResponse> requestListMatchingResources(CloudFoundryClient cloudFoundryClient, Collection<ArtifactMetadata> artifactMetadatas) {
@@ -115,6 +189,13 @@ public final class ResourceMatchingUtils {
             .list(request);
     }
 
+    @FunctionalInterface
+    private interface EntryHasher {
+
+        String hash(Path application, ZipFile zipFile, ZipArchiveEntry entry);
+
+    }
+
     /**
      * Metadata information about a given artifact
      */
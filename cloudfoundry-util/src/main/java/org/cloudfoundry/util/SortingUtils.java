@@ -16,19 +16,13 @@
 
 package org.cloudfoundry.util;
 
-import reactor.core.Disposable;
-import reactor.core.publisher.DirectProcessor;
 import reactor.core.publisher.Flux;
-import reactor.util.function.Tuple2;
 
 import java.time.Duration;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
 import java.util.PriorityQueue;
-import java.util.Queue;
 import java.util.function.Function;
 
 /**
@@ -36,9 +30,37 @@ import java.util.function.Function;
  */
 public final class SortingUtils {
 
+    private static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
     private SortingUtils() {
     }
 
+    /**
+     * Returns the last {@code n} elements of a {@link Flux} in sorted order.  The source is consumed in full, but no more than {@code n} elements are held at once, so memory use and
+     * sorting cost depend on {@code n} rather than on the size of the source.
+     *
+     * @param comparator a {@link Comparator} to use when sorting the elements
+     * @param n          the number of elements to return
+     * @param <T>        The type of the elements to be sorted
+     * @return a {@link Flux} providing the last {@code n} sorted elements
+     */
+    public static <T> Function<Flux<T>, Flux<T>> last(Comparator<T> comparator, int n) {
+        return source -> source
+            .collect(() -> new PriorityQueue<T>(comparator), (heap, element) -> {
+                if (heap.size() < n) {
+                    heap.offer(element);
+                } else if (!heap.isEmpty() && comparator.compare(element, heap.peek()) > 0) {
+                    heap.poll();
+                    heap.offer(element);
+                }
+            })
+            .flatMapIterable(heap -> {
+                List<T> elements = new ArrayList<>(heap);
+                elements.sort(comparator);
+                return elements;
+            });
+    }
+
     /**
      * Sorts the elements of a {@link Flux} within a sliding time window.  This sorter should be used when element order may be scrambled, but that scrambling has a certain 'temporal locality' to it.
      * This assumption means that sorting can be limited to elements that arrive temporally close to one another without risking a latecomer being sorted incorrectly.
@@ -49,46 +71,42 @@ public final class SortingUtils {
      * @return a {@link Flux} providing the sorted elements
      */
     public static <T> Function<Flux<T>, Flux<T>> timespan(Comparator<T> comparator, Duration timespan) {
-        return source -> {
-            Queue<Tuple2<Long, T>> accumulator = new PriorityQueue<>((o1, o2) -> comparator.compare(o1.getT2(), o2.getT2()));
-
-            Object monitor = new Object();
-
-            DirectProcessor<Void> d = DirectProcessor.create();
-
-            Disposable disposable = source
-                .timestamp()
-                .subscribe(item -> {
-                    Optional.ofNullable(item)
-                        .ifPresent(i -> {
-                            synchronized (monitor) {
-                                accumulator.add(i);
-                            }
-                        });
-                }, d::onError, d::onComplete);
+        return timespan(comparator, timespan, DEFAULT_MAXIMUM_SIZE, LateElements.EMIT);
+    }
 
-            return Flux
-                .interval(timespan)
-                .takeUntilOther(d)
-                .flatMap(n -> getItems(accumulator, comparator, timespan), null, () -> getItems(accumulator, comparator, Duration.ZERO))
-                .doOnCancel(disposable::dispose);
-        };
+    /**
+     * Sorts the elements of a {@link Flux} within a sliding time window.  This sorter should be used when element order may be scrambled, but that scrambling has a certain 'temporal locality' to it.
+     * This assumption means that sorting can be limited to elements that arrive temporally close to one another without risking a latecomer being sorted incorrectly.
+     * <p>
+     * No more than {@code maximumSize} elements are held at once.  When that many are waiting, the first is emitted without waiting for the window to pass, and no more are requested
+     * from the source until the subscriber has requested more.
+     *
+     * @param comparator   a {@link Comparator} to use when sorting the elements within the window
+     * @param timespan     the duration of the 'temporal locality'
+     * @param maximumSize  the maximum number of elements to hold while sorting
+     * @param lateElements what to do with elements that arrive after a later element has already been emitted
+     * @param <T>          The type of the elements to be sorted
+     * @return a {@link Flux} providing the sorted elements
+     */
+    public static <T> Function<Flux<T>, Flux<T>> timespan(Comparator<T> comparator, Duration timespan, int maximumSize, LateElements lateElements) {
+        return source -> Flux.from(subscriber -> source.subscribe(new ReorderBuffer<>(subscriber, comparator, timespan, maximumSize, lateElements)));
     }
 
-    private static <T> Flux<T> getItems(Queue<Tuple2<Long, T>> accumulator, Object monitor, Duration timespan) {
-        List<T> items = new ArrayList<>();
+    /**
+     * What to do with elements that arrive after an element that sorts after them has already been emitted
+     */
+    public enum LateElements {
 
-        synchronized (monitor) {
-            while (isBefore(accumulator.peek(), timespan)) {
-                items.add(accumulator.remove().getT2());
-            }
-        }
+        /**
+         * Drop the element
+         */
+        DROP,
 
-        return Flux.fromIterable(items);
-    }
+        /**
+         * Emit the element immediately, out of order
+         */
+        EMIT
 
-    private static <T> boolean isBefore(Tuple2<Long, T> candidate, Duration timespan) {
-        return candidate != null && (Duration.ZERO == timespan || Instant.ofEpochMilli(candidate.getT1()).isBefore(Instant.now().minus(timespan)));
     }
 
 }
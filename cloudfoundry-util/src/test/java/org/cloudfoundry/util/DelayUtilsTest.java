@@ -24,6 +24,9 @@ import reactor.test.StepVerifier;
 import reactor.test.scheduler.VirtualTimeScheduler;
 
 import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 public final class DelayUtilsTest {
 
@@ -72,6 +75,25 @@ public final class DelayUtilsTest {
             .verify(Duration.ofSeconds(5));
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void exponentialBackOffWithJitter() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.withVirtualTime(() -> (Publisher<Long>) DelayUtils.<Long>exponentialBackOffWithJitter(Duration.ofSeconds(1), Duration.ofSeconds(4), attempts)
+            .apply(Flux.just(1L, 2L, 3L)))
+            .then(() -> VirtualTimeScheduler.get().advanceTimeBy(Duration.ofSeconds(1)))
+            .expectNext(0L)
+            .then(() -> VirtualTimeScheduler.get().advanceTimeBy(Duration.ofSeconds(2)))
+            .expectNext(0L)
+            .then(() -> VirtualTimeScheduler.get().advanceTimeBy(Duration.ofSeconds(4)))
+            .expectNext(0L)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(attempts.get()).isEqualTo(3);
+    }
+
     @Test
     public void exponentialBackOffErrorTimeout() {
         StepVerifier.create(DelayUtils.exponentialBackOffError(Duration.ofMillis(500), Duration.ofMillis(500), Duration.ofMillis(100))
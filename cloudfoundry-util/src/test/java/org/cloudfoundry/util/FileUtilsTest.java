@@ -0,0 +1,268 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.util;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import reactor.test.StepVerifier;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class FileUtilsTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void compressFromZipCopiesRawEntries() throws IOException {
+        Path source = this.folder.getRoot().toPath().resolve("source.jar");
+        Random random = new Random(0);
+
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(source))) {
+            for (int i = 0; i < 10; i++) {
+                byte[] content = new byte[4_096];
+                random.nextBytes(content);
+                Arrays.fill(content, 0, 2_048, (byte) i);
+
+                ZipEntry entry = new ZipEntry(String.format("entry-%d", i));
+                if (i % 2 == 0) {
+                    CRC32 crc = new CRC32();
+                    crc.update(content);
+
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setCompressedSize(content.length);
+                    entry.setCrc(crc.getValue());
+                    entry.setSize(content.length);
+                }
+
+                out.putNextEntry(entry);
+                out.write(content);
+                out.closeEntry();
+            }
+        }
+
+        Path compressed = FileUtils.compress(source, path -> !path.equals("entry-3")).block(Duration.ofSeconds(30));
+
+        try (ZipFile expected = new ZipFile(source.toFile()); ZipFile actual = new ZipFile(compressed.toFile())) {
+            assertThat(actual.getEntry("entry-3")).isNull();
+
+            for (ZipArchiveEntry expectedEntry : Collections.list(expected.getEntries())) {
+                if (expectedEntry.getName().equals("entry-3")) {
+                    continue;
+                }
+
+                ZipArchiveEntry actualEntry = actual.getEntry(expectedEntry.getName());
+
+                assertThat(actualEntry.getMethod()).isEqualTo(expectedEntry.getMethod());
+                assertThat(actualEntry.getCrc()).isEqualTo(expectedEntry.getCrc());
+
+                try (InputStream expectedIn = expected.getRawInputStream(expectedEntry); InputStream actualIn = actual.getRawInputStream(actualEntry)) {
+                    assertThat(readAll(actualIn)).isEqualTo(readAll(expectedIn));
+                }
+            }
+        } finally {
+            Files.delete(compressed);
+        }
+    }
+
+    @Test
+    public void compressParallel() throws IOException {
+        Path application = createApplication(50, 8 * 1_024);
+        for (int i = 0; i < 5; i++) {
+            Files.copy(application.resolve(String.format("directory-%d/file-%d.bin", i, i)), application.resolve(String.format("directory-%d/archive-%d.jar", i, i)));
+        }
+
+        Path sequential = FileUtils.compress(application, path -> true, 1).block(Duration.ofSeconds(30));
+        Path parallel = FileUtils.compress(application, path -> true, 8).block(Duration.ofSeconds(30));
+
+        try (ZipFile expected = new ZipFile(sequential.toFile()); ZipFile actual = new ZipFile(parallel.toFile())) {
+            List<String> expectedNames = getNames(expected);
+
+            assertThat(getNames(actual)).isEqualTo(expectedNames);
+
+            for (String name : expectedNames) {
+                ZipArchiveEntry entry = actual.getEntry(name);
+
+                if (name.endsWith(".jar")) {
+                    assertThat(entry.getMethod()).as("Method of %s", name).isEqualTo(ZipEntry.STORED);
+                }
+
+                if (!entry.isDirectory()) {
+                    try (InputStream in = actual.getInputStream(entry)) {
+                        assertThat(readAll(in)).as("Contents of %s", name).isEqualTo(Files.readAllBytes(application.resolve(name)));
+                    }
+                }
+            }
+        } finally {
+            Files.delete(sequential);
+            Files.delete(parallel);
+        }
+    }
+
+    @Test
+    public void compressParallelLargeStored() throws IOException {
+        Path application = createApplication(2, 1_024);
+
+        byte[] content = new byte[17 * 1_024 * 1_024];
+        new Random(0).nextBytes(content);
+        Files.write(application.resolve("large.jar"), content);
+
+        Path parallel = FileUtils.compress(application, path -> true, 4).block(Duration.ofSeconds(30));
+
+        try (ZipFile actual = new ZipFile(parallel.toFile())) {
+            ZipArchiveEntry entry = actual.getEntry("large.jar");
+
+            assertThat(entry.getMethod()).isEqualTo(ZipEntry.STORED);
+            assertThat(entry.getSize()).isEqualTo(content.length);
+            assertThat(entry.getCompressedSize()).isEqualTo(content.length);
+
+            try (InputStream in = actual.getInputStream(entry)) {
+                assertThat(readAll(in)).isEqualTo(content);
+            }
+        } finally {
+            Files.delete(parallel);
+        }
+    }
+
+    @Test
+    public void compressStream() throws IOException {
+        Path application = createApplication(20, 1_024);
+
+        byte[] archive = FileUtils.compressStream(application, path -> !path.equals("directory-1/file-1.bin"), 4_096)
+            .reduce(new ByteArrayOutputStream(), (out, bytes) -> {
+                out.write(bytes, 0, bytes.length);
+                return out;
+            })
+            .map(ByteArrayOutputStream::toByteArray)
+            .block(Duration.ofSeconds(30));
+
+        Map<String, byte[]> entries = getEntries(archive);
+
+        assertThat(entries).hasSize(19).doesNotContainKey("directory-1/file-1.bin");
+        assertThat(entries.get("directory-2/file-2.bin")).isEqualTo(Files.readAllBytes(application.resolve("directory-2/file-2.bin")));
+    }
+
+    @Test
+    public void compressStreamBounded() throws IOException {
+        Path application = createApplication(20, 64 * 1_024);
+
+        List<byte[]> buffers = FileUtils.compressStream(application, path -> true, 4_096)
+            .collectList()
+            .block(Duration.ofSeconds(30));
+
+        assertThat(buffers.size()).isGreaterThan(1);
+        buffers.subList(0, buffers.size() - 1)
+            .forEach(buffer -> assertThat(buffer.length).isBetween(4_096, 4_096 + 16_384));
+    }
+
+    @Test
+    public void compressStreamOnDemand() throws IOException {
+        Path application = createApplication(50, 64 * 1_024);
+        AtomicInteger supplied = new AtomicInteger();
+
+        FileUtils.compressStream(application, path -> true, 1_024, () -> {
+            supplied.incrementAndGet();
+            return new ByteArrayOutputStream();
+        }, buffer -> {
+        })
+            .as(flux -> StepVerifier.create(flux, 1))
+            .expectNextCount(1)
+            .thenCancel()
+            .verify(Duration.ofSeconds(5));
+
+        assertThat(supplied.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void compressStreamError() {
+        FileUtils.compressStream(this.folder.getRoot().toPath().resolve("does-not-exist.zip"), path -> true, 1_024)
+            .as(StepVerifier::create)
+            .expectError(IOException.class)
+            .verify(Duration.ofSeconds(5));
+    }
+
+    private static Map<String, byte[]> getEntries(byte[] archive) throws IOException {
+        Map<String, byte[]> entries = new TreeMap<>();
+
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                if (!entry.isDirectory()) {
+                    entries.put(entry.getName(), readAll(in));
+                }
+            }
+        }
+
+        return entries;
+    }
+
+    private static List<String> getNames(ZipFile zipFile) {
+        return Collections.list(zipFile.getEntriesInPhysicalOrder()).stream()
+            .map(ZipArchiveEntry::getName)
+            .collect(Collectors.toList());
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8_192];
+
+        for (int length = in.read(buffer); length != -1; length = in.read(buffer)) {
+            out.write(buffer, 0, length);
+        }
+
+        return out.toByteArray();
+    }
+
+    private Path createApplication(int files, int size) throws IOException {
+        Path application = this.folder.newFolder("application").toPath();
+        Random random = new Random(0);
+
+        for (int i = 0; i < files; i++) {
+            Path file = application.resolve(String.format("directory-%d/file-%d.bin", i, i));
+            Files.createDirectories(file.getParent());
+
+            byte[] content = new byte[size];
+            random.nextBytes(content);
+            Files.write(file, content);
+        }
+
+        return application;
+    }
+
+}
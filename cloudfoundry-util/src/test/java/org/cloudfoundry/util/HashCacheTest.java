@@ -0,0 +1,156 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.util;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class HashCacheTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void archiveEntry() throws IOException {
+        HashCache hashCache = HashCache.create(10);
+        Path archive = this.folder.getRoot().toPath().resolve("archive.zip");
+
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+            ZipEntry entry = new ZipEntry("alpha");
+            entry.setTime(System.currentTimeMillis() - 60_000);
+            out.putNextEntry(entry);
+            out.write("test-alpha".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            ZipArchiveEntry entry = zipFile.getEntry("alpha");
+            String expected = FileUtils.hash(createFile("alpha", "test-alpha"));
+
+            assertThat(hashCache.hash(archive, zipFile, entry)).isEqualTo(expected);
+            assertThat(hashCache.hash(archive, zipFile, entry)).isEqualTo(expected);
+            assertThat(hashCache.getHits()).isEqualTo(1);
+            assertThat(hashCache.getMisses()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void evict() throws IOException {
+        HashCache hashCache = HashCache.create(1);
+        Path alpha = createFile("alpha", "test-alpha");
+        Path bravo = createFile("bravo", "test-bravo");
+
+        hashCache.hash(alpha);
+        hashCache.hash(bravo);
+        hashCache.hash(alpha);
+
+        assertThat(hashCache.getHits()).isEqualTo(0);
+        assertThat(hashCache.getMisses()).isEqualTo(3);
+    }
+
+    @Test
+    public void hit() throws IOException {
+        HashCache hashCache = HashCache.create(10);
+        Path alpha = createFile("alpha", "test-alpha");
+
+        assertThat(hashCache.hash(alpha)).isEqualTo(FileUtils.hash(alpha));
+        assertThat(hashCache.hash(alpha)).isEqualTo(FileUtils.hash(alpha));
+        assertThat(hashCache.getHits()).isEqualTo(1);
+        assertThat(hashCache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void modified() throws IOException {
+        HashCache hashCache = HashCache.create(10);
+        Path alpha = createFile("alpha", "test-alpha");
+
+        hashCache.hash(alpha);
+
+        Files.write(alpha, "test-alpha-modified".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(alpha, FileTime.fromMillis(0));
+
+        assertThat(hashCache.hash(alpha)).isEqualTo(FileUtils.hash(alpha));
+        assertThat(hashCache.getHits()).isEqualTo(0);
+        assertThat(hashCache.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    public void persist() throws IOException {
+        Path location = this.folder.getRoot().toPath().resolve("hash-cache");
+        Path alpha = createFile("alpha", "test-alpha");
+
+        HashCache first = HashCache.create(location, 10);
+        first.hash(alpha);
+        first.persist();
+
+        HashCache second = HashCache.create(location, 10);
+        assertThat(second.hash(alpha)).isEqualTo(FileUtils.hash(alpha));
+        assertThat(second.getHits()).isEqualTo(1);
+        assertThat(second.getMisses()).isEqualTo(0);
+    }
+
+    @Test
+    public void persistEscapedPath() throws IOException {
+        Path location = this.folder.getRoot().toPath().resolve("hash-cache");
+        Path alpha = createFile("alpha\tbravo\ncharlie\\delta", "test-alpha");
+
+        HashCache first = HashCache.create(location, 10);
+        first.hash(alpha);
+        first.persist();
+
+        HashCache second = HashCache.create(location, 10);
+        assertThat(second.hash(alpha)).isEqualTo(FileUtils.hash(alpha));
+        assertThat(second.getHits()).isEqualTo(1);
+        assertThat(second.getMisses()).isEqualTo(0);
+    }
+
+    @Test
+    public void racyModification() throws IOException {
+        HashCache hashCache = HashCache.create(10);
+        Path alpha = createFile("alpha", "test-alpha");
+        FileTime lastModified = FileTime.fromMillis(System.currentTimeMillis());
+        Files.setLastModifiedTime(alpha, lastModified);
+
+        hashCache.hash(alpha);
+
+        Files.write(alpha, "test-bravo".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(alpha, lastModified);
+
+        assertThat(hashCache.hash(alpha)).isEqualTo(FileUtils.hash(alpha));
+        assertThat(hashCache.getHits()).isEqualTo(0);
+        assertThat(hashCache.getMisses()).isEqualTo(2);
+    }
+
+    private Path createFile(String name, String content) throws IOException {
+        Path file = Files.write(this.folder.getRoot().toPath().resolve(name), content.getBytes(StandardCharsets.UTF_8));
+        return Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+    }
+
+}
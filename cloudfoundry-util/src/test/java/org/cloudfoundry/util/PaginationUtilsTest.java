@@ -35,11 +35,17 @@ import org.cloudfoundry.uaa.users.Users;
 import org.junit.Test;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
 
 import java.time.Duration;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.RETURNS_SMART_NULLS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -65,6 +71,40 @@ public final class PaginationUtilsTest {
             .verify(Duration.ofSeconds(1));
     }
 
+    @Test
+    public void requestClientV2ResourcesCancelled() {
+        List<Integer> requested = new CopyOnWriteArrayList<>();
+
+        StepVerifier.withVirtualTime(() -> PaginationUtils
+            .requestClientV2Resources(delayedSpaces(10, Duration.ofMillis(20), requested, new AtomicInteger(), new AtomicInteger()), 2, 1)
+            .take(2))
+            .then(() -> VirtualTimeScheduler.get().advanceTimeBy(Duration.ofSeconds(1)))
+            .expectNextCount(2)
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(requested).startsWith(1, 2);
+        assertThat(requested.size()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    public void requestClientV2ResourcesConcurrency() {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maximum = new AtomicInteger();
+        List<Integer> requested = new CopyOnWriteArrayList<>();
+
+        StepVerifier.withVirtualTime(() -> PaginationUtils
+            .requestClientV2Resources(delayedSpaces(10, Duration.ofMillis(20), requested, active, maximum), 2, 1)
+            .map(resource -> resource.getEntity().getName()))
+            .then(() -> VirtualTimeScheduler.get().advanceTimeBy(Duration.ofSeconds(1)))
+            .expectNext("1", "2", "3", "4", "5", "6", "7", "8", "9", "10")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+
+        assertThat(requested).hasSize(10);
+        assertThat(maximum.get()).isEqualTo(2);
+    }
+
     @Test
     public void requestClientV2ResourcesEmpty() throws InterruptedException, TimeoutException {
         Spaces spaces = mock(Spaces.class, RETURNS_SMART_NULLS);
@@ -81,6 +121,26 @@ public final class PaginationUtilsTest {
             .verify(Duration.ofSeconds(1));
     }
 
+    @Test
+    public void requestClientV2ResourcesOrdered() throws InterruptedException, TimeoutException {
+        Spaces spaces = mock(Spaces.class, RETURNS_SMART_NULLS);
+
+        requestListSpaces(spaces, 1, 3);
+        requestListSpaces(spaces, 2, 3, Duration.ofMillis(200));
+        requestListSpaces(spaces, 3, 3);
+
+        PaginationUtils
+            .requestClientV2Resources(page -> spaces
+                .list(ListSpacesRequest.builder()
+                    .page(page)
+                    .build()))
+            .map(resource -> resource.getEntity().getName())
+            .as(StepVerifier::create)
+            .expectNext("1", "2", "3")
+            .expectComplete()
+            .verify(Duration.ofSeconds(1));
+    }
+
     @Test
     public void requestClientV3Empty() throws InterruptedException, TimeoutException {
         Packages packages = mock(Packages.class, RETURNS_SMART_NULLS);
@@ -151,6 +211,34 @@ public final class PaginationUtilsTest {
             .verify(Duration.ofSeconds(1));
     }
 
+    private static Function<Integer, Mono<ListSpacesResponse>> delayedSpaces(int totalPages, Duration delay, List<Integer> requested, AtomicInteger active,
+                                                                            AtomicInteger maximum) {
+        return page -> Mono
+            .defer(() -> {
+                requested.add(page);
+
+                if (page > 1) {
+                    maximum.accumulateAndGet(active.incrementAndGet(), Math::max);
+                }
+
+                return Mono
+                    .just(ListSpacesResponse.builder()
+                        .resource(SpaceResource.builder()
+                            .entity(SpaceEntity.builder()
+                                .name(page.toString())
+                                .build())
+                            .build())
+                        .totalPages(totalPages)
+                        .build())
+                    .delaySubscription(delay);
+            })
+            .doFinally(signalType -> {
+                if (page > 1) {
+                    active.decrementAndGet();
+                }
+            });
+    }
+
     private static void requestListPackages(Packages packages, Integer page, Integer totalPages) {
         when(packages
             .list(ListPackagesRequest.builder()
@@ -182,6 +270,10 @@ public final class PaginationUtilsTest {
     }
 
     private static void requestListSpaces(Spaces spaces, Integer page, Integer totalPages) {
+        requestListSpaces(spaces, page, totalPages, Duration.ZERO);
+    }
+
+    private static void requestListSpaces(Spaces spaces, Integer page, Integer totalPages, Duration delay) {
         when(spaces
             .list(ListSpacesRequest.builder()
                 .page(page)
@@ -194,7 +286,8 @@ public final class PaginationUtilsTest {
                             .build())
                         .build())
                     .totalPages(totalPages)
-                    .build()));
+                    .build())
+                .delaySubscription(delay));
     }
 
     private static void requestListSpacesEmpty(Spaces spaces) {
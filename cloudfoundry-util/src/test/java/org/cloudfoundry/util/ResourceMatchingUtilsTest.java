@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.util;
+
+import org.cloudfoundry.client.CloudFoundryClient;
+import org.cloudfoundry.client.v2.resourcematch.ListMatchingResourcesRequest;
+import org.cloudfoundry.client.v2.resourcematch.ListMatchingResourcesResponse;
+import org.cloudfoundry.client.v2.resourcematch.ResourceMatch;
+import org.cloudfoundry.util.ResourceMatchingUtils.ArtifactMetadata;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public final class ResourceMatchingUtilsTest {
+
+    private static final int FILES = 200;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final CloudFoundryClient cloudFoundryClient = mock(CloudFoundryClient.class);
+
+    private final ResourceMatch resourceMatch = mock(ResourceMatch.class);
+
+    private Path application;
+
+    @Test
+    public void archiveMatchesDirectory() throws IOException {
+        Path archive = this.folder.getRoot().toPath().resolve("application.zip");
+
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+            for (int i = 0; i < FILES; i++) {
+                out.putNextEntry(new ZipEntry(getName(i)));
+                out.write(getContent(i));
+                out.closeEntry();
+            }
+        }
+
+        assertThat(getHashes(archive, 4)).isEqualTo(getHashes(this.application, 1));
+    }
+
+    @Test
+    public void parallelHashingIsDeterministic() throws IOException {
+        Map<String, String> expected = getHashes(this.application, 1);
+
+        assertThat(expected).hasSize(FILES);
+        assertThat(expected.get(getName(0))).isEqualTo(FileUtils.hash(this.application.resolve(getName(0))));
+
+        for (int parallelism : new int[]{2, 4, 16}) {
+            assertThat(getHashes(this.application, parallelism)).isEqualTo(expected);
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        when(this.cloudFoundryClient.resourceMatch()).thenReturn(this.resourceMatch);
+        when(this.resourceMatch.list(any(ListMatchingResourcesRequest.class))).thenAnswer(invocation -> Mono.just(ListMatchingResourcesResponse.builder()
+            .addAllResources(((ListMatchingResourcesRequest) invocation.getArguments()[0]).getResources())
+            .build()));
+
+        this.application = this.folder.newFolder("application").toPath();
+
+        for (int i = 0; i < FILES; i++) {
+            Path file = this.application.resolve(getName(i));
+            Files.createDirectories(file.getParent());
+
+            try (OutputStream out = Files.newOutputStream(file)) {
+                out.write(getContent(i));
+            }
+        }
+    }
+
+    private static byte[] getContent(int i) {
+        return String.format("test-content-%d", i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String getName(int i) {
+        return String.format("directory-%d/file-%d.txt", i % 10, i);
+    }
+
+    private Map<String, String> getHashes(Path application, int parallelism) {
+        return ResourceMatchingUtils.getMatchedResources(this.cloudFoundryClient, application, parallelism)
+            .block(Duration.ofSeconds(30))
+            .stream()
+            .collect(Collectors.toMap(ArtifactMetadata::getPath, ArtifactMetadata::getHash));
+    }
+
+}
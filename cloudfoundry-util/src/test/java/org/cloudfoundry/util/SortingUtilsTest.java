@@ -0,0 +1,113 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cloudfoundry.util;
+
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class SortingUtilsTest {
+
+    @Test
+    public void last() {
+        Flux.just(5, 3, 9, 1, 7, 2)
+            .compose(SortingUtils.last(Comparator.<Integer>naturalOrder(), 3))
+            .as(StepVerifier::create)
+            .expectNext(5, 7, 9)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void lastFewerElements() {
+        Flux.just(2, 1)
+            .compose(SortingUtils.last(Comparator.<Integer>naturalOrder(), 3))
+            .as(StepVerifier::create)
+            .expectNext(1, 2)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void timespan() {
+        Flux.just(3, 1, 2)
+            .compose(SortingUtils.timespan(Comparator.<Integer>naturalOrder(), Duration.ofMillis(100)))
+            .as(StepVerifier::create)
+            .expectNext(1, 2, 3)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void timespanBackpressure() {
+        AtomicLong requested = new AtomicLong();
+
+        Flux.range(0, 100)
+            .doOnRequest(requested::addAndGet)
+            .compose(SortingUtils.timespan(Comparator.<Integer>naturalOrder(), Duration.ofMillis(10), 8, SortingUtils.LateElements.EMIT))
+            .as(flux -> StepVerifier.create(flux, 0))
+            .thenRequest(2)
+            .expectNext(0, 1)
+            .then(() -> assertThat(requested.get()).isLessThanOrEqualTo(10))
+            .thenRequest(Long.MAX_VALUE)
+            .expectNextCount(98)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void timespanLateDrop() {
+        Flux.concat(Flux.just(1), Flux.just(0).delaySubscription(Duration.ofMillis(200)))
+            .compose(SortingUtils.timespan(Comparator.<Integer>naturalOrder(), Duration.ofMillis(10), 8, SortingUtils.LateElements.DROP))
+            .as(StepVerifier::create)
+            .expectNext(1)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void timespanLateEmit() {
+        Flux.concat(Flux.just(1), Flux.just(0).delaySubscription(Duration.ofMillis(200)))
+            .compose(SortingUtils.timespan(Comparator.<Integer>naturalOrder(), Duration.ofMillis(10), 8, SortingUtils.LateElements.EMIT))
+            .as(StepVerifier::create)
+            .expectNext(1, 0)
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void timespanStress() {
+        Flux.range(0, 100_000)
+            .map(i -> i ^ 1)
+            .subscribeOn(Schedulers.parallel())
+            .compose(SortingUtils.timespan(Comparator.<Integer>naturalOrder(), Duration.ofHours(1), 1_000, SortingUtils.LateElements.EMIT))
+            .publishOn(Schedulers.parallel())
+            .collectList()
+            .as(StepVerifier::create)
+            .consumeNextWith(list -> assertThat(list).hasSize(100_000).isSorted())
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    }
+
+}